@@ -4,6 +4,7 @@ import com.demo.api.account.dto.AccountIdResponse;
 import com.demo.api.account.dto.AccountResponse;
 import com.demo.api.account.dto.NewAccountRequest;
 import com.demo.api.common.ApiResponse;
+import com.demo.api.common.BatchItemResponse;
 import com.demo.api.common.TestContext;
 import com.demo.api.common.TestHttpClient;
 import com.demo.common.BootstrapConfig;
@@ -88,6 +89,18 @@ public class AccountControllerIT {
         assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST_400));
     }
 
+    @Test
+    public void shouldRejectAccountWithBalanceBelowMinorUnit() {
+        // Given
+        NewAccountRequest newAccountRequest = new NewAccountRequest(new BigDecimal("0.001"));
+
+        // When
+        ApiResponse<AccountIdResponse> response = httpClient.post(ACCOUNTS_PATH, newAccountRequest, AccountIdResponse.class);
+
+        // Then
+        assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST_400));
+    }
+
     @Test
     public void shouldRejectAccountWithoutBalance() {
         // Given
@@ -128,4 +141,48 @@ public class AccountControllerIT {
         // Then
         assertThat(response.getStatus(), is(HttpStatus.NOT_FOUND_404));
     }
+
+    @Test
+    public void shouldCreateAndFindAccountsInBulk() {
+        // Given
+        NewAccountRequest[] batchRequest = {
+                new NewAccountRequest(BigDecimal.ONE),
+                new NewAccountRequest(BigDecimal.ONE.negate()),
+                new NewAccountRequest(BigDecimal.TEN)
+        };
+
+        // When
+        ApiResponse<BatchItemResponse[]> response =
+                httpClient.post(ACCOUNTS_PATH + "/batch", batchRequest, BatchItemResponse[].class);
+
+        // Then
+        assertThat(response.getStatus(), is(HttpStatus.OK_200));
+        BatchItemResponse[] items = response.getBody();
+        assertThat(items.length, is(3));
+        assertThat(items[0].getId(), not(isEmptyOrNullString()));
+        assertThat(items[1].getError(), not(isEmptyOrNullString()));
+        assertThat(items[2].getId(), not(isEmptyOrNullString()));
+
+        ApiResponse<AccountResponse[]> accountsResponse = httpClient.get(String.format("%s?ids=%s,%s,someFakeId",
+                ACCOUNTS_PATH, items[0].getId(), items[2].getId()), AccountResponse[].class);
+        assertThat(accountsResponse.getStatus(), is(HttpStatus.OK_200));
+        AccountResponse[] accounts = accountsResponse.getBody();
+        assertThat(accounts.length, is(2));
+        assertThat(accounts[0].getBalance(), equalTo(BigDecimal.ONE));
+        assertThat(accounts[1].getBalance(), equalTo(BigDecimal.TEN));
+
+        ApiResponse<AccountResponse[]> queryResponse = httpClient.post(ACCOUNTS_PATH + "/query",
+                new String[]{items[2].getId()}, AccountResponse[].class);
+        assertThat(queryResponse.getStatus(), is(HttpStatus.OK_200));
+        assertThat(queryResponse.getBody()[0].getId(), equalTo(items[2].getId()));
+    }
+
+    @Test
+    public void shouldRejectAccountsRequestWithoutIds() {
+        // When
+        ApiResponse<AccountResponse[]> response = httpClient.get(ACCOUNTS_PATH, AccountResponse[].class);
+
+        // Then
+        assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST_400));
+    }
 }
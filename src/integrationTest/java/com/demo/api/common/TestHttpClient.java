@@ -8,9 +8,11 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 public class TestHttpClient {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestHttpClient.class);
@@ -33,8 +35,34 @@ public class TestHttpClient {
     }
 
     public <I, O> ApiResponse<O> post(String contextPath, I inputObj, Class<O> cls) {
+        return post(contextPath, inputObj, Collections.emptyMap(), cls);
+    }
+
+    public <I, O> ApiResponse<O> post(String contextPath, I inputObj, Map<String, String> headers, Class<O> cls) {
         try {
-            return doPost(contextPath, inputObj, cls);
+            return doPost(contextPath, inputObj, headers, cls);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads server-sent events until the server closes the stream.
+     */
+    public String getEvents(String contextPath) {
+        return getEvents(contextPath, "text/event-stream");
+    }
+
+    public String getEvents(String contextPath, String accept) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(getUrl(contextPath)))
+                .header("Accept", accept)
+                .build();
+        try {
+            return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .get(10, TimeUnit.SECONDS)
+                    .body();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -58,13 +86,15 @@ public class TestHttpClient {
         return processRequest(response, cls);
     }
 
-    private <I, O> ApiResponse<O> doPost(String contextPath, I inputObj, Class<O> cls) throws Exception {
+    private <I, O> ApiResponse<O> doPost(String contextPath, I inputObj, Map<String, String> headers,
+                                         Class<O> cls) throws Exception {
         String json = context.getMapper().writeValueAsString(inputObj);
-        HttpRequest request = HttpRequest.newBuilder()
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .POST(HttpRequest.BodyPublishers.ofString(json))
                 .uri(URI.create(getUrl(contextPath)))
-                .header("Content-Type", "application/json")
-                .build();
+                .header("Content-Type", "application/json");
+        headers.forEach(builder::header);
+        HttpRequest request = builder.build();
 
         HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
         return processRequest(response, cls);
@@ -90,6 +120,10 @@ public class TestHttpClient {
                 || content.isEmpty()) {
             return null;
         }
+        if (cls == String.class) {
+            // plain text payload
+            return cls.cast(content);
+        }
 
         try {
             return context.getMapper().readValue(content, cls);
@@ -0,0 +1,73 @@
+package com.demo.api.metrics.controller;
+
+import com.demo.api.account.dto.AccountIdResponse;
+import com.demo.api.account.dto.NewAccountRequest;
+import com.demo.api.common.ApiResponse;
+import com.demo.api.common.TestContext;
+import com.demo.api.common.TestHttpClient;
+import com.demo.api.transfer.dto.NewTransferRequest;
+import com.demo.api.transfer.dto.TransferIdResponse;
+import com.demo.common.BootstrapConfig;
+import com.demo.util.SocketUtils;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class MetricsControllerIT {
+
+    private static final String METRICS_PATH = "/metrics";
+
+    private TestContext context;
+    private TestHttpClient httpClient;
+
+    @Before
+    public void beforeTests() {
+        BootstrapConfig config = BootstrapConfig.builder()
+                .withPort(SocketUtils.findAvailablePort())
+                .withBufferSize(1)
+                .withMaxThreads(1)
+                .build();
+        context = new TestContext(config);
+        context.init();
+        httpClient = new TestHttpClient(context);
+    }
+
+    @After
+    public void afterTests() {
+        context.destroy();
+    }
+
+    @Test
+    public void shouldReportLatencyOfPipelineStages() {
+        // Given
+        String sourceAccountId = requestNewAccount(BigDecimal.TEN);
+        String targetAccountId = requestNewAccount(BigDecimal.ZERO);
+
+        // When
+        httpClient.post("/transfers", new NewTransferRequest(sourceAccountId, targetAccountId, BigDecimal.ONE),
+                TransferIdResponse.class);
+
+        // Then
+        await().until(() -> httpClient.get(METRICS_PATH, String.class).getBody()
+                .contains("transfers_completed_total{state=\"done\"} 1"));
+        ApiResponse<String> response = httpClient.get(METRICS_PATH, String.class);
+        assertThat(response.getStatus(), is(HttpStatus.OK_200));
+        assertThat(response.getBody(), containsString("transfer_stage_latency_seconds_count{stage=\"deposit\"} 1"));
+        assertThat(response.getBody(), containsString("transfer_end_to_end_seconds{quantile=\"0.99\"}"));
+        assertThat(response.getBody(), containsString("transfer_queue_wait_seconds_count 1"));
+        assertThat(response.getBody(), containsString("transfer_submissions_total{result=\"accepted\"} 1"));
+        assertThat(response.getBody(), containsString("transfer_event_store_capacity 1"));
+    }
+
+    private String requestNewAccount(BigDecimal initialBalance) {
+        return httpClient.post("/accounts", new NewAccountRequest(initialBalance), AccountIdResponse.class)
+                .getBody().getId();
+    }
+}
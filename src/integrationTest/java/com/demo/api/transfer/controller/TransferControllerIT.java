@@ -4,10 +4,12 @@ import com.demo.api.account.dto.AccountIdResponse;
 import com.demo.api.account.dto.AccountResponse;
 import com.demo.api.account.dto.NewAccountRequest;
 import com.demo.api.common.ApiResponse;
+import com.demo.api.common.BatchItemResponse;
 import com.demo.api.common.TestContext;
 import com.demo.api.common.TestHttpClient;
 import com.demo.api.transfer.dto.NewTransferRequest;
 import com.demo.api.transfer.dto.TransferIdResponse;
+import com.demo.api.transfer.dto.TransferPageResponse;
 import com.demo.api.transfer.dto.TransferResponse;
 import com.demo.api.transfer.model.TransferState;
 import com.demo.common.BootstrapConfig;
@@ -18,7 +20,10 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 
@@ -81,6 +86,125 @@ public class TransferControllerIT {
         validateAccountBalance(targetAccountResponse, targetInitialBalance.add(amount));
     }
 
+    @Test
+    public void shouldReturnOriginalTransferIfRequestRetriedWithSameIdempotencyKey() {
+        // Given
+        ApiResponse<AccountIdResponse> sourceAccountResponse = requestNewAccount(BigDecimal.TEN);
+        AccountIdResponse targetAccountId = requestNewAccount(BigDecimal.ZERO).getBody();
+        NewTransferRequest newTransferRequest = new NewTransferRequest(sourceAccountResponse.getBody().getId(),
+                targetAccountId.getId(), BigDecimal.ONE);
+        Map<String, String> headers = Collections.singletonMap("Idempotency-Key", UUID.randomUUID().toString());
+        ApiResponse<TransferIdResponse> firstResponse = httpClient.post(TRANSFERS_PATH, newTransferRequest, headers,
+                TransferIdResponse.class);
+
+        // When
+        ApiResponse<TransferIdResponse> response = httpClient.post(TRANSFERS_PATH, newTransferRequest, headers,
+                TransferIdResponse.class);
+
+        // Then
+        assertThat(response.getStatus(), is(HttpStatus.CREATED_201));
+        assertThat(response.getBody().getId(), is(firstResponse.getBody().getId()));
+        assertThat(response.getFirstHeader("Location"), is(firstResponse.getFirstHeader("Location")));
+        waitForTransferCondition(response, transferResponse -> transferResponse != null
+                && TransferState.DONE.name().equals(transferResponse.getState()));
+        validateAccountBalance(sourceAccountResponse, BigDecimal.valueOf(9));
+    }
+
+    @Test
+    public void shouldRejectTransferIfIdempotencyKeyUsedForAnotherRequest() {
+        // Given
+        AccountIdResponse sourceAccountId = requestNewAccount(BigDecimal.TEN).getBody();
+        AccountIdResponse targetAccountId = requestNewAccount(BigDecimal.ZERO).getBody();
+        Map<String, String> headers = Collections.singletonMap("Idempotency-Key", UUID.randomUUID().toString());
+        httpClient.post(TRANSFERS_PATH, new NewTransferRequest(sourceAccountId.getId(), targetAccountId.getId(),
+                BigDecimal.ONE), headers, TransferIdResponse.class);
+
+        // When
+        ApiResponse<TransferIdResponse> response = httpClient.post(TRANSFERS_PATH,
+                new NewTransferRequest(sourceAccountId.getId(), targetAccountId.getId(), BigDecimal.TEN), headers,
+                TransferIdResponse.class);
+
+        // Then
+        assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST_400));
+    }
+
+    @Test
+    public void shouldReplyWithFinalStateIfWaitingForCompletion() {
+        // Given
+        AccountIdResponse sourceAccountId = requestNewAccount(BigDecimal.ONE).getBody();
+        AccountIdResponse targetAccountId = requestNewAccount(BigDecimal.ZERO).getBody();
+        NewTransferRequest newTransferRequest = new NewTransferRequest(sourceAccountId.getId(), targetAccountId.getId(),
+                BigDecimal.ONE);
+
+        // When
+        ApiResponse<TransferResponse> response = httpClient.post(TRANSFERS_PATH + "?wait=5000", newTransferRequest,
+                TransferResponse.class);
+
+        // Then
+        assertThat(response.getStatus(), is(HttpStatus.CREATED_201));
+        assertThat(response.getBody().getState(), is(TransferState.DONE.name()));
+        assertThat(response.getFirstHeader("Location"), containsString(response.getBody().getId()));
+    }
+
+    @Test
+    public void shouldStreamTransferStateUntilCompleted() {
+        // Given
+        AccountIdResponse sourceAccountId = requestNewAccount(BigDecimal.TEN).getBody();
+        AccountIdResponse targetAccountId = requestNewAccount(BigDecimal.ZERO).getBody();
+        String transferId = httpClient.post(TRANSFERS_PATH, new NewTransferRequest(sourceAccountId.getId(),
+                targetAccountId.getId(), BigDecimal.ONE), TransferIdResponse.class).getBody().getId();
+
+        // When
+        String events = httpClient.getEvents(TRANSFERS_PATH + "/events?ids=" + transferId);
+
+        // Then
+        assertThat(events, containsString("event: transfer"));
+        assertThat(events, containsString(transferId));
+        assertThat(events, containsString(TransferState.DONE.name()));
+        assertThat(events, not(containsString("event: timeout")));
+    }
+
+    @Test
+    public void shouldCloseTransferEventsStreamOnTimeout() {
+        // Given
+        String unknownTransferId = UUID.randomUUID().toString();
+
+        // When
+        String events = httpClient.getEvents(TRANSFERS_PATH + "/events?timeout=100&ids=" + unknownTransferId);
+
+        // Then
+        assertThat(events, containsString("event: timeout"));
+        assertThat(events, not(containsString("event: transfer")));
+    }
+
+    @Test
+    public void shouldStreamTransferEventsIfEventStreamIsOneOfAcceptedMediaTypes() {
+        // Given
+        String unknownTransferId = UUID.randomUUID().toString();
+
+        // When
+        String eventsWithCharset = httpClient.getEvents(TRANSFERS_PATH + "/events?timeout=100&ids=" + unknownTransferId,
+                "text/event-stream; charset=utf-8");
+        String eventsWithWildcard = httpClient.getEvents(TRANSFERS_PATH + "/events?timeout=100&ids=" + unknownTransferId,
+                "text/event-stream, */*");
+
+        // Then
+        assertThat(eventsWithCharset, containsString("event: timeout"));
+        assertThat(eventsWithWildcard, containsString("event: timeout"));
+    }
+
+    @Test
+    public void shouldRejectTransferEventsRequestIfNotEventStream() {
+        // Given
+        String transferId = UUID.randomUUID().toString();
+
+        // When
+        ApiResponse<String> response = httpClient.get(TRANSFERS_PATH + "/events?ids=" + transferId, String.class);
+
+        // Then
+        assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST_400));
+    }
+
     @Test
     public void shouldRejectTransferIfSenderTransferMoreThanAvailable() {
         // Given
@@ -126,6 +250,21 @@ public class TransferControllerIT {
         assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST_400));
     }
 
+    @Test
+    public void shouldRejectTransferIfAmountAboveMaximum() {
+        // Given
+        AccountIdResponse sourceAccountId = requestNewAccount(BigDecimal.ONE).getBody();
+        AccountIdResponse targetAccountId = requestNewAccount(BigDecimal.ZERO).getBody();
+        BigDecimal amount = BigDecimal.valueOf(Long.MAX_VALUE);
+        NewTransferRequest newTransferRequest = new NewTransferRequest(sourceAccountId.getId(), targetAccountId.getId(), amount);
+
+        // When
+        ApiResponse<TransferIdResponse> response = httpClient.post(TRANSFERS_PATH, newTransferRequest, TransferIdResponse.class);
+
+        // Then
+        assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST_400));
+    }
+
     @Test
     public void shouldRejectTransferIfSenderAndRecipientSameAccounts() {
         // Given
@@ -207,6 +346,129 @@ public class TransferControllerIT {
         assertThat(response.get().getStatus(), is(HttpStatus.OK_200));
     }
 
+    @Test
+    public void shouldReplyWithResultOfEveryTransferInBatch() {
+        // Given
+        ApiResponse<AccountIdResponse> sourceAccountResponse = requestNewAccount(BigDecimal.TEN);
+        ApiResponse<AccountIdResponse> targetAccountResponse = requestNewAccount(BigDecimal.ZERO);
+        String sourceAccountId = sourceAccountResponse.getBody().getId();
+        String targetAccountId = targetAccountResponse.getBody().getId();
+        NewTransferRequest[] batchRequest = {
+                new NewTransferRequest(sourceAccountId, targetAccountId, BigDecimal.ONE),
+                new NewTransferRequest(sourceAccountId, sourceAccountId, BigDecimal.ONE),
+                new NewTransferRequest(sourceAccountId, targetAccountId, new BigDecimal("0.001"))
+        };
+
+        // When
+        ApiResponse<BatchItemResponse[]> response =
+                httpClient.post(TRANSFERS_PATH + "/batch", batchRequest, BatchItemResponse[].class);
+
+        // Then
+        assertThat(response.getStatus(), is(HttpStatus.OK_200));
+        BatchItemResponse[] items = response.getBody();
+        assertThat(items.length, is(3));
+        assertThat(items[0].getId(), not(isEmptyOrNullString()));
+        assertThat(items[1].getError(), not(isEmptyOrNullString()));
+        assertThat(items[2].getError(), not(isEmptyOrNullString()));
+        await().until(() -> {
+            TransferResponse transfer = httpClient.get(TRANSFERS_PATH + "/" + items[0].getId(), TransferResponse.class).getBody();
+            return transfer != null && TransferState.DONE.name().equals(transfer.getState());
+        });
+        validateAccountBalance(sourceAccountResponse, BigDecimal.valueOf(9));
+        validateAccountBalance(targetAccountResponse, BigDecimal.ONE);
+    }
+
+    @Test
+    public void shouldRejectEmptyBatch() {
+        // When
+        ApiResponse<BatchItemResponse[]> response =
+                httpClient.post(TRANSFERS_PATH + "/batch", new NewTransferRequest[0], BatchItemResponse[].class);
+
+        // Then
+        assertThat(response.getStatus(), is(HttpStatus.BAD_REQUEST_400));
+    }
+
+    @Test
+    public void shouldPageThroughTransfersWithCursor() {
+        // Given
+        String sourceAccountId = requestNewAccount(BigDecimal.TEN).getBody().getId();
+        String targetAccountId = requestNewAccount(BigDecimal.ZERO).getBody().getId();
+        for (int i = 0; i < 3; i++) {
+            ApiResponse<TransferIdResponse> response = httpClient.post(TRANSFERS_PATH,
+                    new NewTransferRequest(sourceAccountId, targetAccountId, BigDecimal.ONE), TransferIdResponse.class);
+            waitForTransferCondition(response, transfer -> TransferState.DONE.name().equals(transfer.getState()));
+        }
+
+        // When
+        ApiResponse<TransferPageResponse> firstPage =
+                httpClient.get(TRANSFERS_PATH + "?limit=2", TransferPageResponse.class);
+        ApiResponse<TransferPageResponse> lastPage = httpClient.get(TRANSFERS_PATH + "?limit=2&cursor="
+                + firstPage.getBody().getNextCursor(), TransferPageResponse.class);
+
+        // Then
+        assertThat(firstPage.getStatus(), is(HttpStatus.OK_200));
+        assertThat(firstPage.getBody().getTransfers().size(), is(2));
+        assertThat(firstPage.getBody().getNextCursor(), not(isEmptyOrNullString()));
+        assertThat(lastPage.getStatus(), is(HttpStatus.OK_200));
+        assertThat(lastPage.getBody().getTransfers().size(), is(1));
+        assertThat(lastPage.getBody().getNextCursor(), nullValue());
+    }
+
+    @Test
+    public void shouldRejectInvalidPageRequest() {
+        // When
+        ApiResponse<TransferPageResponse> invalidLimit =
+                httpClient.get(TRANSFERS_PATH + "?limit=0", TransferPageResponse.class);
+        ApiResponse<TransferPageResponse> invalidCursor =
+                httpClient.get(TRANSFERS_PATH + "?cursor=not-a-cursor", TransferPageResponse.class);
+
+        // Then
+        assertThat(invalidLimit.getStatus(), is(HttpStatus.BAD_REQUEST_400));
+        assertThat(invalidCursor.getStatus(), is(HttpStatus.BAD_REQUEST_400));
+    }
+
+    @Test
+    public void shouldReplyWithTransfersOfAccount() {
+        // Given
+        String firstAccountId = requestNewAccount(BigDecimal.TEN).getBody().getId();
+        String secondAccountId = requestNewAccount(BigDecimal.TEN).getBody().getId();
+        String thirdAccountId = requestNewAccount(BigDecimal.TEN).getBody().getId();
+        String[][] accountPairs = {
+                {firstAccountId, secondAccountId},
+                {secondAccountId, thirdAccountId},
+                {thirdAccountId, firstAccountId}
+        };
+        for (String[] accountPair : accountPairs) {
+            ApiResponse<TransferIdResponse> response = httpClient.post(TRANSFERS_PATH,
+                    new NewTransferRequest(accountPair[0], accountPair[1], BigDecimal.ONE), TransferIdResponse.class);
+            waitForTransferCondition(response, transfer -> TransferState.DONE.name().equals(transfer.getState()));
+        }
+        String accountTransfersPath = String.format("%s/%s/transfers", ACCOUNTS_PATH, firstAccountId);
+
+        // When
+        ApiResponse<TransferPageResponse> all = httpClient.get(accountTransfersPath, TransferPageResponse.class);
+        ApiResponse<TransferPageResponse> incoming = httpClient.get(accountTransfersPath + "?direction=incoming&state=DONE",
+                TransferPageResponse.class);
+
+        // Then
+        assertThat(all.getStatus(), is(HttpStatus.OK_200));
+        assertThat(all.getBody().getTransfers().size(), is(2));
+        assertThat(all.getBody().getNextCursor(), nullValue());
+        assertThat(incoming.getStatus(), is(HttpStatus.OK_200));
+        assertThat(incoming.getBody().getTransfers().size(), is(1));
+        assertThat(incoming.getBody().getTransfers().get(0).getSourceAccountId(), equalTo(thirdAccountId));
+    }
+
+    @Test
+    public void shouldReplyNotFoundIfAccountOfTransfersNotExists() {
+        // When
+        ApiResponse<TransferPageResponse> response = httpClient.get(
+                String.format("%s/%s/transfers", ACCOUNTS_PATH, UUID.randomUUID()), TransferPageResponse.class);
+
+        // Then
+        assertThat(response.getStatus(), is(HttpStatus.NOT_FOUND_404));
+    }
+
     private void validateAccountBalance(ApiResponse<AccountIdResponse> response, BigDecimal expectedBalance) {
         String accountLocation = response.getFirstHeader("Location");
         AccountResponse account = httpClient.get(accountLocation, AccountResponse.class).getBody();
@@ -0,0 +1,257 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.account.AccountModule;
+import com.demo.api.account.model.AccountId;
+import com.demo.api.account.repository.AccountStoreType;
+import com.demo.api.account.service.AccountService;
+import com.demo.api.transfer.TransferModule;
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.api.transfer.repository.TransferRepository;
+import com.demo.api.transfer.store.EventStoreType;
+import com.demo.api.transfer.store.WaitStrategyType;
+import com.demo.common.BootstrapConfig;
+import com.demo.common.ThreadType;
+import com.demo.api.model.Money;
+import com.demo.api.journal.JournalModule;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Drives {@link InMemoryTransferManager} and {@link PipelineExecutor} end to end.
+ * {@code throughput} and {@code latency} submit one transfer and wait until the pipeline completes it,
+ * so at most one transfer per benchmark thread is in flight. {@code pipelined} keeps {@code outstanding}
+ * transfers of every thread in flight: each operation submits one transfer and waits for the oldest one.
+ * <p>
+ * Default parameters cover one store configuration, other values are passed with {@code -p}, e.g.
+ * {@code -p lanes=1,4 -p eventStore=QUEUE,RING_BUFFER -p accountStore=MAP,SLOT}.
+ * <p>
+ * Run with: {@code mvn -P jmh test-compile exec:exec -Djmh.args="TransferPipelineBenchmark"}
+ * <p>
+ * On Java 21+ deposit workers on virtual threads are compared with
+ * {@code -Djmh.args="TransferPipelineBenchmark -p threadType=PLATFORM,VIRTUAL -prof gc"},
+ * the gc profiler reports allocation rate and churn of both modes. With {@code -p journal=true} transfer records
+ * are also appended to a journal in a temporary directory.
+ * Netting of opposing transfers is measured with {@code -p contention=HOT_PAIR -p nettingBatchSize=0,64}.
+ * Striped balance of a hot account is measured with {@code -p contention=HOT_TARGET -p hotAccountContentionThreshold=0,100}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class TransferPipelineBenchmark {
+    private static final Money INITIAL_BALANCE = Money.of(1_000_000_000_000L);
+    private static final Money AMOUNT = Money.of(1);
+
+    public enum Contention {
+        // one pair of accounts, transfers A -> B and B -> A (see experiments.sh)
+        HOT_PAIR,
+        // source and target picked uniformly at random from all accounts
+        UNIFORM,
+        // sources picked at random, every transfer goes to the first account
+        HOT_TARGET
+    }
+
+    @Param({"1000"})
+    private int accounts;
+
+    @Param({"HOT_PAIR", "UNIFORM"})
+    private Contention contention;
+
+    @Param({"10000"})
+    private int bufferSize;
+
+    @Param({"4"})
+    private int maxThreads;
+
+    @Param({"4"})
+    private int lanes;
+
+    @Param({"BUSY_SPIN"})
+    private WaitStrategyType waitStrategy;
+
+    @Param({"RING_BUFFER"})
+    private EventStoreType eventStore;
+
+    @Param({"MAP"})
+    private AccountStoreType accountStore;
+
+    @Param({"PLATFORM"})
+    private ThreadType threadType;
+
+    @Param({"0"})
+    private int nettingBatchSize;
+
+    @Param({"0"})
+    private int hotAccountContentionThreshold;
+
+    @Param({"64"})
+    private int outstanding;
+
+    @Param({"false"})
+    private boolean journal;
+
+    private TransferManager transferManager;
+    private TransferRepository transferRepository;
+    private AccountId[] accountIds;
+    private Path journalDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        journalDir = journal ? Files.createTempDirectory("transfer-journal") : null;
+        BootstrapConfig config = BootstrapConfig.builder()
+                .withBufferSize(bufferSize)
+                .withMaxThreads(maxThreads)
+                .withLanes(lanes)
+                .withWaitStrategy(waitStrategy)
+                .withEventStore(eventStore)
+                .withAccountStore(accountStore)
+                .withThreadType(threadType)
+                .withNettingBatchSize(nettingBatchSize)
+                .withHotAccountContentionThreshold(hotAccountContentionThreshold)
+                .withJournalDir(journal ? journalDir.toString() : null)
+                .build();
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(BootstrapConfig.class).toInstance(config);
+                install(new JournalModule(config));
+                install(new AccountModule(config));
+                install(new TransferModule(config));
+            }
+        });
+        transferManager = injector.getInstance(TransferManager.class);
+        transferRepository = injector.getInstance(TransferRepository.class);
+
+        AccountService accountService = injector.getInstance(AccountService.class);
+        accountIds = new AccountId[Math.max(2, accounts)];
+        for (int i = 0; i < accountIds.length; i++) {
+            accountIds[i] = accountService.createNew(INITIAL_BALANCE);
+        }
+
+        transferManager.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        transferManager.stop();
+        if (journalDir != null) {
+            try (Stream<Path> files = Files.walk(journalDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                    try {
+                        Files.delete(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public TransferState throughput(ThreadState state) {
+        return transfer(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public TransferState latency(ThreadState state) {
+        return transfer(state);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public TransferState pipelined(ThreadState state) {
+        TransferState completedState = null;
+        if (state.inFlight.size() >= outstanding) {
+            completedState = awaitCompletion(state.inFlight.poll());
+        }
+        state.inFlight.add(submit(nextTransfer(state)));
+        return completedState;
+    }
+
+    private TransferState transfer(ThreadState state) {
+        return awaitCompletion(submit(nextTransfer(state)));
+    }
+
+    private TransferId submit(TransferEvent event) {
+        while (!transferManager.submitEvent(event)) {
+            // event store is full, give the pipeline a chance to catch up
+            Thread.yield();
+        }
+        return event.getTransferId();
+    }
+
+    private TransferEvent nextTransfer(ThreadState state) {
+        AccountId sourceId;
+        AccountId targetId;
+        if (contention == Contention.HOT_PAIR) {
+            boolean forward = (state.counter++ & 1) == 0;
+            sourceId = accountIds[forward ? 0 : 1];
+            targetId = accountIds[forward ? 1 : 0];
+        } else if (contention == Contention.HOT_TARGET) {
+            sourceId = accountIds[1 + ThreadLocalRandom.current().nextInt(accountIds.length - 1)];
+            targetId = accountIds[0];
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int source = random.nextInt(accountIds.length);
+            int target = random.nextInt(accountIds.length - 1);
+            sourceId = accountIds[source];
+            targetId = accountIds[target >= source ? target + 1 : target];
+        }
+
+        return TransferEvent.builder()
+                .withTransferId(TransferId.generate())
+                .withSourceId(sourceId)
+                .withTargetId(targetId)
+                .withAmount(AMOUNT)
+                .withState(TransferState.NEW)
+                .withDetails("Transfer created")
+                .build();
+    }
+
+    private TransferState awaitCompletion(TransferId transferId) {
+        while (true) {
+            Transfer transfer = transferRepository.findById(transferId);
+            if (transfer != null
+                    && (transfer.getState() == TransferState.DONE || transfer.getState() == TransferState.ERROR)) {
+                return transfer.getState();
+            }
+            Thread.yield();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final Queue<TransferId> inFlight = new ArrayDeque<>();
+        private long counter;
+
+        @TearDown(Level.Iteration)
+        public void awaitInFlight(TransferPipelineBenchmark benchmark) {
+            // transfers of the iteration don't leak into the next one
+            while (!inFlight.isEmpty()) {
+                benchmark.awaitCompletion(inFlight.poll());
+            }
+        }
+    }
+}
@@ -5,8 +5,12 @@ import com.demo.api.common.ErrorResponse;
 import com.demo.api.exception.InvalidDataException;
 import com.demo.api.exception.NotFoundException;
 import com.demo.api.exception.TooBusyException;
+import com.demo.api.journal.JournalModule;
+import com.demo.api.metrics.MetricsModule;
 import com.demo.api.transfer.TransferModule;
 import com.demo.common.BootstrapConfig;
+import com.demo.common.ThreadType;
+import com.demo.common.VirtualThreadPool;
 import com.google.inject.AbstractModule;
 import io.javalin.Javalin;
 import io.javalin.http.HttpResponseException;
@@ -16,6 +20,7 @@ import io.javalin.plugin.openapi.ui.ReDocOptions;
 import io.javalin.plugin.openapi.ui.SwaggerOptions;
 import io.swagger.v3.oas.models.info.Info;
 import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Server;
 
 import java.util.Objects;
 
@@ -30,7 +35,9 @@ public class BootstrapModule extends AbstractModule {
     protected void configure() {
         bind(BootstrapConfig.class).toInstance(bootstrapConfig);
         bind(Javalin.class).toInstance(createApp());
-        install(new AccountModule());
+        install(new JournalModule(bootstrapConfig));
+        install(new MetricsModule());
+        install(new AccountModule(bootstrapConfig));
         install(new TransferModule(bootstrapConfig));
         bind(WebContext.class);
     }
@@ -41,6 +48,9 @@ public class BootstrapModule extends AbstractModule {
             config.showJavalinBanner = false;
             config.enableCorsForAllOrigins();
             config.defaultContentType = "application/json";
+            if (bootstrapConfig.getThreadType() == ThreadType.VIRTUAL) {
+                config.server(() -> new Server(new VirtualThreadPool("jetty-")));
+            }
         }).exception(HttpResponseException.class, (exception, ctx) -> {
             ctx.json(new ErrorResponse(exception.getMessage()));
             ctx.status(exception.getStatus());
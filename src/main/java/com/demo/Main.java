@@ -1,19 +1,39 @@
 package com.demo;
 
+import com.demo.api.account.model.AccountId;
+import com.demo.api.account.repository.AccountStoreType;
+import com.demo.api.journal.JournalFlushPolicy;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.api.transfer.store.EventStoreType;
+import com.demo.api.transfer.store.WaitStrategyType;
 import com.demo.common.BootstrapConfig;
+import com.demo.common.ThreadType;
 import com.demo.util.SocketUtils;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class Main {
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
 
     private static final int DEFAULT_BUFFER_SIZE = 10000;
     private static final int DEFAULT_MAX_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int DEFAULT_LANES = 1;
+    private static final int DEFAULT_JOURNAL_FLUSH_INTERVAL_MS = 10;
+    private static final int DEFAULT_SNAPSHOT_INTERVAL_MS = 60000;
+    private static final int DEFAULT_METRICS_LOG_INTERVAL_MS = 60000;
+    private static final int DEFAULT_ADMISSION_MAX_WAIT_MS = 5;
+    private static final int DEFAULT_IDEMPOTENCY_CACHE_SIZE = 100000;
+    private static final int DEFAULT_IDEMPOTENCY_KEY_TTL_MS = 3600000;
+    private static final int DEFAULT_DEPOSIT_QUEUE_SIZE = 128;
+    private static final int DEFAULT_RESPONSE_WRITER_THREADS = 16;
 
     public static void main(String[] args) {
         BootstrapConfig config = buildConfig();
@@ -30,18 +50,84 @@ public class Main {
         int port = getEnvAsInt("PORT").orElse(SocketUtils.findAvailablePort());
         int bufferSize = getEnvAsInt("BUFFER_SIZE").orElse(DEFAULT_BUFFER_SIZE);
         int maxThreads = getEnvAsInt("MAX_THREADS").orElse(DEFAULT_MAX_THREADS);
+        int lanes = getEnvAsInt("LANES").orElse(DEFAULT_LANES);
+        WaitStrategyType waitStrategy = getEnvAsEnum("WAIT_STRATEGY", WaitStrategyType.class).orElse(null);
+        EventStoreType eventStore = getEnvAsEnum("EVENT_STORE", EventStoreType.class).orElse(null);
+        AccountStoreType accountStore = getEnvAsEnum("ACCOUNT_STORE", AccountStoreType.class).orElse(null);
+        List<TransferState> transferCheckpoints = getEnvAsEnumList("TRANSFER_CHECKPOINTS", TransferState.class).orElse(null);
+        String journalDir = getEnv("JOURNAL_DIR").orElse(null);
+        JournalFlushPolicy journalFlushPolicy = getEnvAsEnum("JOURNAL_FLUSH_POLICY", JournalFlushPolicy.class).orElse(null);
+        int journalFlushIntervalMs = getEnvAsInt("JOURNAL_FLUSH_INTERVAL_MS").orElse(DEFAULT_JOURNAL_FLUSH_INTERVAL_MS);
+        String snapshotDir = getEnv("SNAPSHOT_DIR").orElse(null);
+        int snapshotIntervalMs = getEnvAsInt("SNAPSHOT_INTERVAL_MS").orElse(DEFAULT_SNAPSHOT_INTERVAL_MS);
+        int transferRetentionMs = getEnvAsInt("TRANSFER_RETENTION_MS").orElse(0);
+        int metricsLogIntervalMs = getEnvAsInt("METRICS_LOG_INTERVAL_MS").orElse(DEFAULT_METRICS_LOG_INTERVAL_MS);
+        int admissionLatencyTargetMs = getEnvAsInt("ADMISSION_LATENCY_TARGET_MS").orElse(0);
+        int admissionMaxWaitMs = getEnvAsInt("ADMISSION_MAX_WAIT_MS").orElse(DEFAULT_ADMISSION_MAX_WAIT_MS);
+        int idempotencyCacheSize = getEnvAsInt("IDEMPOTENCY_CACHE_SIZE").orElse(DEFAULT_IDEMPOTENCY_CACHE_SIZE);
+        int idempotencyKeyTtlMs = getEnvAsInt("IDEMPOTENCY_KEY_TTL_MS").orElse(DEFAULT_IDEMPOTENCY_KEY_TTL_MS);
+        ThreadType threadType = getEnvAsEnum("THREAD_TYPE", ThreadType.class).orElse(null);
+        int depositQueueSize = getEnvAsInt("DEPOSIT_QUEUE_SIZE").orElse(DEFAULT_DEPOSIT_QUEUE_SIZE);
+        int nettingBatchSize = getEnvAsInt("NETTING_BATCH_SIZE").orElse(0);
+        int nettingWindowMs = getEnvAsInt("NETTING_WINDOW_MS").orElse(0);
+        List<AccountId> hotAccounts = getEnvAsList("HOT_ACCOUNTS", AccountId::valueOf).orElse(null);
+        int hotAccountContentionThreshold = getEnvAsInt("HOT_ACCOUNT_CONTENTION_THRESHOLD").orElse(0);
+        int responseWriterThreads = getEnvAsInt("RESPONSE_WRITER_THREADS").orElse(DEFAULT_RESPONSE_WRITER_THREADS);
         return BootstrapConfig.builder()
                 .withPort(port)
                 .withBufferSize(bufferSize)
                 .withMaxThreads(maxThreads)
+                .withLanes(lanes)
+                .withWaitStrategy(waitStrategy)
+                .withEventStore(eventStore)
+                .withAccountStore(accountStore)
+                .withTransferCheckpoints(transferCheckpoints)
+                .withJournalDir(journalDir)
+                .withJournalFlushPolicy(journalFlushPolicy)
+                .withJournalFlushIntervalMs(journalFlushIntervalMs)
+                .withSnapshotDir(snapshotDir)
+                .withSnapshotIntervalMs(snapshotIntervalMs)
+                .withTransferRetentionMs(transferRetentionMs)
+                .withMetricsLogIntervalMs(metricsLogIntervalMs)
+                .withAdmissionLatencyTargetMs(admissionLatencyTargetMs)
+                .withAdmissionMaxWaitMs(admissionMaxWaitMs)
+                .withIdempotencyCacheSize(idempotencyCacheSize)
+                .withIdempotencyKeyTtlMs(idempotencyKeyTtlMs)
+                .withThreadType(threadType)
+                .withDepositQueueSize(depositQueueSize)
+                .withNettingBatchSize(nettingBatchSize)
+                .withNettingWindowMs(nettingWindowMs)
+                .withHotAccounts(hotAccounts)
+                .withHotAccountContentionThreshold(hotAccountContentionThreshold)
+                .withResponseWriterThreads(responseWriterThreads)
                 .build();
     }
 
     private static Optional<Integer> getEnvAsInt(String envVar) {
+        return getEnv(envVar).map(Integer::parseInt);
+    }
+
+    private static <E extends Enum<E>> Optional<E> getEnvAsEnum(String envVar, Class<E> enumType) {
+        return getEnv(envVar).map(var -> Enum.valueOf(enumType, var.toUpperCase()));
+    }
+
+    private static <E extends Enum<E>> Optional<List<E>> getEnvAsEnumList(String envVar, Class<E> enumType) {
+        return getEnvAsList(envVar, value -> Enum.valueOf(enumType, value.toUpperCase()));
+    }
+
+    private static <T> Optional<List<T>> getEnvAsList(String envVar, Function<String, T> mapper) {
+        return getEnv(envVar).map(var -> Arrays.stream(var.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .map(mapper)
+                .collect(Collectors.toList()));
+    }
+
+    private static Optional<String> getEnv(String envVar) {
         String var = System.getenv(envVar);
         if (var != null
                 && !var.isEmpty()) {
-            return Optional.of(Integer.parseInt(var));
+            return Optional.of(var);
         }
         return Optional.empty();
     }
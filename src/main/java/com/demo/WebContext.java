@@ -1,7 +1,12 @@
 package com.demo;
 
 import com.demo.api.common.Routing;
+import com.demo.api.journal.Journal;
+import com.demo.api.snapshot.SnapshotManager;
+import com.demo.api.transfer.controller.TransferResponseWriters;
+import com.demo.api.transfer.manager.EventStoreMetrics;
 import com.demo.api.transfer.manager.TransferManager;
+import com.demo.api.transfer.repository.TransferRetention;
 import com.demo.common.BootstrapConfig;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -24,15 +29,30 @@ public class WebContext {
     private final BootstrapConfig config;
     private final Javalin app;
     private final TransferManager transferManager;
+    private final Journal journal;
+    private final SnapshotManager snapshotManager;
+    private final TransferRetention transferRetention;
+    private final EventStoreMetrics eventStoreMetrics;
+    private final TransferResponseWriters responseWriters;
     private final AtomicBoolean started;
 
     @Inject
     public WebContext(BootstrapConfig config,
                       Javalin app,
-                      TransferManager transferManager) {
+                      TransferManager transferManager,
+                      Journal journal,
+                      SnapshotManager snapshotManager,
+                      TransferRetention transferRetention,
+                      EventStoreMetrics eventStoreMetrics,
+                      TransferResponseWriters responseWriters) {
         this.config = Objects.requireNonNull(config, "Config must be provided");
         this.app = Objects.requireNonNull(app, "App must be provided");
         this.transferManager = Objects.requireNonNull(transferManager, "Transfer manager must be provided");
+        this.journal = Objects.requireNonNull(journal, "Journal must be provided");
+        this.snapshotManager = Objects.requireNonNull(snapshotManager, "Snapshot manager must be provided");
+        this.transferRetention = Objects.requireNonNull(transferRetention, "Transfer retention must be provided");
+        this.eventStoreMetrics = Objects.requireNonNull(eventStoreMetrics, "Event store metrics must be provided");
+        this.responseWriters = Objects.requireNonNull(responseWriters, "Response writers must be provided");
         this.started = new AtomicBoolean(false);
     }
 
@@ -44,6 +64,9 @@ public class WebContext {
         });
 
         transferManager.start();
+        snapshotManager.start();
+        transferRetention.start();
+        eventStoreMetrics.start();
         app.start(config.getPort());
 
         LOGGER.info(String.format("Swagger: http://localhost:%s/%s", app.port(), config.getSwaggerUiBaseUrl()));
@@ -53,6 +76,11 @@ public class WebContext {
     public void shutdown() {
         transferManager.stop();
         app.stop();
+        responseWriters.stop();
+        eventStoreMetrics.stop();
+        transferRetention.stop();
+        snapshotManager.stop();
+        journal.close();
     }
 
     public boolean isStarted() {
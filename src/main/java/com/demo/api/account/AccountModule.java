@@ -4,12 +4,21 @@ import com.demo.api.account.controller.AccountControllerModule;
 import com.demo.api.account.repository.AccountRepositoryModule;
 import com.demo.api.account.service.AccountServiceModule;
 import com.demo.api.account.validator.AccountValidatorModule;
+import com.demo.common.BootstrapConfig;
 import com.google.inject.AbstractModule;
 
+import java.util.Objects;
+
 public class AccountModule extends AbstractModule {
 
+    private final BootstrapConfig config;
+
+    public AccountModule(BootstrapConfig config) {
+        this.config = Objects.requireNonNull(config, "Config must be provided");
+    }
+
     protected void configure() {
-        install(new AccountRepositoryModule());
+        install(new AccountRepositoryModule(config));
         install(new AccountValidatorModule());
         install(new AccountServiceModule());
         install(new AccountControllerModule());
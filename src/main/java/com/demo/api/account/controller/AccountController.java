@@ -7,15 +7,21 @@ import com.demo.api.account.dto.NewAccountRequest;
 import com.demo.api.account.model.Account;
 import com.demo.api.account.service.AccountService;
 import com.demo.api.account.model.AccountId;
+import com.demo.api.common.BatchItemResponse;
+import com.demo.api.common.BatchItems;
 import com.demo.api.common.ErrorResponse;
 import com.demo.api.exception.NotFoundException;
+import com.demo.api.model.BatchResult;
+import com.demo.api.model.Money;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.javalin.http.Context;
 import io.javalin.plugin.openapi.annotations.*;
 import org.eclipse.jetty.http.HttpStatus;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Singleton
 public class AccountController {
@@ -42,13 +48,64 @@ public class AccountController {
     )
     public void createNewAccount(Context ctx) {
         NewAccountRequest request = requestValidator.validateNewAccountRequest(ctx);
-        AccountId accountId = accountService.createNew(request.getInitialBalance());
+        AccountId accountId = accountService.createNew(Money.of(request.getInitialBalance()));
 
         ctx.header("Location", String.format("/accounts/%s", accountId.getValue()));
         ctx.json(new AccountIdResponse(accountId.getValue()));
         ctx.status(HttpStatus.CREATED_201);
     }
 
+    @OpenApi(
+            summary = "Create batch of accounts",
+            path = "/accounts/batch",
+            method = HttpMethod.POST,
+            tags = {"Account"},
+            requestBody = @OpenApiRequestBody(content = {@OpenApiContent(from = NewAccountRequest.class, isArray = true)}),
+            responses = {
+                    @OpenApiResponse(status = "200", content = {@OpenApiContent(from = BatchItemResponse.class, isArray = true)}),
+                    @OpenApiResponse(status = "400", content = {@OpenApiContent(from = ErrorResponse.class)})
+            }
+    )
+    public void createNewAccounts(Context ctx) {
+        List<BatchResult<NewAccountRequest>> requests = requestValidator.validateNewAccountBatchRequest(ctx);
+        List<Money> initialBalances = requests.stream()
+                .filter(BatchResult::isSuccess)
+                .map(request -> Money.of(request.getValue().getInitialBalance()))
+                .collect(Collectors.toList());
+        ctx.json(BatchItems.toResponse(requests, accountService.createNew(initialBalances)));
+        ctx.status(HttpStatus.OK_200);
+    }
+
+    @OpenApi(
+            summary = "Get accounts by IDs",
+            path = "/accounts",
+            method = HttpMethod.GET,
+            queryParams = {@OpenApiParam(name = "ids", description = "Comma separated account IDs")},
+            tags = {"Account"},
+            responses = {
+                    @OpenApiResponse(status = "200", content = {@OpenApiContent(from = AccountResponse.class, isArray = true)}),
+                    @OpenApiResponse(status = "400", content = {@OpenApiContent(from = ErrorResponse.class)})
+            }
+    )
+    public void findAccounts(Context ctx) {
+        replyWithAccounts(ctx, requestValidator.validateFindAccountsRequest(ctx));
+    }
+
+    @OpenApi(
+            summary = "Get accounts by IDs from request body",
+            path = "/accounts/query",
+            method = HttpMethod.POST,
+            tags = {"Account"},
+            requestBody = @OpenApiRequestBody(content = {@OpenApiContent(from = String.class, isArray = true)}),
+            responses = {
+                    @OpenApiResponse(status = "200", content = {@OpenApiContent(from = AccountResponse.class, isArray = true)}),
+                    @OpenApiResponse(status = "400", content = {@OpenApiContent(from = ErrorResponse.class)})
+            }
+    )
+    public void queryAccounts(Context ctx) {
+        replyWithAccounts(ctx, requestValidator.validateQueryAccountsRequest(ctx));
+    }
+
     @OpenApi(
             summary = "Get account by ID",
             path = "/accounts/:accountId",
@@ -68,8 +125,19 @@ public class AccountController {
             throw new NotFoundException(String.format("Account %s not found", accountId));
         }
 
-        AccountResponse response = new AccountResponse(account.getId().getValue(), account.getBalance());
+        ctx.json(toAccountResponse(account));
+        ctx.status(HttpStatus.OK_200);
+    }
+
+    private void replyWithAccounts(Context ctx, List<AccountId> accountIds) {
+        List<AccountResponse> response = accountService.findAllById(accountIds).stream()
+                .map(this::toAccountResponse)
+                .collect(Collectors.toList());
         ctx.json(response);
         ctx.status(HttpStatus.OK_200);
     }
+
+    private AccountResponse toAccountResponse(Account account) {
+        return new AccountResponse(account.getId().getValue(), account.getBalance().toBigDecimal());
+    }
 }
@@ -21,7 +21,10 @@ class AccountRouting extends Routing<AccountController> {
     @Override
     public void bindRoutes() {
         app.routes(() -> path("accounts", () -> {
+            get(ctx -> getController().findAccounts(ctx));
             post(ctx -> getController().createNewAccount(ctx));
+            path("batch", () -> post(ctx -> getController().createNewAccounts(ctx)));
+            path("query", () -> post(ctx -> getController().queryAccounts(ctx)));
             path(":accountId", () -> get(ctx -> getController().findAccountById(ctx)));
         }));
     }
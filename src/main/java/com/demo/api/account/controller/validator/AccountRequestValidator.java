@@ -2,16 +2,81 @@ package com.demo.api.account.controller.validator;
 
 import com.demo.api.account.dto.NewAccountRequest;
 import com.demo.api.account.model.AccountId;
+import com.demo.api.common.BatchItems;
 import com.demo.api.exception.InvalidDataException;
+import com.demo.api.model.BatchResult;
+import com.demo.api.model.Money;
 import com.google.inject.Singleton;
 import io.javalin.http.Context;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Singleton
 public class AccountRequestValidator {
+    static final int MAX_BATCH_SIZE = 10_000;
+
     public NewAccountRequest validateNewAccountRequest(Context ctx) {
-        NewAccountRequest request = ctx.bodyAsClass(NewAccountRequest.class);
+        return validate(ctx.bodyAsClass(NewAccountRequest.class));
+    }
+
+    public List<BatchResult<NewAccountRequest>> validateNewAccountBatchRequest(Context ctx) {
+        NewAccountRequest[] requests = ctx.bodyAsClass(NewAccountRequest[].class);
+        if (requests == null || requests.length == 0) {
+            throw new InvalidDataException("Accounts must be provided");
+        }
+        if (requests.length > MAX_BATCH_SIZE) {
+            throw new InvalidDataException(String.format("At most %d accounts can be created at once", MAX_BATCH_SIZE));
+        }
+
+        return BatchItems.validateEach(requests, this::validate);
+    }
+
+    /**
+     * Ids are passed as comma separated or repeated {@code ids} query parameter.
+     */
+    public List<AccountId> validateFindAccountsRequest(Context ctx) {
+        List<String> accountIds = ctx.queryParams("ids").stream()
+                .flatMap(ids -> Arrays.stream(ids.split(",")))
+                .map(String::trim)
+                .filter(accountId -> !accountId.isEmpty())
+                .collect(Collectors.toList());
+        return toAccountIds(accountIds);
+    }
+
+    public List<AccountId> validateQueryAccountsRequest(Context ctx) {
+        String[] accountIds = ctx.bodyAsClass(String[].class);
+        if (accountIds == null) {
+            throw new InvalidDataException("Account ids must be provided");
+        }
+        for (String accountId : accountIds) {
+            if (accountId == null) {
+                throw new InvalidDataException("Account id must be provided");
+            }
+        }
+        return toAccountIds(Arrays.asList(accountIds));
+    }
+
+    private List<AccountId> toAccountIds(List<String> accountIds) {
+        if (accountIds.isEmpty()) {
+            throw new InvalidDataException("Account ids must be provided");
+        }
+        if (accountIds.size() > MAX_BATCH_SIZE) {
+            throw new InvalidDataException(String.format("At most %d accounts can be requested at once", MAX_BATCH_SIZE));
+        }
+
+        return accountIds.stream()
+                .map(AccountId::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    private NewAccountRequest validate(NewAccountRequest request) {
+        if (request == null) {
+            throw new InvalidDataException("Account must be provided");
+        }
+
         BigDecimal initialBalance = request.getInitialBalance();
         if (initialBalance == null) {
             throw new InvalidDataException("Account balance must be provided");
@@ -19,6 +84,12 @@ public class AccountRequestValidator {
         if (initialBalance.compareTo(BigDecimal.ZERO) < 0) {
             throw new InvalidDataException("Insufficient account balance");
         }
+        if (!hasMoneyScale(initialBalance)) {
+            throw new InvalidDataException(String.format("Account balance must have at most %d decimal places", Money.SCALE));
+        }
+        if (initialBalance.compareTo(Money.MAX.toBigDecimal()) > 0) {
+            throw new InvalidDataException(String.format("Account balance must not exceed %s", Money.MAX));
+        }
 
         return request;
     }
@@ -31,4 +102,8 @@ public class AccountRequestValidator {
 
         return AccountId.valueOf(accountId);
     }
+
+    private boolean hasMoneyScale(BigDecimal amount) {
+        return amount.stripTrailingZeros().scale() <= Money.SCALE;
+    }
 }
@@ -1,13 +1,13 @@
 package com.demo.api.account.model;
 
-import java.math.BigDecimal;
+import com.demo.api.model.Money;
 import java.util.Objects;
 
 public final class Account {
     private final AccountId id;
-    private final BigDecimal balance;
+    private final Money balance;
 
-    private Account(AccountId id, BigDecimal balance) {
+    private Account(AccountId id, Money balance) {
         this.id = Objects.requireNonNull(id, "Id must be provided");
         this.balance = Objects.requireNonNull(balance, "Balance must be provided");
     }
@@ -20,7 +20,7 @@ public final class Account {
         return id;
     }
 
-    public BigDecimal getBalance() {
+    public Money getBalance() {
         return balance;
     }
 
@@ -44,14 +44,14 @@ public final class Account {
 
     public static final class Builder {
         private AccountId id;
-        private BigDecimal balance;
+        private Money balance;
 
         public Builder withId(AccountId id) {
             this.id = id;
             return this;
         }
 
-        public Builder withBalance(BigDecimal balance) {
+        public Builder withBalance(Money balance) {
             this.balance = balance;
             return this;
         }
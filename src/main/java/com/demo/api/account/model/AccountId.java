@@ -2,12 +2,27 @@ package com.demo.api.account.model;
 
 import com.demo.api.model.Id;
 
+import java.util.UUID;
+
 public final class AccountId extends Id {
     public AccountId(String value) {
         super(value);
     }
 
+    private AccountId(long mostSigBits, long leastSigBits) {
+        super(mostSigBits, leastSigBits);
+    }
+
     public static AccountId valueOf(String val) {
         return new AccountId(val);
     }
+
+    public static AccountId valueOf(long mostSigBits, long leastSigBits) {
+        return new AccountId(mostSigBits, leastSigBits);
+    }
+
+    public static AccountId generate() {
+        UUID uuid = UUID.randomUUID();
+        return new AccountId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
 }
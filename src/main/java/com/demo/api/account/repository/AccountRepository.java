@@ -2,13 +2,29 @@ package com.demo.api.account.repository;
 
 import com.demo.api.account.model.Account;
 import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.function.BiFunction;
 
 public interface AccountRepository {
     void save(AccountId accountId, Account account);
 
+    void saveAll(Collection<Account> accounts);
+
     Account findById(AccountId accountId);
 
+    /**
+     * @return found accounts in order of ids, missing accounts are skipped
+     */
+    List<Account> findAllById(Collection<AccountId> accountIds);
+
     void executeUpdate(AccountId accountId, BiFunction<AccountId, Account, Account> executor);
+
+    void deposit(AccountId accountId, Money amount);
+
+    void withdraw(AccountId accountId, Money amount);
+
+    Collection<Account> findAll();
 }
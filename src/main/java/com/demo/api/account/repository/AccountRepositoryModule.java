@@ -2,16 +2,29 @@ package com.demo.api.account.repository;
 
 import com.demo.api.account.model.Account;
 import com.demo.api.account.model.AccountId;
+import com.demo.common.BootstrapConfig;
 import com.google.inject.AbstractModule;
 import com.google.inject.TypeLiteral;
 import com.google.inject.name.Names;
 
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class AccountRepositoryModule extends AbstractModule {
 
+    private final BootstrapConfig config;
+
+    public AccountRepositoryModule(BootstrapConfig config) {
+        this.config = Objects.requireNonNull(config, "Config must be provided");
+    }
+
     protected void configure() {
+        if (config.getAccountStore() == AccountStoreType.SLOT) {
+            bind(AccountRepository.class).to(SlotAccountRepository.class);
+            return;
+        }
+
         Map<AccountId, Account> accountMapStorage = new ConcurrentHashMap<>();
         bind(new TypeLiteral<Map<AccountId, Account>>() {
         }).annotatedWith(Names.named("accountMapStorage")).toInstance(accountMapStorage);
@@ -0,0 +1,5 @@
+package com.demo.api.account.repository;
+
+public enum AccountStoreType {
+    MAP, SLOT
+}
@@ -2,22 +2,60 @@ package com.demo.api.account.repository;
 
 import com.demo.api.account.model.Account;
 import com.demo.api.account.model.AccountId;
+import com.demo.api.exception.NotFoundException;
+import com.demo.api.model.Money;
+import com.demo.common.BootstrapConfig;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.BiFunction;
 
+/**
+ * Account repository backed by a map of immutable {@link Account}s.
+ * <p>
+ * Every balance update locks the map bin of the account, so deposits to one account are serialised.
+ * Accounts which are configured as hot, or which see the configured number of contended deposits within
+ * a contention window, keep their balance in striped cells instead: deposits add to a padded cell of the thread,
+ * withdrawals to a separate counter, and the balance is summed up on read. A deposit is contended when it waits
+ * for the lock of its own account. Accounts which turned hot automatically cool down when they see fewer
+ * deposits than the threshold within a window.
+ */
 @Singleton
 public class MapAccountRepository implements AccountRepository {
+    static final long CONTENTION_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // uncontended lock of the map bin is taken well below it
+    private static final long CONTENDED_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(5);
 
     private final Map<AccountId, Account> mapImpl;
+    private final Set<AccountId> hotAccountIds;
+    private final int contentionThreshold;
+    private final long contentionWindowNanos;
+    private final Map<AccountId, HotBalance> hotBalances = new ConcurrentHashMap<>();
+    private final Map<AccountId, Contention> contentions = new ConcurrentHashMap<>();
 
     @Inject
-    public MapAccountRepository(@Named("accountMapStorage") Map<AccountId, Account> mapStorage) {
+    public MapAccountRepository(@Named("accountMapStorage") Map<AccountId, Account> mapStorage,
+                                BootstrapConfig config) {
+        this(mapStorage, config, CONTENTION_WINDOW_NANOS);
+    }
+
+    MapAccountRepository(Map<AccountId, Account> mapStorage, BootstrapConfig config, long contentionWindowNanos) {
         this.mapImpl = Objects.requireNonNull(mapStorage, "Map storage must be provided");
+        Objects.requireNonNull(config, "Config must be provided");
+        this.hotAccountIds = config.getHotAccounts();
+        this.contentionThreshold = config.getHotAccountContentionThreshold();
+        this.contentionWindowNanos = contentionWindowNanos;
     }
 
     @Override
@@ -25,14 +63,63 @@ public class MapAccountRepository implements AccountRepository {
         Objects.requireNonNull(key, "Key must be provided");
         Objects.requireNonNull(value, "Value must be provided");
 
-        mapImpl.put(key, value);
+        if (hotAccountIds.isEmpty() && hotBalances.isEmpty()) {
+            mapImpl.put(key, value);
+            return;
+        }
+
+        mapImpl.compute(key, (accountId, prevAccount) -> {
+            boolean configured = hotAccountIds.contains(accountId);
+            if (configured || findActiveHotBalance(accountId) != null) {
+                // saved balance replaces everything deposited to the cells so far
+                HotBalance prevHotBalance = hotBalances.put(accountId,
+                        new HotBalance(value.getBalance(), configured ? 0 : contentionThreshold));
+                if (prevHotBalance != null) {
+                    prevHotBalance.retire();
+                }
+            }
+            return value;
+        });
+    }
+
+    @Override
+    public void saveAll(Collection<Account> accounts) {
+        Objects.requireNonNull(accounts, "Accounts must be provided");
+
+        accounts.forEach(account -> save(account.getId(), account));
     }
 
     @Override
     public Account findById(AccountId key) {
         Objects.requireNonNull(key, "Key must be provided");
 
-        return mapImpl.get(key);
+        while (true) {
+            // hot balance is removed only after the folded account is published, so it's looked up first
+            HotBalance hotBalance = hotBalances.get(key);
+            Account account = mapImpl.get(key);
+            if (account == null || hotBalance == null) {
+                return account;
+            }
+            if (!hotBalance.retired) {
+                return toAccount(key, hotBalance.getBalance());
+            }
+            // account is cooling down, the map may still hold the account from before it turned hot
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public List<Account> findAllById(Collection<AccountId> keys) {
+        Objects.requireNonNull(keys, "Keys must be provided");
+
+        List<Account> accounts = new ArrayList<>(keys.size());
+        for (AccountId key : keys) {
+            Account account = findById(key);
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+        return accounts;
     }
 
     @Override
@@ -40,6 +127,310 @@ public class MapAccountRepository implements AccountRepository {
         Objects.requireNonNull(key, "Key must be provided");
         Objects.requireNonNull(executor, "Executor must be provided");
 
-        mapImpl.compute(key, executor);
+        HotBalance hotBalance = hotBalances.get(key);
+        if (hotBalance != null && hotBalance.update(key, executor)) {
+            return;
+        }
+
+        mapImpl.compute(key, (accountId, prevAccount) -> {
+            // cells are retired only under the lock of the account
+            HotBalance newHotBalance = hotBalances.get(accountId);
+            if (newHotBalance == null || !newHotBalance.update(accountId, executor)) {
+                return executor.apply(accountId, prevAccount);
+            }
+            return prevAccount;
+        });
+    }
+
+    @Override
+    public void deposit(AccountId key, Money amount) {
+        Objects.requireNonNull(key, "Key must be provided");
+        Objects.requireNonNull(amount, "Amount must be provided");
+
+        HotBalance hotBalance = hotBalances.get(key);
+        if (hotBalance != null && hotBalance.deposit(amount.getMinorUnits())) {
+            if (hotBalance.isIdle(contentionWindowNanos)) {
+                coolDown(key, hotBalance);
+            }
+            return;
+        }
+        if (contentionThreshold == 0) {
+            update(key, amount.getMinorUnits());
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        long[] lockTime = new long[1];
+        Account account = mapImpl.computeIfPresent(key, (accountId, prevAccount) -> {
+            lockTime[0] = System.nanoTime();
+            return applyDelta(accountId, prevAccount, amount.getMinorUnits());
+        });
+        if (account == null) {
+            throw new NotFoundException(String.format("Account %s not found", key));
+        }
+        if (lockTime[0] - startTime >= CONTENDED_WAIT_NANOS) {
+            onContendedDeposit(key, lockTime[0]);
+        }
+    }
+
+    @Override
+    public void withdraw(AccountId key, Money amount) {
+        Objects.requireNonNull(key, "Key must be provided");
+        Objects.requireNonNull(amount, "Amount must be provided");
+
+        HotBalance hotBalance = hotBalances.get(key);
+        if (hotBalance != null && hotBalance.withdraw(amount.getMinorUnits())) {
+            return;
+        }
+
+        update(key, Math.negateExact(amount.getMinorUnits()));
+    }
+
+    @Override
+    public Collection<Account> findAll() {
+        if (hotBalances.isEmpty()) {
+            return mapImpl.values();
+        }
+
+        List<Account> accounts = new ArrayList<>(mapImpl.size());
+        for (AccountId accountId : mapImpl.keySet()) {
+            accounts.add(findById(accountId));
+        }
+        return accounts;
+    }
+
+    /**
+     * Moves balance of existing account to striped cells, deposits which are in progress are applied before.
+     */
+    void markHot(AccountId key) {
+        Objects.requireNonNull(key, "Key must be provided");
+
+        mapImpl.computeIfPresent(key, (accountId, prevAccount) -> {
+            // retired balance of cooled down account may still be visible, it's replaced
+            hotBalances.compute(accountId, (id, prevHotBalance) -> prevHotBalance != null && !prevHotBalance.retired
+                    ? prevHotBalance
+                    : new HotBalance(prevAccount.getBalance(), hotAccountIds.contains(id) ? 0 : contentionThreshold));
+            return prevAccount;
+        });
+        contentions.remove(key);
+    }
+
+    boolean isHot(AccountId key) {
+        return findActiveHotBalance(key) != null;
+    }
+
+    private HotBalance findActiveHotBalance(AccountId key) {
+        HotBalance hotBalance = hotBalances.get(key);
+        return hotBalance != null && !hotBalance.retired ? hotBalance : null;
+    }
+
+    private void onContendedDeposit(AccountId key, long now) {
+        Contention contention = contentions.computeIfAbsent(key, accountId -> new Contention());
+        if (contention.onContended(now, contentionThreshold, contentionWindowNanos)) {
+            markHot(key);
+        }
+    }
+
+    /**
+     * Moves balance of idle hot account back to the map, deposits which hit the retired cells are applied after.
+     * Retired balance stays visible until the folded account is published, so readers never take
+     * the account from before it turned hot for the current one.
+     */
+    private void coolDown(AccountId key, HotBalance hotBalance) {
+        mapImpl.computeIfPresent(key, (accountId, prevAccount) ->
+                hotBalances.get(accountId) == hotBalance && !hotBalance.retired
+                        ? toAccount(accountId, hotBalance.retire())
+                        : prevAccount);
+        hotBalances.remove(key, hotBalance);
+    }
+
+    private void update(AccountId key, long delta) {
+        Account account = mapImpl.computeIfPresent(key, (accountId, prevAccount) ->
+                applyDelta(accountId, prevAccount, delta));
+        if (account == null) {
+            throw new NotFoundException(String.format("Account %s not found", key));
+        }
+    }
+
+    private Account applyDelta(AccountId accountId, Account prevAccount, long delta) {
+        // account may have turned hot while waiting for the lock, balance which cooled down meanwhile is retired
+        HotBalance hotBalance = findActiveHotBalance(accountId);
+        if (hotBalance != null) {
+            hotBalance.add(delta);
+            return prevAccount;
+        }
+        return toAccount(accountId, Money.ofMinor(Math.addExact(prevAccount.getBalance().getMinorUnits(), delta)));
+    }
+
+    private static Account toAccount(AccountId accountId, Money balance) {
+        return Account.builder()
+                .withId(accountId)
+                .withBalance(balance)
+                .build();
+    }
+
+    /**
+     * Contended deposits to cold account within the current contention window.
+     */
+    private static final class Contention {
+        private long windowStart;
+        private int count;
+
+        private synchronized boolean onContended(long now, int threshold, long windowNanos) {
+            if (count == 0 || now - windowStart >= windowNanos) {
+                windowStart = now;
+                count = 0;
+            }
+            return ++count >= threshold;
+        }
+    }
+
+    /**
+     * Balance of hot account: initial balance plus sum of deposits in striped cells minus sum of withdrawals.
+     * Deposits only ever grow the cells, so a read never sees a deposit twice. A cell or the withdrawals
+     * never exceed {@link Money#MAX}, operation which would push them above fails with {@link ArithmeticException}.
+     * <p>
+     * Retired balance marks every cell, so a deposit either lands before the balance is folded
+     * or fails and is applied to the account in the map.
+     */
+    private static final class HotBalance {
+        private static final long RETIRED = Long.MIN_VALUE;
+        private static final int CELLS = Math.min(64, Integer.highestOneBit(
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+        // cell holds sum and count of deposits, it's padded to 128 bytes against false sharing with other cells
+        private static final int CELL_STRIDE = 16;
+
+        private final long initialBalance;
+        private final int idleThreshold;
+        private final AtomicLongArray cells = new AtomicLongArray((CELLS + 1) * CELL_STRIDE);
+        private final AtomicLong withdrawn = new AtomicLong();
+        private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+        private volatile long retiredBalance;
+        private volatile boolean retired;
+
+        /**
+         * @param idleThreshold fewer deposits within a contention window make the balance idle, 0 - never idle
+         */
+        private HotBalance(Money initialBalance, int idleThreshold) {
+            this.initialBalance = initialBalance.getMinorUnits();
+            this.idleThreshold = idleThreshold;
+        }
+
+        private boolean deposit(long amount) {
+            int cell = ((int) Thread.currentThread().getId() & (CELLS - 1)) * CELL_STRIDE + CELL_STRIDE;
+            long deposited;
+            do {
+                deposited = cells.get(cell);
+                if (deposited == RETIRED) {
+                    return false;
+                }
+            } while (!cells.compareAndSet(cell, deposited, addWithinLimit(deposited, amount)));
+            cells.incrementAndGet(cell + 1);
+            return true;
+        }
+
+        private boolean withdraw(long amount) {
+            long prevWithdrawn;
+            do {
+                prevWithdrawn = withdrawn.get();
+                if (prevWithdrawn == RETIRED) {
+                    return false;
+                }
+            } while (!withdrawn.compareAndSet(prevWithdrawn, addWithinLimit(prevWithdrawn, amount)));
+            return true;
+        }
+
+        private static long addWithinLimit(long sum, long amount) {
+            long newSum = Math.addExact(sum, amount);
+            if (newSum > Money.MAX.getMinorUnits()) {
+                throw new ArithmeticException(String.format("Sum of hot balance operations exceeds %s", Money.MAX));
+            }
+            return newSum;
+        }
+
+        /**
+         * Must be called under the lock of the account, when the balance can't be retired.
+         */
+        private void add(long delta) {
+            if (delta >= 0) {
+                deposit(delta);
+            } else {
+                withdraw(Math.negateExact(delta));
+            }
+        }
+
+        /**
+         * Checks deposits of the window once it's over, only one caller gets {@code true} per window.
+         */
+        private boolean isIdle(long windowNanos) {
+            if (idleThreshold == 0) {
+                return false;
+            }
+            long startTime = windowStart.get();
+            long now = System.nanoTime();
+            if (now - startTime < windowNanos || !windowStart.compareAndSet(startTime, now)) {
+                return false;
+            }
+            long deposits = 0;
+            for (int cell = CELL_STRIDE; cell < cells.length(); cell += CELL_STRIDE) {
+                deposits += cells.getAndSet(cell + 1, 0);
+            }
+            return deposits < idleThreshold;
+        }
+
+        private Money getBalance() {
+            // deposits are summed first, a withdrawal which races with the read makes the balance lower, never higher
+            long balance = initialBalance;
+            for (int cell = CELL_STRIDE; cell < cells.length(); cell += CELL_STRIDE) {
+                long deposited = cells.get(cell);
+                if (deposited == RETIRED) {
+                    return awaitRetiredBalance();
+                }
+                balance = Math.addExact(balance, deposited);
+            }
+            long prevWithdrawn = withdrawn.get();
+            if (prevWithdrawn == RETIRED) {
+                return awaitRetiredBalance();
+            }
+            return Money.ofMinor(Math.subtractExact(balance, prevWithdrawn));
+        }
+
+        private Money awaitRetiredBalance() {
+            while (!retired) {
+                Thread.onSpinWait();
+            }
+            return Money.ofMinor(retiredBalance);
+        }
+
+        /**
+         * Folds the cells into the final balance, deposits and withdrawals fail afterwards.
+         */
+        private synchronized Money retire() {
+            if (!retired) {
+                long balance = initialBalance;
+                for (int cell = CELL_STRIDE; cell < cells.length(); cell += CELL_STRIDE) {
+                    balance = Math.addExact(balance, cells.getAndSet(cell, RETIRED));
+                }
+                retiredBalance = Math.subtractExact(balance, withdrawn.getAndSet(RETIRED));
+                retired = true;
+            }
+            return Money.ofMinor(retiredBalance);
+        }
+
+        /**
+         * @return {@code false} if the balance is retired and the update must be applied to the account in the map
+         */
+        private synchronized boolean update(AccountId accountId,
+                                            BiFunction<AccountId, Account, Account> executor) {
+            if (retired) {
+                return false;
+            }
+            Money balance = getBalance();
+            Account newAccount = executor.apply(accountId, toAccount(accountId, balance));
+            Objects.requireNonNull(newAccount, "Account can't be removed");
+            // deposits and withdrawals made meanwhile are kept, only the difference is applied
+            add(Math.subtractExact(newAccount.getBalance().getMinorUnits(), balance.getMinorUnits()));
+            return true;
+        }
     }
 }
@@ -0,0 +1,262 @@
+package com.demo.api.account.repository;
+
+import com.demo.api.account.model.Account;
+import com.demo.api.account.model.AccountId;
+import com.demo.api.exception.NotFoundException;
+import com.demo.api.model.Money;
+import com.google.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+
+/**
+ * Account repository which interns every account id to a dense slot and keeps balances (in minor units)
+ * in segments of primitive arrays. Balance update is a CAS on the slot, {@link Account} is only built on read.
+ * <p>
+ * Slots of binary ids are kept in a primitive {@link SlotIndex}, so an account costs two longs of the index
+ * and one long of the balance. Consecutive slots are striped over different cache lines of the segment,
+ * accounts created together don't falsely share the line of their balances.
+ */
+@Singleton
+public class SlotAccountRepository implements AccountRepository {
+    private static final int DEFAULT_SEGMENT_SHIFT = 14;
+    // 8 balances share a cache line of 64 bytes
+    private static final int STRIPE_SHIFT = 3;
+
+    private final SlotIndex binarySlots = new SlotIndex();
+    private final Map<AccountId, Integer> namedSlots = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final int segmentShift;
+    private final int segmentMask;
+    private final int stripeShift;
+    private final int stripeMask;
+    private volatile AtomicLongArray[] segments;
+
+    public SlotAccountRepository() {
+        this(DEFAULT_SEGMENT_SHIFT);
+    }
+
+    SlotAccountRepository(int segmentShift) {
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1 << segmentShift) - 1;
+        this.stripeShift = Math.min(STRIPE_SHIFT, segmentShift);
+        this.stripeMask = (1 << stripeShift) - 1;
+        this.segments = new AtomicLongArray[]{new AtomicLongArray(1 << segmentShift)};
+    }
+
+    @Override
+    public void save(AccountId accountId, Account account) {
+        Objects.requireNonNull(accountId, "Key must be provided");
+        Objects.requireNonNull(account, "Value must be provided");
+
+        long balance = account.getBalance().getMinorUnits();
+        int slot = findSlot(accountId);
+        if (slot != SlotIndex.ABSENT) {
+            setBalance(slot, balance);
+            return;
+        }
+
+        synchronized (this) {
+            slot = findSlot(accountId);
+            if (slot == SlotIndex.ABSENT) {
+                slot = allocateSlots(1);
+                // balance is set before slot is published to readers
+                setBalance(slot, balance);
+                putSlot(accountId, slot);
+            } else {
+                setBalance(slot, balance);
+            }
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<Account> accounts) {
+        Objects.requireNonNull(accounts, "Accounts must be provided");
+
+        List<Account> newAccounts = new ArrayList<>();
+        for (Account account : accounts) {
+            int slot = findSlot(account.getId());
+            if (slot != SlotIndex.ABSENT) {
+                setBalance(slot, account.getBalance().getMinorUnits());
+            } else {
+                newAccounts.add(account);
+            }
+        }
+        if (newAccounts.isEmpty()) {
+            return;
+        }
+
+        synchronized (this) {
+            // slots of new accounts are reserved at once
+            int firstSlot = allocateSlots(newAccounts.size());
+            for (int i = 0; i < newAccounts.size(); i++) {
+                Account account = newAccounts.get(i);
+                long balance = account.getBalance().getMinorUnits();
+                int prevSlot = findSlot(account.getId());
+                if (prevSlot != SlotIndex.ABSENT) {
+                    // account is saved concurrently, reserved slot stays unused
+                    setBalance(prevSlot, balance);
+                    continue;
+                }
+                int newSlot = firstSlot + i;
+                setBalance(newSlot, balance);
+                putSlot(account.getId(), newSlot);
+            }
+        }
+    }
+
+    @Override
+    public List<Account> findAllById(Collection<AccountId> accountIds) {
+        Objects.requireNonNull(accountIds, "Keys must be provided");
+
+        List<Account> accounts = new ArrayList<>(accountIds.size());
+        for (AccountId accountId : accountIds) {
+            Account account = findById(accountId);
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+        return accounts;
+    }
+
+    @Override
+    public Account findById(AccountId accountId) {
+        Objects.requireNonNull(accountId, "Key must be provided");
+
+        int slot = findSlot(accountId);
+        if (slot == SlotIndex.ABSENT) {
+            return null;
+        }
+
+        return toAccount(accountId, segment(slot).get(index(slot)));
+    }
+
+    @Override
+    public void executeUpdate(AccountId accountId, BiFunction<AccountId, Account, Account> executor) {
+        Objects.requireNonNull(accountId, "Key must be provided");
+        Objects.requireNonNull(executor, "Executor must be provided");
+
+        int slot = findSlot(accountId);
+        if (slot == SlotIndex.ABSENT) {
+            Account newAccount = executor.apply(accountId, null);
+            if (newAccount != null) {
+                save(accountId, newAccount);
+            }
+            return;
+        }
+
+        AtomicLongArray segment = segment(slot);
+        int index = index(slot);
+        while (true) {
+            long balance = segment.get(index);
+            Account newAccount = executor.apply(accountId, toAccount(accountId, balance));
+            Objects.requireNonNull(newAccount, "Account can't be removed");
+            if (segment.compareAndSet(index, balance, newAccount.getBalance().getMinorUnits())) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void deposit(AccountId accountId, Money amount) {
+        update(accountId, amount.getMinorUnits());
+    }
+
+    @Override
+    public void withdraw(AccountId accountId, Money amount) {
+        update(accountId, Math.negateExact(amount.getMinorUnits()));
+    }
+
+    @Override
+    public Collection<Account> findAll() {
+        List<Account> accounts = new ArrayList<>(nextSlot.get());
+        binarySlots.forEach((mostSigBits, leastSigBits, slot) -> accounts.add(
+                toAccount(AccountId.valueOf(mostSigBits, leastSigBits), segment(slot).get(index(slot)))));
+        namedSlots.forEach((accountId, slot) -> accounts.add(toAccount(accountId, segment(slot).get(index(slot)))));
+        return accounts;
+    }
+
+    private void update(AccountId accountId, long delta) {
+        Objects.requireNonNull(accountId, "Key must be provided");
+
+        int slot = findSlot(accountId);
+        if (slot == SlotIndex.ABSENT) {
+            throw new NotFoundException(String.format("Account %s not found", accountId));
+        }
+
+        AtomicLongArray segment = segment(slot);
+        int index = index(slot);
+        long balance;
+        do {
+            balance = segment.get(index);
+        } while (!segment.compareAndSet(index, balance, Math.addExact(balance, delta)));
+    }
+
+    private int findSlot(AccountId accountId) {
+        if (accountId.isBinary()) {
+            return binarySlots.get(accountId.getMostSignificantBits(), accountId.getLeastSignificantBits());
+        }
+        Integer slot = namedSlots.get(accountId);
+        return slot != null ? slot : SlotIndex.ABSENT;
+    }
+
+    /**
+     * Must be called while holding the lock of the repository.
+     */
+    private void putSlot(AccountId accountId, int slot) {
+        if (accountId.isBinary()) {
+            binarySlots.put(accountId.getMostSignificantBits(), accountId.getLeastSignificantBits(), slot);
+        } else {
+            namedSlots.put(accountId, slot);
+        }
+    }
+
+    private void setBalance(int slot, long balance) {
+        segment(slot).set(index(slot), balance);
+    }
+
+    private int allocateSlots(int count) {
+        int slot = nextSlot.getAndAdd(count);
+        int segmentIndex = (slot + count - 1) >>> segmentShift;
+        if (segmentIndex >= segments.length) {
+            synchronized (this) {
+                AtomicLongArray[] currentSegments = segments;
+                if (segmentIndex >= currentSegments.length) {
+                    AtomicLongArray[] newSegments = Arrays.copyOf(currentSegments, segmentIndex + 1);
+                    for (int i = currentSegments.length; i < newSegments.length; i++) {
+                        newSegments[i] = new AtomicLongArray(1 << segmentShift);
+                    }
+                    segments = newSegments;
+                }
+            }
+        }
+        return slot;
+    }
+
+    private AtomicLongArray segment(int slot) {
+        return segments[slot >>> segmentShift];
+    }
+
+    /**
+     * Index of the slot within its segment, consecutive slots are spread over different cache lines.
+     */
+    private int index(int slot) {
+        int offset = slot & segmentMask;
+        return (offset & stripeMask) << (segmentShift - stripeShift) | offset >>> stripeShift;
+    }
+
+    private Account toAccount(AccountId accountId, long balance) {
+        return Account.builder()
+                .withId(accountId)
+                .withBalance(Money.ofMinor(balance))
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.demo.api.account.repository;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Slots of binary ids kept in primitive arrays: open addressing with linear probing, both longs of the id
+ * are stored next to each other. Lookups don't lock, inserts must be serialised by the caller.
+ */
+final class SlotIndex {
+    static final int ABSENT = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private int size;
+
+    int get(long mostSigBits, long leastSigBits) {
+        return table.get(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Must not be called concurrently with another put.
+     */
+    void put(long mostSigBits, long leastSigBits, int slot) {
+        Table currentTable = table;
+        if (2 * (size + 1) > currentTable.capacity()) {
+            // readers keep using the old table until the new one is filled and published
+            currentTable = currentTable.resize();
+            table = currentTable;
+        }
+        if (currentTable.put(mostSigBits, leastSigBits, slot)) {
+            size++;
+        }
+    }
+
+    void forEach(SlotConsumer consumer) {
+        table.forEach(consumer);
+    }
+
+    @FunctionalInterface
+    interface SlotConsumer {
+        void accept(long mostSigBits, long leastSigBits, int slot);
+    }
+
+    private static final class Table {
+        private final long[] keys;
+        // slot + 1, 0 marks empty entry, entry is published by the write of its slot
+        private final AtomicIntegerArray slots;
+        private final int mask;
+
+        private Table(int capacity) {
+            this.keys = new long[2 * capacity];
+            this.slots = new AtomicIntegerArray(capacity);
+            this.mask = capacity - 1;
+        }
+
+        private int capacity() {
+            return mask + 1;
+        }
+
+        private int get(long mostSigBits, long leastSigBits) {
+            for (int i = hash(mostSigBits, leastSigBits) & mask; ; i = (i + 1) & mask) {
+                int slot = slots.get(i);
+                if (slot == 0) {
+                    return ABSENT;
+                }
+                if (keys[2 * i] == mostSigBits && keys[2 * i + 1] == leastSigBits) {
+                    return slot - 1;
+                }
+            }
+        }
+
+        private boolean put(long mostSigBits, long leastSigBits, int slot) {
+            for (int i = hash(mostSigBits, leastSigBits) & mask; ; i = (i + 1) & mask) {
+                if (slots.get(i) == 0) {
+                    keys[2 * i] = mostSigBits;
+                    keys[2 * i + 1] = leastSigBits;
+                    slots.set(i, slot + 1);
+                    return true;
+                }
+                if (keys[2 * i] == mostSigBits && keys[2 * i + 1] == leastSigBits) {
+                    slots.set(i, slot + 1);
+                    return false;
+                }
+            }
+        }
+
+        private Table resize() {
+            Table newTable = new Table(2 * capacity());
+            forEach(newTable::put);
+            return newTable;
+        }
+
+        private void forEach(SlotConsumer consumer) {
+            for (int i = 0; i < capacity(); i++) {
+                int slot = slots.get(i);
+                if (slot != 0) {
+                    consumer.accept(keys[2 * i], keys[2 * i + 1], slot - 1);
+                }
+            }
+        }
+
+        private static int hash(long mostSigBits, long leastSigBits) {
+            long hash = (mostSigBits ^ leastSigBits) * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ hash >>> 32);
+        }
+    }
+}
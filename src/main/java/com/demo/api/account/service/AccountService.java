@@ -2,11 +2,21 @@ package com.demo.api.account.service;
 
 import com.demo.api.account.model.Account;
 import com.demo.api.account.model.AccountId;
+import com.demo.api.model.BatchResult;
+import com.demo.api.model.Money;
 
-import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 public interface AccountService {
-    AccountId createNew(BigDecimal initialBalance);
+    AccountId createNew(Money initialBalance);
+
+    /**
+     * @return account id or rejection reason for every initial balance, in the same order
+     */
+    List<BatchResult<AccountId>> createNew(List<Money> initialBalances);
 
     Account findById(AccountId accountId);
+
+    List<Account> findAllById(Collection<AccountId> accountIds);
 }
@@ -4,44 +4,112 @@ import com.demo.api.account.model.Account;
 import com.demo.api.account.repository.AccountRepository;
 import com.demo.api.account.validator.AccountValidator;
 import com.demo.api.account.model.AccountId;
+import com.demo.api.journal.Journal;
+import com.demo.api.exception.InvalidDataException;
+import com.demo.api.model.BatchResult;
+import com.demo.api.model.Money;
+import com.demo.api.snapshot.SnapshotBarrier;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
 
 @Singleton
 public class InMemoryAccountService implements AccountService {
 
     private final AccountRepository accountRepository;
     private final AccountValidator accountValidator;
+    private final Journal journal;
+    private final SnapshotBarrier snapshotBarrier;
 
     @Inject
     public InMemoryAccountService(AccountValidator accountValidator,
-                                  AccountRepository accountRepository) {
+                                  AccountRepository accountRepository,
+                                  Journal journal,
+                                  SnapshotBarrier snapshotBarrier) {
         this.accountValidator = Objects.requireNonNull(accountValidator, "Account validator must be provided");
         this.accountRepository = Objects.requireNonNull(accountRepository, "Account repository must be provided");
+        this.journal = Objects.requireNonNull(journal, "Journal must be provided");
+        this.snapshotBarrier = Objects.requireNonNull(snapshotBarrier, "Snapshot barrier must be provided");
     }
 
     @Override
-    public AccountId createNew(BigDecimal initialBalance) {
+    public AccountId createNew(Money initialBalance) {
         accountValidator.validate(initialBalance);
 
-        AccountId accountId = AccountId.valueOf(UUID.randomUUID().toString());
+        AccountId accountId = AccountId.generate();
         Account account = Account.builder()
                 .withId(accountId)
                 .withBalance(initialBalance)
                 .build();
-        accountRepository.save(accountId, account);
+        long position;
+        snapshotBarrier.enter();
+        try {
+            position = journal.appendAccountOpened(accountId, initialBalance);
+            accountRepository.save(accountId, account);
+        } finally {
+            snapshotBarrier.exit();
+        }
+        journal.sync(position);
 
         return accountId;
     }
 
+    @Override
+    public List<BatchResult<AccountId>> createNew(List<Money> initialBalances) {
+        Objects.requireNonNull(initialBalances, "Initial balances must be provided");
+
+        List<BatchResult<AccountId>> results = new ArrayList<>(initialBalances.size());
+        List<Account> accounts = new ArrayList<>(initialBalances.size());
+        for (Money initialBalance : initialBalances) {
+            try {
+                accountValidator.validate(initialBalance);
+            } catch (InvalidDataException e) {
+                results.add(BatchResult.failure(e.getMessage()));
+                continue;
+            }
+
+            AccountId accountId = AccountId.generate();
+            accounts.add(Account.builder()
+                    .withId(accountId)
+                    .withBalance(initialBalance)
+                    .build());
+            results.add(BatchResult.success(accountId));
+        }
+        if (accounts.isEmpty()) {
+            return results;
+        }
+
+        long position = 0;
+        snapshotBarrier.enter();
+        try {
+            for (Account account : accounts) {
+                position = journal.appendAccountOpened(account.getId(), account.getBalance());
+            }
+            accountRepository.saveAll(accounts);
+        } finally {
+            snapshotBarrier.exit();
+        }
+        // one sync for the whole batch
+        journal.sync(position);
+
+        return results;
+    }
+
     @Override
     public Account findById(AccountId accountId) {
         Objects.requireNonNull(accountId, "Account id must be provided");
 
         return accountRepository.findById(accountId);
     }
+
+    @Override
+    public List<Account> findAllById(Collection<AccountId> accountIds) {
+        Objects.requireNonNull(accountIds, "Account ids must be provided");
+
+        return accountRepository.findAllById(accountIds);
+    }
 }
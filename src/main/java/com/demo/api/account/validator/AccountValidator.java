@@ -1,7 +1,7 @@
 package com.demo.api.account.validator;
 
-import java.math.BigDecimal;
+import com.demo.api.model.Money;
 
 public interface AccountValidator {
-    void validate(BigDecimal initialBalance);
+    void validate(Money initialBalance);
 }
@@ -1,19 +1,21 @@
 package com.demo.api.account.validator;
 
 import com.demo.api.exception.InvalidDataException;
+import com.demo.api.model.Money;
 import com.google.inject.Singleton;
 
-import java.math.BigDecimal;
-
 @Singleton
 public class DebitAccountValidator implements AccountValidator {
     @Override
-    public void validate(BigDecimal initialBalance) {
+    public void validate(Money initialBalance) {
         if (initialBalance == null) {
             throw new InvalidDataException("Account balance must be provided");
         }
-        if (initialBalance.compareTo(BigDecimal.ZERO) < 0) {
+        if (initialBalance.isNegative()) {
             throw new InvalidDataException("Account must have positive balance");
         }
+        if (Money.MAX.isLessThan(initialBalance)) {
+            throw new InvalidDataException(String.format("Account balance must not exceed %s", Money.MAX));
+        }
     }
 }
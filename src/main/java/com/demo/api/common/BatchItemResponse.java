@@ -0,0 +1,30 @@
+package com.demo.api.common;
+
+public class BatchItemResponse {
+    private String id;
+    private String error;
+
+    public BatchItemResponse() {
+    }
+
+    public BatchItemResponse(String id, String error) {
+        this.id = id;
+        this.error = error;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,54 @@
+package com.demo.api.common;
+
+import com.demo.api.exception.InvalidDataException;
+import com.demo.api.model.BatchResult;
+import com.demo.api.model.Id;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Items of batch requests are validated and answered one by one, only malformed batch is rejected as a whole.
+ */
+public final class BatchItems {
+
+    private BatchItems() {
+    }
+
+    public static <T> List<BatchResult<T>> validateEach(T[] requests, UnaryOperator<T> validator) {
+        List<BatchResult<T>> results = new ArrayList<>(requests.length);
+        for (T request : requests) {
+            try {
+                results.add(BatchResult.success(validator.apply(request)));
+            } catch (InvalidDataException e) {
+                results.add(BatchResult.failure(e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Merges validation results with results of the valid items, response keeps the order of the request.
+     *
+     * @param results results of valid requests in their order
+     */
+    public static <T, I extends Id> List<BatchItemResponse> toResponse(List<BatchResult<T>> requests,
+                                                                       List<BatchResult<I>> results) {
+        Iterator<BatchResult<I>> resultIterator = results.iterator();
+        List<BatchItemResponse> response = new ArrayList<>(requests.size());
+        for (BatchResult<T> request : requests) {
+            if (!request.isSuccess()) {
+                response.add(new BatchItemResponse(null, request.getError()));
+                continue;
+            }
+
+            BatchResult<I> result = resultIterator.next();
+            response.add(result.isSuccess()
+                    ? new BatchItemResponse(result.getValue().getValue(), null)
+                    : new BatchItemResponse(null, result.getError()));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,147 @@
+package com.demo.api.common;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Id;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of model shared by journal and snapshots.
+ */
+public final class BinaryCodec {
+    public static final int MONEY_SIZE = Long.BYTES;
+    private static final int BINARY_ID_SIZE = 1 + 2 * Long.BYTES;
+    private static final TransferState[] TRANSFER_STATES = TransferState.values();
+
+    private BinaryCodec() {
+    }
+
+    public static void writeId(ByteBuffer buffer, Id id) {
+        if (id.isBinary()) {
+            buffer.put((byte) 1);
+            buffer.putLong(id.getMostSignificantBits());
+            buffer.putLong(id.getLeastSignificantBits());
+        } else {
+            buffer.put((byte) 0);
+            writeString(buffer, id.getValue());
+        }
+    }
+
+    public static AccountId readAccountId(ByteBuffer buffer) {
+        if (buffer.get() == 1) {
+            return AccountId.valueOf(buffer.getLong(), buffer.getLong());
+        }
+        return AccountId.valueOf(readString(buffer));
+    }
+
+    public static TransferId readTransferId(ByteBuffer buffer) {
+        if (buffer.get() == 1) {
+            return TransferId.valueOf(buffer.getLong(), buffer.getLong());
+        }
+        return TransferId.valueOf(readString(buffer));
+    }
+
+    public static int sizeOfId(Id id) {
+        return id.isBinary() ? BINARY_ID_SIZE : 1 + sizeOfString(id.getValue());
+    }
+
+    public static void writeMoney(ByteBuffer buffer, Money money) {
+        buffer.putLong(money.getMinorUnits());
+    }
+
+    public static Money readMoney(ByteBuffer buffer) {
+        return Money.ofMinor(buffer.getLong());
+    }
+
+    public static void writeString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Size of the string written by {@link #writeString}, it's counted without encoding the string.
+     */
+    public static int sizeOfString(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate is encoded as replacement byte
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return Integer.BYTES + length;
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeTransferEvent(ByteBuffer buffer, TransferEvent event) {
+        writeId(buffer, event.getTransferId());
+        writeId(buffer, event.getSourceId());
+        writeId(buffer, event.getTargetId());
+        writeMoney(buffer, event.getAmount());
+        buffer.put((byte) event.getState().ordinal());
+        writeString(buffer, event.getDetails());
+    }
+
+    public static int sizeOfTransferEvent(TransferEvent event) {
+        return sizeOfId(event.getTransferId())
+                + sizeOfId(event.getSourceId())
+                + sizeOfId(event.getTargetId())
+                + MONEY_SIZE
+                + 1
+                + sizeOfString(event.getDetails());
+    }
+
+    public static void writeTransfer(ByteBuffer buffer, Transfer transfer) {
+        writeId(buffer, transfer.getId());
+        writeId(buffer, transfer.getSourceId());
+        writeId(buffer, transfer.getTargetId());
+        writeMoney(buffer, transfer.getAmount());
+        buffer.put((byte) transfer.getState().ordinal());
+        writeString(buffer, transfer.getDetails());
+    }
+
+    public static Transfer readTransfer(ByteBuffer buffer) {
+        return Transfer.builder()
+                .withId(readTransferId(buffer))
+                .withSourceId(readAccountId(buffer))
+                .withTargetId(readAccountId(buffer))
+                .withAmount(readMoney(buffer))
+                .withState(TRANSFER_STATES[buffer.get()])
+                .withDetails(readString(buffer))
+                .build();
+    }
+
+    public static TransferEvent readTransferEvent(ByteBuffer buffer) {
+        return TransferEvent.builder()
+                .withTransferId(readTransferId(buffer))
+                .withSourceId(readAccountId(buffer))
+                .withTargetId(readAccountId(buffer))
+                .withAmount(readMoney(buffer))
+                .withState(TRANSFER_STATES[buffer.get()])
+                .withDetails(readString(buffer))
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.demo.api.common;
+
+import com.demo.api.exception.InvalidDataException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Opaque page cursor exposed to clients, it wraps position in a sequence.
+ */
+public final class Cursor {
+
+    private Cursor() {
+    }
+
+    public static String encode(long position) {
+        byte[] bytes = ByteBuffer.allocate(Long.BYTES).putLong(position).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static long decode(String cursor) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new InvalidDataException("Invalid cursor");
+            }
+            long position = ByteBuffer.wrap(bytes).getLong();
+            if (position < 0) {
+                throw new InvalidDataException("Invalid cursor");
+            }
+            return position;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.demo.api.common;
+
+public final class PageRequest {
+    private final long position;
+    private final int limit;
+
+    public PageRequest(long position, int limit) {
+        this.position = position;
+        this.limit = limit;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
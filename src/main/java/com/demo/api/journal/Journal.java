@@ -0,0 +1,46 @@
+package com.demo.api.journal;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.TransferEvent;
+
+/**
+ * Append-only log of account creations and transfer state changes.
+ * Balance delta of a transfer is defined by its state: {@code SOURCE_WITHDRAWN} debits source account,
+ * {@code TARGET_DEPOSITED} credits target account.
+ */
+public interface Journal {
+    /**
+     * @return position right after the appended record
+     */
+    long appendAccountOpened(AccountId accountId, Money balance);
+
+    /**
+     * @return position right after the appended record
+     */
+    long appendTransferStateChanged(TransferEvent event);
+
+    /**
+     * Waits until all records up to the position are durable, if required by flush policy.
+     */
+    void sync(long position);
+
+    /**
+     * Makes all appended records durable regardless of flush policy.
+     */
+    void force();
+
+    /**
+     * @return position right after the last appended record
+     */
+    long position();
+
+    void replay(long fromPosition, JournalListener listener);
+
+    /**
+     * Releases records before the position, they are not needed for recovery anymore.
+     */
+    void truncate(long position);
+
+    void close();
+}
@@ -0,0 +1,8 @@
+package com.demo.api.journal;
+
+public enum JournalFlushPolicy {
+    // journal is forced to disk periodically, last records may be lost on crash
+    ASYNC,
+    // writers of final records wait until their records are forced, many records share one force
+    GROUP_COMMIT
+}
@@ -0,0 +1,11 @@
+package com.demo.api.journal;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.TransferEvent;
+
+public interface JournalListener {
+    void onAccountOpened(AccountId accountId, Money balance);
+
+    void onTransferStateChanged(TransferEvent event);
+}
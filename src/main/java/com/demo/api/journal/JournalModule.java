@@ -0,0 +1,26 @@
+package com.demo.api.journal;
+
+import com.demo.common.BootstrapConfig;
+import com.google.inject.AbstractModule;
+
+import java.nio.file.Paths;
+import java.util.Objects;
+
+public class JournalModule extends AbstractModule {
+
+    private final BootstrapConfig config;
+
+    public JournalModule(BootstrapConfig config) {
+        this.config = Objects.requireNonNull(config, "Config must be provided");
+    }
+
+    protected void configure() {
+        if (config.getJournalDir() == null) {
+            bind(Journal.class).to(NoOpJournal.class);
+            return;
+        }
+
+        bind(Journal.class).toInstance(new MappedJournal(Paths.get(config.getJournalDir()),
+                config.getJournalFlushPolicy(), config.getJournalFlushIntervalMs()));
+    }
+}
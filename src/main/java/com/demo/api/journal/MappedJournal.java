@@ -0,0 +1,372 @@
+package com.demo.api.journal;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.common.BinaryCodec;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.TransferEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal written to memory-mapped segment files.
+ * <p>
+ * Every record is a frame of {@code [payload length][payload crc][payload]}, zero length marks the end of
+ * the segment. Records are encoded by the calling thread into a frame of their exact size, no buffer is kept
+ * per thread since deposits may run on short-lived virtual threads. Only copying of the frame into segment
+ * is done under lock. Segments are forced to disk by a background flusher according to {@link JournalFlushPolicy}.
+ */
+public class MappedJournal implements Journal {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedJournal.class);
+
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int MAX_PAYLOAD_SIZE = 64 * 1024;
+    private static final byte ACCOUNT_OPENED = 1;
+    private static final byte TRANSFER_STATE_CHANGED = 2;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final JournalFlushPolicy flushPolicy;
+    private final long flushIntervalMs;
+    private final int segmentSize;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Object flushMonitor = new Object();
+    private final Thread flusher;
+
+    // guarded by writeLock
+    private FileChannel channel;
+    private long segmentBase;
+    private volatile MappedByteBuffer segment;
+    private volatile long writePosition;
+    private volatile long flushedPosition;
+    private volatile boolean syncRequested;
+    private volatile boolean running;
+
+    public MappedJournal(Path directory, JournalFlushPolicy flushPolicy, long flushIntervalMs) {
+        this(directory, flushPolicy, flushIntervalMs, DEFAULT_SEGMENT_SIZE);
+    }
+
+    MappedJournal(Path directory, JournalFlushPolicy flushPolicy, long flushIntervalMs, int segmentSize) {
+        this.directory = Objects.requireNonNull(directory, "Journal directory must be provided");
+        this.flushPolicy = Objects.requireNonNull(flushPolicy, "Flush policy must be provided");
+        if (flushIntervalMs <= 0) {
+            throw new IllegalArgumentException("Flush interval must be greater than 0");
+        }
+        if (segmentSize < 2 * (FRAME_HEADER_SIZE + MAX_PAYLOAD_SIZE)) {
+            throw new IllegalArgumentException("Segment size is too small");
+        }
+        this.flushIntervalMs = flushIntervalMs;
+        this.segmentSize = segmentSize;
+
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Fail to open journal %s", directory), e);
+        }
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public long appendAccountOpened(AccountId accountId, Money balance) {
+        ByteBuffer frame = startFrame(ACCOUNT_OPENED, BinaryCodec.sizeOfId(accountId) + BinaryCodec.MONEY_SIZE);
+        BinaryCodec.writeId(frame, accountId);
+        BinaryCodec.writeMoney(frame, balance);
+        return append(finishFrame(frame));
+    }
+
+    @Override
+    public long appendTransferStateChanged(TransferEvent event) {
+        ByteBuffer frame = startFrame(TRANSFER_STATE_CHANGED, BinaryCodec.sizeOfTransferEvent(event));
+        BinaryCodec.writeTransferEvent(frame, event);
+        return append(finishFrame(frame));
+    }
+
+    @Override
+    public void sync(long position) {
+        if (flushPolicy != JournalFlushPolicy.GROUP_COMMIT || position <= flushedPosition) {
+            return;
+        }
+
+        synchronized (flushMonitor) {
+            syncRequested = true;
+            flushMonitor.notifyAll();
+            while (running && flushedPosition < position) {
+                try {
+                    flushMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void force() {
+        flush();
+    }
+
+    @Override
+    public long position() {
+        return writePosition;
+    }
+
+    @Override
+    public void replay(long fromPosition, JournalListener listener) {
+        Objects.requireNonNull(listener, "Listener must be provided");
+
+        long limit = writePosition;
+        try {
+            for (long base : segmentBases()) {
+                if (base + segmentSize <= fromPosition) {
+                    continue;
+                }
+                if (base >= limit) {
+                    break;
+                }
+                try (FileChannel readChannel = FileChannel.open(segmentPath(base), StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentSize);
+                    int start = fromPosition > base ? (int) (fromPosition - base) : 0;
+                    int end = (int) Math.min(segmentSize, limit - base);
+                    scan(buffer, start, end, listener);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Fail to replay journal %s", directory), e);
+        }
+    }
+
+    @Override
+    public void truncate(long position) {
+        long currentBase;
+        writeLock.lock();
+        try {
+            currentBase = segmentBase;
+        } finally {
+            writeLock.unlock();
+        }
+
+        try {
+            for (long base : segmentBases()) {
+                // current segment is never removed
+                if (base + segmentSize > position || base >= currentBase) {
+                    break;
+                }
+                Files.deleteIfExists(segmentPath(base));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Fail to truncate journal %s", directory), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        writeLock.lock();
+        try {
+            segment.force();
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.error("Fail to close journal", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private ByteBuffer startFrame(byte type, int recordSize) {
+        // payload is the type followed by the record
+        int payloadSize = 1 + recordSize;
+        if (payloadSize > MAX_PAYLOAD_SIZE) {
+            throw new IllegalArgumentException(String.format("Journal record of %s bytes is too large", payloadSize));
+        }
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + payloadSize);
+        frame.position(FRAME_HEADER_SIZE);
+        frame.put(type);
+        return frame;
+    }
+
+    private ByteBuffer finishFrame(ByteBuffer frame) {
+        int length = frame.position() - FRAME_HEADER_SIZE;
+        CRC32C checksum = new CRC32C();
+        checksum.update(frame.array(), FRAME_HEADER_SIZE, length);
+        frame.putInt(0, length);
+        frame.putInt(4, (int) checksum.getValue());
+        frame.flip();
+        return frame;
+    }
+
+    private long append(ByteBuffer frame) {
+        writeLock.lock();
+        try {
+            int frameSize = frame.remaining();
+            long offset = writePosition - segmentBase;
+            if (offset + frameSize > segmentSize) {
+                roll();
+                offset = 0;
+            }
+            MappedByteBuffer current = segment;
+            current.position((int) offset);
+            current.put(frame);
+            writePosition = segmentBase + offset + frameSize;
+            return writePosition;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fail to append record to journal", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void roll() throws IOException {
+        // records of previous segments are always durable, flusher forces only the current one
+        segment.force();
+        channel.close();
+        openSegment(segmentBase + segmentSize);
+        writePosition = segmentBase;
+    }
+
+    private void open() throws IOException {
+        List<Long> bases = segmentBases();
+        if (bases.isEmpty()) {
+            openSegment(0);
+            writePosition = 0;
+        } else {
+            openSegment(bases.get(bases.size() - 1));
+            int end = scan(segment, 0, segmentSize, null);
+            if (end + FRAME_HEADER_SIZE <= segmentSize && segment.getInt(end) != 0) {
+                // torn write of the last record
+                for (int i = end; i < segmentSize; i++) {
+                    segment.put(i, (byte) 0);
+                }
+            }
+            writePosition = segmentBase + end;
+        }
+        flushedPosition = writePosition;
+    }
+
+    private void openSegment(long base) throws IOException {
+        channel = FileChannel.open(segmentPath(base),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segmentBase = base;
+    }
+
+    private int scan(ByteBuffer buffer, int start, int end, JournalListener listener) {
+        CRC32C checksum = new CRC32C();
+        int offset = start;
+        while (offset + FRAME_HEADER_SIZE <= end) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > MAX_PAYLOAD_SIZE || offset + FRAME_HEADER_SIZE + length > end) {
+                break;
+            }
+            ByteBuffer payload = buffer.duplicate();
+            payload.limit(offset + FRAME_HEADER_SIZE + length).position(offset + FRAME_HEADER_SIZE);
+            checksum.reset();
+            checksum.update(payload.duplicate());
+            if ((int) checksum.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+            if (listener != null) {
+                decode(payload, listener);
+            }
+            offset += FRAME_HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    private void decode(ByteBuffer payload, JournalListener listener) {
+        byte type = payload.get();
+        switch (type) {
+            case ACCOUNT_OPENED:
+                listener.onAccountOpened(BinaryCodec.readAccountId(payload), BinaryCodec.readMoney(payload));
+                break;
+            case TRANSFER_STATE_CHANGED:
+                listener.onTransferStateChanged(BinaryCodec.readTransferEvent(payload));
+                break;
+            default:
+                throw new IllegalStateException(String.format("Unknown journal record type: %s", type));
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                awaitFlushRequest();
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("Fail to flush journal", e);
+            }
+        }
+    }
+
+    private void awaitFlushRequest() throws InterruptedException {
+        synchronized (flushMonitor) {
+            if (flushPolicy == JournalFlushPolicy.GROUP_COMMIT) {
+                // writers of the same group are waiting for one force
+                if (!syncRequested && running) {
+                    flushMonitor.wait(flushIntervalMs);
+                }
+                syncRequested = false;
+            } else if (running) {
+                flushMonitor.wait(flushIntervalMs);
+            }
+        }
+    }
+
+    private void flush() {
+        long target = writePosition;
+        if (target > flushedPosition) {
+            segment.force();
+            synchronized (flushMonitor) {
+                flushedPosition = Math.max(flushedPosition, target);
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+
+    private List<Long> segmentBases() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+    }
+}
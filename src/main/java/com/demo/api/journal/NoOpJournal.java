@@ -0,0 +1,44 @@
+package com.demo.api.journal;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.TransferEvent;
+import com.google.inject.Singleton;
+
+@Singleton
+public class NoOpJournal implements Journal {
+    @Override
+    public long appendAccountOpened(AccountId accountId, Money balance) {
+        return 0;
+    }
+
+    @Override
+    public long appendTransferStateChanged(TransferEvent event) {
+        return 0;
+    }
+
+    @Override
+    public void sync(long position) {
+    }
+
+    @Override
+    public void force() {
+    }
+
+    @Override
+    public long position() {
+        return 0;
+    }
+
+    @Override
+    public void replay(long fromPosition, JournalListener listener) {
+    }
+
+    @Override
+    public void truncate(long position) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,12 @@
+package com.demo.api.metrics;
+
+import com.demo.api.metrics.controller.MetricsControllerModule;
+import com.google.inject.AbstractModule;
+
+public class MetricsModule extends AbstractModule {
+
+    protected void configure() {
+        bind(MetricsRegistry.class);
+        install(new MetricsControllerModule());
+    }
+}
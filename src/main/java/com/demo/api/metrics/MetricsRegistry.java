@@ -0,0 +1,121 @@
+package com.demo.api.metrics;
+
+import com.google.inject.Singleton;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+/**
+ * Holds application metrics and renders them in Prometheus text format.
+ * Labels are passed as name and value pairs, e.g. {@code histogram("latency_seconds", "Latency", "stage", "register")}.
+ */
+@Singleton
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return register(name, help, "summary", labels, key -> new LatencyHistogram(), LatencyHistogram.class);
+    }
+
+    public LongAdder counter(String name, String help, String... labels) {
+        return register(name, help, "counter", labels, key -> new LongAdder(), LongAdder.class);
+    }
+
+    public void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        Objects.requireNonNull(supplier, "Supplier must be provided");
+        register(name, help, "gauge", labels, key -> supplier, DoubleSupplier.class);
+    }
+
+    public String scrape() {
+        StringBuilder builder = new StringBuilder();
+        families.forEach((name, family) -> {
+            builder.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            builder.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            family.series.forEach((labels, metric) -> {
+                if (metric instanceof LatencyHistogram) {
+                    writeHistogram(builder, name, labels, (LatencyHistogram) metric);
+                } else if (metric instanceof LongAdder) {
+                    writeSample(builder, name, labels, Long.toString(((LongAdder) metric).sum()));
+                } else if (metric instanceof DoubleSupplier) {
+                    writeSample(builder, name, labels, formatValue(((DoubleSupplier) metric).getAsDouble()));
+                }
+            });
+        });
+        return builder.toString();
+    }
+
+    private <T> T register(String name, String help, String type, String[] labels,
+                           Function<String, Object> factory, Class<T> metricType) {
+        Objects.requireNonNull(name, "Name must be provided");
+        Objects.requireNonNull(help, "Help must be provided");
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be provided as name and value pairs");
+        }
+
+        Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException(String.format("Metric %s is already registered as %s", name, family.type));
+        }
+        return metricType.cast(family.series.computeIfAbsent(formatLabels(labels), factory));
+    }
+
+    private static void writeHistogram(StringBuilder builder, String name, String labels, LatencyHistogram histogram) {
+        for (double quantile : QUANTILES) {
+            String quantileLabel = String.format(Locale.ROOT, "quantile=\"%s\"", quantile);
+            writeSample(builder, name, labels.isEmpty() ? quantileLabel : labels + "," + quantileLabel,
+                    toSeconds(histogram.getPercentile(quantile)));
+        }
+        writeSample(builder, name + "_sum", labels, toSeconds(histogram.getSum()));
+        writeSample(builder, name + "_count", labels, Long.toString(histogram.getCount()));
+    }
+
+    private static void writeSample(StringBuilder builder, String name, String labels, String value) {
+        builder.append(name);
+        if (!labels.isEmpty()) {
+            builder.append('{').append(labels).append('}');
+        }
+        builder.append(' ').append(value).append('\n');
+    }
+
+    private static String formatLabels(String[] labels) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(labels[i]).append("=\"").append(labels[i + 1]).append('"');
+        }
+        return builder.toString();
+    }
+
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String toSeconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / NANOS_PER_SECOND);
+    }
+
+    private static final class Family {
+        private final String help;
+        private final String type;
+        private final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+        private Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.demo.api.metrics.controller;
+
+import com.demo.api.metrics.MetricsRegistry;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.javalin.http.Context;
+import io.javalin.plugin.openapi.annotations.*;
+import org.eclipse.jetty.http.HttpStatus;
+
+import java.util.Objects;
+
+@Singleton
+public class MetricsController {
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry metricsRegistry;
+
+    @Inject
+    public MetricsController(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = Objects.requireNonNull(metricsRegistry, "Metrics registry must be provided");
+    }
+
+    @OpenApi(
+            summary = "Get metrics in Prometheus text format",
+            path = "/metrics",
+            method = HttpMethod.GET,
+            tags = {"Metrics"},
+            responses = {
+                    @OpenApiResponse(status = "200", content = {@OpenApiContent(from = String.class, type = "text/plain")})
+            }
+    )
+    public void scrape(Context ctx) {
+        ctx.result(metricsRegistry.scrape());
+        ctx.contentType(PROMETHEUS_CONTENT_TYPE);
+        ctx.status(HttpStatus.OK_200);
+    }
+}
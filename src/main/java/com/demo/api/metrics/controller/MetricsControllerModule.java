@@ -0,0 +1,13 @@
+package com.demo.api.metrics.controller;
+
+import com.demo.api.common.Routing;
+import com.google.inject.AbstractModule;
+import com.google.inject.multibindings.Multibinder;
+
+public class MetricsControllerModule extends AbstractModule {
+
+    protected void configure() {
+        bind(MetricsController.class);
+        Multibinder.newSetBinder(binder(), Routing.class).addBinding().to(MetricsRouting.class);
+    }
+}
@@ -0,0 +1,25 @@
+package com.demo.api.metrics.controller;
+
+import com.demo.api.common.Routing;
+import io.javalin.Javalin;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Objects;
+
+import static io.javalin.apibuilder.ApiBuilder.*;
+
+@Singleton
+class MetricsRouting extends Routing<MetricsController> {
+    private final Javalin app;
+
+    @Inject
+    public MetricsRouting(Javalin app) {
+        this.app = Objects.requireNonNull(app, "App must be provided");
+    }
+
+    @Override
+    public void bindRoutes() {
+        app.routes(() -> path("metrics", () -> get(ctx -> getController().scrape(ctx))));
+    }
+}
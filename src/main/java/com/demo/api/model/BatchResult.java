@@ -0,0 +1,39 @@
+package com.demo.api.model;
+
+/**
+ * Outcome of one item of a batch request: either a value or an error message.
+ */
+public final class BatchResult<T> {
+    private final T value;
+    private final String error;
+
+    private BatchResult(T value, String error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    public static <T> BatchResult<T> success(T value) {
+        return new BatchResult<>(value, null);
+    }
+
+    public static <T> BatchResult<T> failure(String error) {
+        return new BatchResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "Success=" + value : "Failure=" + error;
+    }
+}
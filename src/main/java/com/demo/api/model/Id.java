@@ -2,20 +2,65 @@ package com.demo.api.model;
 
 import java.util.Objects;
 
+/**
+ * Identifier stored as 128-bit value when it's a canonical UUID, any other value is kept as is.
+ * String form of UUID is created on demand and cached. Only lowercase UUID is canonical, since it's formatted
+ * in lowercase, so any value is returned exactly as it was given.
+ */
 public abstract class Id {
-    private final String value;
+    private static final int UUID_LENGTH = 36;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final long mostSigBits;
+    private final long leastSigBits;
+    private final boolean binary;
+    private String value;
 
     protected Id(String value) {
-        this.value = Objects.requireNonNull(value, "Id value must be provided");
+        Objects.requireNonNull(value, "Id value must be provided");
+        if (isUuid(value)) {
+            this.mostSigBits = parseHex(value, 0, 8) << 32 | parseHex(value, 9, 13) << 16 | parseHex(value, 14, 18);
+            this.leastSigBits = parseHex(value, 19, 23) << 48 | parseHex(value, 24, 36);
+            this.binary = true;
+        } else {
+            this.mostSigBits = 0;
+            this.leastSigBits = 0;
+            this.binary = false;
+            this.value = value;
+        }
+    }
+
+    protected Id(long mostSigBits, long leastSigBits) {
+        this.mostSigBits = mostSigBits;
+        this.leastSigBits = leastSigBits;
+        this.binary = true;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public long getMostSignificantBits() {
+        return mostSigBits;
+    }
+
+    public long getLeastSignificantBits() {
+        return leastSigBits;
     }
 
     public String getValue() {
-        return value;
+        String result = value;
+        if (result == null) {
+            // racy single-check, String is immutable
+            result = format(mostSigBits, leastSigBits);
+            value = result;
+        }
+        return result;
     }
 
     @Override
     public String toString() {
-        return value;
+        return getValue();
     }
 
     @Override
@@ -23,11 +68,82 @@ public abstract class Id {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Id id = (Id) o;
-        return Objects.equals(value, id.value);
+        if (binary != id.binary) return false;
+        if (binary) {
+            return mostSigBits == id.mostSigBits && leastSigBits == id.leastSigBits;
+        }
+        return value.equals(id.value);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(value);
+        if (binary) {
+            long hilo = mostSigBits ^ leastSigBits;
+            return ((int) (hilo >> 32)) ^ (int) hilo;
+        }
+        return value.hashCode();
+    }
+
+    private static boolean isUuid(String value) {
+        if (value.length() != UUID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char ch = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (ch != '-') {
+                    return false;
+                }
+            } else if (hexDigit(ch) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseHex(String value, int from, int to) {
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            char ch = value.charAt(i);
+            if (ch != '-') {
+                result = result << 4 | hexDigit(ch);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Only ASCII lowercase hex digits, unlike {@link Character#digit(char, int)} which accepts digits of other scripts
+     * and uppercase letters too.
+     */
+    private static int hexDigit(char ch) {
+        if (ch >= '0' && ch <= '9') {
+            return ch - '0';
+        }
+        if (ch >= 'a' && ch <= 'f') {
+            return ch - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private static String format(long mostSigBits, long leastSigBits) {
+        char[] chars = new char[UUID_LENGTH];
+        formatHex(chars, 0, mostSigBits >>> 32, 8);
+        chars[8] = '-';
+        formatHex(chars, 9, mostSigBits >>> 16, 4);
+        chars[13] = '-';
+        formatHex(chars, 14, mostSigBits, 4);
+        chars[18] = '-';
+        formatHex(chars, 19, leastSigBits >>> 48, 4);
+        chars[23] = '-';
+        formatHex(chars, 24, leastSigBits, 12);
+        return new String(chars);
+    }
+
+    private static void formatHex(char[] chars, int offset, long value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
     }
 }
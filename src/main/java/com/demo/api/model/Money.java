@@ -0,0 +1,96 @@
+package com.demo.api.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * Immutable amount of money stored as number of minor units (e.g. cents) with fixed scale.
+ * Arithmetic fails with {@link ArithmeticException} on overflow.
+ */
+public final class Money implements Comparable<Money> {
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+    /**
+     * Largest balance or amount accepted from clients. Transfers only move money between accounts,
+     * so balances stay far below overflow of long unless huge number of accounts is funded with it.
+     */
+    public static final Money MAX = new Money(1_000_000_000_000_000L);
+
+    private static final long MINOR_UNITS_PER_UNIT = BigDecimal.ONE.movePointRight(SCALE).longValueExact();
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    /**
+     * @throws ArithmeticException if amount has more than {@link #SCALE} decimal places or doesn't fit into long
+     */
+    public static Money of(BigDecimal amount) {
+        Objects.requireNonNull(amount, "Amount must be provided");
+
+        return ofMinor(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    public static Money of(long amount) {
+        return ofMinor(Math.multiplyExact(amount, MINOR_UNITS_PER_UNIT));
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        BigDecimal amount = BigDecimal.valueOf(minorUnits, SCALE).stripTrailingZeros();
+        return amount.scale() < 0 ? amount.setScale(0) : amount;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+}
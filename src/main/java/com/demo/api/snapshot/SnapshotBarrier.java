@@ -0,0 +1,55 @@
+package com.demo.api.snapshot;
+
+import com.google.inject.Singleton;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Separates state changes (journal record together with repository update) from the start of a snapshot.
+ * Writers only touch a counter of their own stripe, snapshot closes the barrier and waits until all stripes drain.
+ * Calls to {@link #enter()} must not be nested.
+ */
+@Singleton
+public class SnapshotBarrier {
+    // one counter per cache line
+    private static final int PADDING = 16;
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+
+    private final AtomicLongArray active = new AtomicLongArray(STRIPES * PADDING);
+    private volatile boolean closed;
+
+    public void enter() {
+        int index = index();
+        while (true) {
+            active.incrementAndGet(index);
+            if (!closed) {
+                return;
+            }
+            active.decrementAndGet(index);
+            while (closed) {
+                Thread.yield();
+            }
+        }
+    }
+
+    public void exit() {
+        active.decrementAndGet(index());
+    }
+
+    synchronized void close() {
+        closed = true;
+        for (int i = 0; i < STRIPES; i++) {
+            while (active.get(i * PADDING) != 0) {
+                Thread.yield();
+            }
+        }
+    }
+
+    synchronized void open() {
+        closed = false;
+    }
+
+    private static int index() {
+        return (int) (Thread.currentThread().getId() & (STRIPES - 1)) * PADDING;
+    }
+}
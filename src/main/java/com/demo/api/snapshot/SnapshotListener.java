@@ -0,0 +1,11 @@
+package com.demo.api.snapshot;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.TransferEvent;
+
+public interface SnapshotListener {
+    void onAccount(AccountId accountId, Money balance);
+
+    void onTransfer(TransferEvent event);
+}
@@ -0,0 +1,283 @@
+package com.demo.api.snapshot;
+
+import com.demo.api.account.model.Account;
+import com.demo.api.account.model.AccountId;
+import com.demo.api.account.repository.AccountRepository;
+import com.demo.api.journal.Journal;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.manager.InFlightTransfers;
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.api.transfer.repository.TransferRepository;
+import com.demo.common.BootstrapConfig;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes point-in-time snapshots of accounts and transfers while transfers are processed.
+ * <p>
+ * Snapshot is taken at a journal position: {@link SnapshotBarrier} is closed only to read the position
+ * and to turn on copy-on-write. While the snapshot is written, first change of an account or a transfer
+ * keeps its previous state, which is copied instead of the current one.
+ */
+@Singleton
+public class SnapshotManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotManager.class);
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TMP_SUFFIX = ".tmp";
+    // previous snapshot is kept in case the latest one is damaged
+    private static final int RETAINED_SNAPSHOTS = 2;
+
+    private final AccountRepository accountRepository;
+    private final TransferRepository transferRepository;
+    private final InFlightTransfers inFlightTransfers;
+    private final Journal journal;
+    private final SnapshotBarrier barrier;
+    private final Path directory;
+    private final long intervalMs;
+    private final Map<AccountId, Money> accountPreImages = new ConcurrentHashMap<>();
+    // empty pre-image means transfer didn't exist at snapshot position
+    private final Map<TransferId, Optional<Transfer>> transferPreImages = new ConcurrentHashMap<>();
+    private volatile boolean capturing;
+    private ScheduledExecutorService scheduler;
+
+    @Inject
+    public SnapshotManager(BootstrapConfig config,
+                           AccountRepository accountRepository,
+                           TransferRepository transferRepository,
+                           InFlightTransfers inFlightTransfers,
+                           Journal journal,
+                           SnapshotBarrier barrier) {
+        Objects.requireNonNull(config, "Config must be provided");
+        this.accountRepository = Objects.requireNonNull(accountRepository, "Account repository must be provided");
+        this.transferRepository = Objects.requireNonNull(transferRepository, "Transfer repository must be provided");
+        this.inFlightTransfers = Objects.requireNonNull(inFlightTransfers, "In-flight transfers must be provided");
+        this.journal = Objects.requireNonNull(journal, "Journal must be provided");
+        this.barrier = Objects.requireNonNull(barrier, "Snapshot barrier must be provided");
+        this.directory = config.getSnapshotDir() == null ? null : Paths.get(config.getSnapshotDir());
+        this.intervalMs = config.getSnapshotIntervalMs();
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::takeScheduledSnapshot, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        // next start replays only records appended after the last snapshot
+        takeScheduledSnapshot();
+    }
+
+    /**
+     * Must be called within {@link SnapshotBarrier} before balance of the account is changed.
+     */
+    public void preserveAccount(AccountId accountId) {
+        if (capturing) {
+            accountPreImages.computeIfAbsent(accountId, key -> {
+                Account account = accountRepository.findById(key);
+                return account == null ? null : account.getBalance();
+            });
+        }
+    }
+
+    /**
+     * Must be called within {@link SnapshotBarrier} before state of the transfer is changed.
+     */
+    public void preserveTransfer(TransferId transferId) {
+        if (capturing) {
+            transferPreImages.computeIfAbsent(transferId, key -> {
+                Transfer transfer = inFlightTransfers.findCompletingById(key);
+                if (transfer == null) {
+                    transfer = inFlightTransfers.findById(key);
+                }
+                return Optional.ofNullable(transfer != null ? transfer : transferRepository.findById(key));
+            });
+        }
+    }
+
+    public synchronized Path takeSnapshot() {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Snapshots are disabled");
+        }
+
+        long position;
+        barrier.close();
+        try {
+            accountPreImages.clear();
+            transferPreImages.clear();
+            capturing = true;
+            position = journal.position();
+        } finally {
+            barrier.open();
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            Path file = write(position);
+            LOGGER.info(String.format("Snapshot %s at journal position %s written in %s ms", file, position,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)));
+            cleanUp();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Fail to write snapshot to %s", directory), e);
+        } finally {
+            capturing = false;
+            // pre-images aren't kept until the next snapshot, the next one clears what a late writer leaves
+            accountPreImages.clear();
+            transferPreImages.clear();
+        }
+    }
+
+    /**
+     * Loads the latest intact snapshot.
+     *
+     * @return journal position to replay records from
+     */
+    public long restoreLatest(SnapshotListener listener) {
+        Objects.requireNonNull(listener, "Listener must be provided");
+        if (!isEnabled() || !Files.isDirectory(directory)) {
+            return 0;
+        }
+
+        for (Path file : snapshots()) {
+            try {
+                long position = SnapshotReader.read(file, listener);
+                LOGGER.info(String.format("Restored snapshot %s at journal position %s", file, position));
+                return position;
+            } catch (IOException e) {
+                LOGGER.warn(String.format("Skip snapshot %s", file), e);
+            }
+        }
+        return 0;
+    }
+
+    private void takeScheduledSnapshot() {
+        try {
+            takeSnapshot();
+        } catch (RuntimeException e) {
+            LOGGER.error("Fail to take snapshot", e);
+        }
+    }
+
+    private Path write(long position) throws IOException {
+        String name = String.format("%s%020d%s", SNAPSHOT_PREFIX, System.currentTimeMillis(), SNAPSHOT_SUFFIX);
+        Path file = directory.resolve(name);
+        Path tmpFile = directory.resolve(name + TMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tmpFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SnapshotWriter writer = new SnapshotWriter(channel, position);
+            for (Account account : accountRepository.findAll()) {
+                // current state is read before the pre-image, so it can't miss a change made after the position
+                Money preImage = accountPreImages.get(account.getId());
+                writer.writeAccount(account.getId(), preImage != null ? preImage : account.getBalance());
+            }
+
+            // transfer is stored in repository before it's released, so in-flight transfers are copied first
+            Map<TransferId, Transfer> inFlight = new HashMap<>();
+            inFlightTransfers.findAll().forEach(transfer -> inFlight.put(transfer.getId(), transfer));
+            // final record of a completing transfer is journaled, its state must not be older than the record
+            inFlightTransfers.findAllCompleting().forEach(transfer -> inFlight.put(transfer.getId(), transfer));
+            for (Transfer transfer : transferRepository.findAll()) {
+                Transfer inFlightTransfer = inFlight.remove(transfer.getId());
+                writeTransfer(writer, inFlightTransfer == null || isCompleted(transfer) ? transfer : inFlightTransfer);
+            }
+            for (Transfer transfer : inFlight.values()) {
+                writeTransfer(writer, transfer);
+            }
+            // records up to the position must survive a crash, otherwise new records would reuse it
+            journal.force();
+            writer.finish();
+        }
+        Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    private void writeTransfer(SnapshotWriter writer, Transfer transfer) throws IOException {
+        Optional<Transfer> preImage = transferPreImages.get(transfer.getId());
+        if (preImage == null) {
+            writer.writeTransfer(transfer);
+        } else if (preImage.isPresent()) {
+            writer.writeTransfer(preImage.get());
+        }
+    }
+
+    private void cleanUp() throws IOException {
+        List<Path> snapshots = snapshots();
+        if (snapshots.size() < RETAINED_SNAPSHOTS) {
+            return;
+        }
+
+        for (Path file : snapshots.subList(RETAINED_SNAPSHOTS, snapshots.size())) {
+            Files.deleteIfExists(file);
+        }
+        // journal is kept from the oldest retained snapshot
+        journal.truncate(SnapshotReader.readPosition(snapshots.get(RETAINED_SNAPSHOTS - 1)));
+    }
+
+    private List<Path> snapshots() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+            })
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Fail to list snapshots in %s", directory), e);
+        }
+    }
+
+    private static boolean isCompleted(Transfer transfer) {
+        return transfer.getState() == TransferState.DONE || transfer.getState() == TransferState.ERROR;
+    }
+}
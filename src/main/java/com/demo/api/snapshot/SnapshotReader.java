@@ -0,0 +1,82 @@
+package com.demo.api.snapshot;
+
+import com.demo.api.common.BinaryCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads snapshot file written by {@link SnapshotWriter}, records are delivered only if the whole file is intact.
+ */
+final class SnapshotReader {
+    private static final int HEADER_SIZE = 16;
+    private static final int TRAILER_SIZE = 4;
+
+    private SnapshotReader() {
+    }
+
+    /**
+     * @return journal position of the snapshot
+     */
+    static long read(Path file, SnapshotListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            verify(file, buffer);
+
+            long position = buffer.getLong(8);
+            buffer.position(HEADER_SIZE);
+            while (true) {
+                byte type = buffer.get();
+                switch (type) {
+                    case SnapshotWriter.END:
+                        return position;
+                    case SnapshotWriter.ACCOUNT:
+                        listener.onAccount(BinaryCodec.readAccountId(buffer), BinaryCodec.readMoney(buffer));
+                        break;
+                    case SnapshotWriter.TRANSFER:
+                        listener.onTransfer(BinaryCodec.readTransferEvent(buffer));
+                        break;
+                    default:
+                        throw new IOException(String.format("Unknown record type %s in snapshot %s", type, file));
+                }
+            }
+        }
+    }
+
+    static long readPosition(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+            if (header.hasRemaining() || header.getInt(0) != SnapshotWriter.MAGIC) {
+                throw new IOException(String.format("Invalid snapshot %s", file));
+            }
+            return header.getLong(8);
+        }
+    }
+
+    private static void verify(Path file, ByteBuffer buffer) throws IOException {
+        int size = buffer.limit();
+        if (size < HEADER_SIZE + 1 + TRAILER_SIZE
+                || buffer.getInt(0) != SnapshotWriter.MAGIC
+                || buffer.getInt(4) != SnapshotWriter.VERSION) {
+            throw new IOException(String.format("Invalid snapshot %s", file));
+        }
+
+        CRC32C checksum = new CRC32C();
+        ByteBuffer content = buffer.duplicate();
+        content.position(0).limit(size - TRAILER_SIZE);
+        checksum.update(content);
+        if ((int) checksum.getValue() != buffer.getInt(size - TRAILER_SIZE)) {
+            throw new IOException(String.format("Snapshot %s is corrupted", file));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.demo.api.snapshot;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.common.BinaryCodec;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.Transfer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * Streams records to snapshot file: {@code [magic][version][journal position] [type][record]... [end][crc32c]}.
+ */
+class SnapshotWriter {
+    static final int MAGIC = 0x534E4150;
+    static final int VERSION = 1;
+    static final byte END = 0;
+    static final byte ACCOUNT = 1;
+    static final byte TRANSFER = 2;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32C checksum = new CRC32C();
+
+    SnapshotWriter(FileChannel channel, long journalPosition) {
+        this.channel = Objects.requireNonNull(channel, "Channel must be provided");
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(journalPosition);
+    }
+
+    void writeAccount(AccountId accountId, Money balance) throws IOException {
+        ensureCapacity();
+        buffer.put(ACCOUNT);
+        BinaryCodec.writeId(buffer, accountId);
+        BinaryCodec.writeMoney(buffer, balance);
+    }
+
+    void writeTransfer(Transfer transfer) throws IOException {
+        ensureCapacity();
+        buffer.put(TRANSFER);
+        BinaryCodec.writeTransfer(buffer, transfer);
+    }
+
+    void finish() throws IOException {
+        buffer.put(END);
+        drain();
+        buffer.putInt((int) checksum.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(true);
+    }
+
+    private void ensureCapacity() throws IOException {
+        if (buffer.remaining() < MAX_RECORD_SIZE) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        checksum.update(buffer.array(), 0, buffer.limit());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -5,31 +5,70 @@ import com.demo.api.transfer.model.TransferId;
 import com.demo.api.transfer.controller.validator.TransferRequestValidator;
 import com.demo.api.transfer.dto.NewTransferRequest;
 import com.demo.api.transfer.dto.TransferIdResponse;
+import com.demo.api.transfer.dto.TransferPageResponse;
 import com.demo.api.transfer.dto.TransferResponse;
+import com.demo.api.transfer.model.NewTransfer;
 import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferDirection;
+import com.demo.api.transfer.model.TransferPage;
+import com.demo.api.transfer.model.TransferState;
 import com.demo.api.transfer.service.TransferService;
+import com.demo.api.common.BatchItemResponse;
+import com.demo.api.common.BatchItems;
+import com.demo.api.common.Cursor;
 import com.demo.api.common.ErrorResponse;
+import com.demo.api.common.PageRequest;
 import com.demo.api.exception.NotFoundException;
+import com.demo.api.model.BatchResult;
+import com.demo.api.model.Money;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.javalin.http.Context;
+import io.javalin.http.sse.SseClient;
+import io.javalin.plugin.json.JavalinJackson;
 import io.javalin.plugin.openapi.annotations.*;
 import org.eclipse.jetty.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Singleton
 public class TransferController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransferController.class);
+
+    // events which may wait for a slow client, then its stream is closed
+    static final int MAX_PENDING_EVENTS = 1024;
+
     private final TransferRequestValidator validator;
     private final TransferService transferService;
+    private final TransferResponseWriters responseWriters;
 
     @Inject
     public TransferController(TransferRequestValidator requestValidator,
-                              TransferService transferService) {
+                              TransferService transferService,
+                              TransferResponseWriters responseWriters) {
         this.validator = requestValidator;
         this.transferService = Objects.requireNonNull(transferService, "Transfer service must be provided");
+        this.responseWriters = Objects.requireNonNull(responseWriters, "Response writers must be provided");
     }
 
     @OpenApi(
@@ -37,21 +76,70 @@ public class TransferController {
             path = "/transfers",
             method = HttpMethod.POST,
             tags = {"Transfer"},
+            description = "With wait the response is sent when transfer is completed, "
+                    + "or with 202 when it's not completed in time",
+            headers = {@OpenApiParam(name = "Idempotency-Key")},
+            queryParams = {@OpenApiParam(name = "wait", type = Long.class, description = "Max time to wait for completion in ms")},
             requestBody = @OpenApiRequestBody(content = {@OpenApiContent(from = NewTransferRequest.class)}),
             responses = {
-                    @OpenApiResponse(status = "201", content = {@OpenApiContent(from = TransferIdResponse.class)}),
+                    @OpenApiResponse(status = "201", content = {
+                            @OpenApiContent(from = TransferIdResponse.class),
+                            @OpenApiContent(from = TransferResponse.class)
+                    }),
+                    @OpenApiResponse(status = "202", content = {@OpenApiContent(from = TransferIdResponse.class)}),
                     @OpenApiResponse(status = "400", content = {@OpenApiContent(from = ErrorResponse.class)}),
                     @OpenApiResponse(status = "429", content = {@OpenApiContent(from = ErrorResponse.class)})
             }
     )
     public void createNewTransfer(Context ctx) {
         NewTransferRequest request = validator.validateNewTransferRequest(ctx);
-        TransferId transferId = transferService.createNew(AccountId.valueOf(request.getSourceAccountId()),
-                AccountId.valueOf(request.getTargetAccountId()), request.getAmount());
+        String idempotencyKey = validator.validateIdempotencyKey(ctx);
+        long waitMs = validator.validateWait(ctx);
+        TransferId transferId = transferService.createNew(idempotencyKey, AccountId.valueOf(request.getSourceAccountId()),
+                AccountId.valueOf(request.getTargetAccountId()), Money.of(request.getAmount()));
 
         ctx.header("Location", String.format("/transfers/%s", transferId.getValue()));
-        ctx.json(new TransferIdResponse(transferId.getValue()));
-        ctx.status(HttpStatus.CREATED_201);
+        if (waitMs == 0) {
+            ctx.json(new TransferIdResponse(transferId.getValue()));
+            ctx.status(HttpStatus.CREATED_201);
+            return;
+        }
+
+        // response is written when the future completes, no request thread waits for the transfer
+        CompletableFuture<Object> response = transferService.awaitCompletion(transferId, waitMs).thenApplyAsync(transfer -> {
+            if (transfer == null) {
+                ctx.status(HttpStatus.ACCEPTED_202);
+                return new TransferIdResponse(transferId.getValue());
+            }
+            ctx.status(HttpStatus.CREATED_201);
+            return toTransferResponse(transfer);
+        }, responseWriters);
+        ctx.json(response);
+    }
+
+    @OpenApi(
+            summary = "Create batch of transfers",
+            path = "/transfers/batch",
+            method = HttpMethod.POST,
+            tags = {"Transfer"},
+            requestBody = @OpenApiRequestBody(content = {@OpenApiContent(from = NewTransferRequest.class, isArray = true)}),
+            responses = {
+                    @OpenApiResponse(status = "200", content = {@OpenApiContent(from = BatchItemResponse.class, isArray = true)}),
+                    @OpenApiResponse(status = "400", content = {@OpenApiContent(from = ErrorResponse.class)})
+            }
+    )
+    public void createNewTransfers(Context ctx) {
+        List<BatchResult<NewTransferRequest>> requests = validator.validateNewTransferBatchRequest(ctx);
+        List<NewTransfer> transfers = requests.stream()
+                .filter(BatchResult::isSuccess)
+                .map(request -> NewTransfer.builder()
+                        .withSourceId(AccountId.valueOf(request.getValue().getSourceAccountId()))
+                        .withTargetId(AccountId.valueOf(request.getValue().getTargetAccountId()))
+                        .withAmount(Money.of(request.getValue().getAmount()))
+                        .build())
+                .collect(Collectors.toList());
+        ctx.json(BatchItems.toResponse(requests, transferService.createNew(transfers)));
+        ctx.status(HttpStatus.OK_200);
     }
 
     @OpenApi(
@@ -77,26 +165,264 @@ public class TransferController {
         ctx.status(HttpStatus.OK_200);
     }
 
+    @OpenApi(
+            summary = "Stream state changes of transfers",
+            description = "Server-sent events: current state of every transfer and then its state changes are sent "
+                    + "as 'transfer' events, the stream is closed when all transfers are DONE or ERROR, "
+                    + "or with 'timeout' event when they are not completed in time",
+            path = "/transfers/events",
+            method = HttpMethod.GET,
+            tags = {"Transfer"},
+            headers = {@OpenApiParam(name = "Accept", required = true, description = "text/event-stream")},
+            queryParams = {
+                    @OpenApiParam(name = "ids", required = true, description = "Comma separated transfer IDs"),
+                    @OpenApiParam(name = "timeout", type = Long.class, description = "The timeout in ms, 30000 by default")
+            },
+            responses = {
+                    @OpenApiResponse(status = "200", content = {@OpenApiContent(from = TransferResponse.class, type = "text/event-stream")}),
+                    @OpenApiResponse(status = "400", content = {@OpenApiContent(from = ErrorResponse.class)})
+            }
+    )
+    public void streamTransferEvents(Context ctx) {
+        Set<TransferId> transferIds = validator.validateTransferEventsRequest(ctx);
+        long timeoutMs = validator.validateEventsTimeout(ctx);
+
+        SseClient client = startEventStream(ctx);
+        TransferEventStream stream = new TransferEventStream(client, transferIds);
+        // connection is closed on a Jetty thread, stream state is changed only on the notification thread
+        client.onClose(() -> transferService.schedule(stream::close, 0));
+        stream.timeout = transferService.schedule(stream::onTimeout, timeoutMs);
+        transferService.subscribe(transferIds, stream);
+    }
+
     @OpenApi(
             summary = "Get all transfers",
+            description = "Without paging parameters all transfers are streamed as one array, "
+                    + "with limit or cursor one page of completed transfers is returned",
             path = "/transfers",
             method = HttpMethod.GET,
             tags = {"Transfer"},
+            queryParams = {
+                    @OpenApiParam(name = "limit", type = Integer.class, description = "The page size, 100 by default"),
+                    @OpenApiParam(name = "cursor", description = "The cursor returned with the previous page")
+            },
             responses = {
-                    @OpenApiResponse(status = "200", content = {@OpenApiContent(from = TransferResponse.class, isArray = true)})
+                    @OpenApiResponse(status = "200", content = {
+                            @OpenApiContent(from = TransferResponse.class, isArray = true),
+                            @OpenApiContent(from = TransferPageResponse.class)
+                    }),
+                    @OpenApiResponse(status = "400", content = {@OpenApiContent(from = ErrorResponse.class)})
             }
     )
     public void findAllTransfers(Context ctx) {
-        List<TransferResponse> response = transferService.findAll().stream()
+        if (validator.isPageRequest(ctx)) {
+            findTransfersPage(ctx);
+            return;
+        }
+
+        // transfers are written one by one, so memory use doesn't grow with the number of transfers
+        ctx.status(HttpStatus.OK_200);
+        ctx.contentType("application/json");
+        try (JsonGenerator generator = JavalinJackson.getObjectMapper().getFactory()
+                .createGenerator(ctx.res.getOutputStream())) {
+            generator.writeStartArray();
+            transferService.forEach(transfer -> {
+                try {
+                    generator.writeObject(toTransferResponse(transfer));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void findTransfersPage(Context ctx) {
+        PageRequest request = validator.validatePageRequest(ctx);
+        TransferPage page = transferService.findPage(request.getPosition(), request.getLimit());
+
+        replyWithPage(ctx, page);
+    }
+
+    @OpenApi(
+            summary = "Get transfers of account",
+            path = "/accounts/:accountId/transfers",
+            method = HttpMethod.GET,
+            pathParams = {@OpenApiParam(name = "accountId", description = "The account ID")},
+            queryParams = {
+                    @OpenApiParam(name = "state", description = "The transfer state"),
+                    @OpenApiParam(name = "direction", description = "INCOMING or OUTGOING"),
+                    @OpenApiParam(name = "limit", type = Integer.class, description = "The page size, 100 by default"),
+                    @OpenApiParam(name = "cursor", description = "The cursor returned with the previous page")
+            },
+            tags = {"Transfer"},
+            responses = {
+                    @OpenApiResponse(status = "200", content = {@OpenApiContent(from = TransferPageResponse.class)}),
+                    @OpenApiResponse(status = "400", content = {@OpenApiContent(from = ErrorResponse.class)}),
+                    @OpenApiResponse(status = "404", content = {@OpenApiContent(from = ErrorResponse.class)})
+            }
+    )
+    public void findAccountTransfers(Context ctx) {
+        AccountId accountId = validator.validateFindAccountTransfersRequest(ctx);
+        TransferState state = validator.validateStateFilter(ctx);
+        TransferDirection direction = validator.validateDirectionFilter(ctx);
+        PageRequest request = validator.validatePageRequest(ctx);
+        TransferPage page = transferService.findPageByAccount(accountId, state, direction,
+                request.getPosition(), request.getLimit());
+
+        replyWithPage(ctx, page);
+    }
+
+    private void replyWithPage(Context ctx, TransferPage page) {
+        List<TransferResponse> transfers = page.getTransfers().stream()
                 .map(this::toTransferResponse)
                 .collect(Collectors.toList());
-        ctx.json(response);
+        String nextCursor = page.hasMore() ? Cursor.encode(page.getNextPosition()) : null;
+        ctx.json(new TransferPageResponse(transfers, nextCursor));
         ctx.status(HttpStatus.OK_200);
     }
 
+    // the same as SseHandler of Javalin, which starts the stream only if Accept header is exactly text/event-stream,
+    // while Accept is already checked by the validator
+    private SseClient startEventStream(Context ctx) {
+        ctx.res.setStatus(HttpStatus.OK_200);
+        ctx.res.setCharacterEncoding("UTF-8");
+        ctx.res.setContentType("text/event-stream");
+        ctx.res.addHeader("Connection", "close");
+        ctx.res.addHeader("Cache-Control", "no-cache");
+        try {
+            ctx.res.flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        AsyncContext asyncContext = ctx.req.startAsync(ctx.req, ctx.res);
+        asyncContext.setTimeout(0);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                event.getAsyncContext().complete();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                event.getAsyncContext().complete();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        return new SseClient(ctx);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return JavalinJackson.getObjectMapper().writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private TransferResponse toTransferResponse(Transfer transfer) {
         return new TransferResponse(transfer.getId().getValue(),
                 transfer.getSourceId().getValue(), transfer.getTargetId().getValue(),
-                transfer.getAmount(), transfer.getState().name());
+                transfer.getAmount().toBigDecimal(), transfer.getState().name());
+    }
+
+    /**
+     * Events of one client. Its state is changed only on the notification thread of transfer service,
+     * events are written to the client in order by one response writer at a time.
+     */
+    private final class TransferEventStream implements Consumer<Transfer> {
+        private final SseClient client;
+        private final Set<TransferId> transferIds;
+        private final Map<TransferId, TransferState> states = new HashMap<>();
+        private final Queue<Runnable> writes = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingWrites = new AtomicInteger();
+        private int pending;
+        private boolean closed;
+        private volatile ScheduledFuture<?> timeout;
+
+        private TransferEventStream(SseClient client, Set<TransferId> transferIds) {
+            this.client = client;
+            this.transferIds = transferIds;
+            this.pending = transferIds.size();
+        }
+
+        @Override
+        public void accept(Transfer transfer) {
+            TransferState previous = states.get(transfer.getId());
+            // the same state can be delivered by the subscription and by the state change
+            if (closed || (previous != null && previous.ordinal() >= transfer.getState().ordinal())) {
+                return;
+            }
+            if (pendingWrites.get() >= MAX_PENDING_EVENTS) {
+                // client doesn't keep up, it's disconnected instead of buffering its events
+                close();
+                return;
+            }
+
+            states.put(transfer.getId(), transfer.getState());
+            String data = toJson(toTransferResponse(transfer));
+            write(() -> client.sendEvent("transfer", data));
+            if (isCompleted(transfer.getState()) && --pending == 0) {
+                close();
+            }
+        }
+
+        private void onTimeout() {
+            if (!closed) {
+                String data = toJson(new ErrorResponse("Transfers are not completed in time"));
+                write(() -> client.sendEvent("timeout", data));
+                close();
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            transferService.unsubscribe(transferIds, this);
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            write(() -> {
+                try {
+                    client.ctx.req.getAsyncContext().complete();
+                } catch (IllegalStateException e) {
+                    // connection is already closed
+                }
+            });
+        }
+
+        private void write(Runnable write) {
+            writes.add(write);
+            if (pendingWrites.getAndIncrement() == 0) {
+                responseWriters.execute(this::drainWrites);
+            }
+        }
+
+        private void drainWrites() {
+            do {
+                try {
+                    writes.poll().run();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to write transfer event", e);
+                }
+            } while (pendingWrites.decrementAndGet() != 0);
+        }
+
+        private boolean isCompleted(TransferState state) {
+            return state == TransferState.DONE || state == TransferState.ERROR;
+        }
     }
 }
@@ -0,0 +1,54 @@
+package com.demo.api.transfer.controller;
+
+import com.demo.common.BootstrapConfig;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed number of threads which write responses completed by the notification thread of transfer service,
+ * so a client which doesn't read holds up only writes queued behind it, not the notifications.
+ * Threads are started on first write and stopped together with the server.
+ */
+@Singleton
+public class TransferResponseWriters implements Executor {
+    private final ExecutorService executor;
+
+    @Inject
+    public TransferResponseWriters(BootstrapConfig config) {
+        Objects.requireNonNull(config, "Config must be provided");
+        AtomicInteger counter = new AtomicInteger();
+        // every event stream has at most one queued drain of its writes, every waiting request one write
+        this.executor = new ThreadPoolExecutor(config.getResponseWriterThreads(), config.getResponseWriterThreads(),
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "transfer-response-writer-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void execute(Runnable write) {
+        executor.execute(write);
+    }
+
+    public void stop() {
+        executor.shutdown();
+        try {
+            // connections are closed by then, so pending writes fail fast
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
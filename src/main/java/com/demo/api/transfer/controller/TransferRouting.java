@@ -23,7 +23,11 @@ class TransferRouting extends Routing<TransferController> {
         app.routes(() -> path("transfers", () -> {
             get(ctx -> getController().findAllTransfers(ctx));
             post(ctx -> getController().createNewTransfer(ctx));
+            path("batch", () -> post(ctx -> getController().createNewTransfers(ctx)));
+            path("events", () -> get(ctx -> getController().streamTransferEvents(ctx)));
             path(":transferId", () -> get(ctx -> getController().findTransferById(ctx)));
         }));
+        app.routes(() -> path("accounts/:accountId/transfers",
+                () -> get(ctx -> getController().findAccountTransfers(ctx))));
     }
 }
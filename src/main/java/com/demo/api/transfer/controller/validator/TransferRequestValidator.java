@@ -1,17 +1,89 @@
 package com.demo.api.transfer.controller.validator;
 
+import com.demo.api.account.model.AccountId;
+import com.demo.api.transfer.model.TransferDirection;
 import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
 import com.demo.api.transfer.dto.NewTransferRequest;
+import com.demo.api.common.BatchItems;
+import com.demo.api.common.Cursor;
+import com.demo.api.common.PageRequest;
 import com.demo.api.exception.InvalidDataException;
+import com.demo.api.model.BatchResult;
+import com.demo.api.model.Money;
 import com.google.inject.Singleton;
 import io.javalin.http.Context;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 @Singleton
 public class TransferRequestValidator {
+    static final int MAX_BATCH_SIZE = 10_000;
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1_000;
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final int MAX_SUBSCRIBED_TRANSFERS = 1_000;
+    static final long DEFAULT_EVENTS_TIMEOUT_MS = 30_000;
+    static final long MAX_EVENTS_TIMEOUT_MS = 300_000;
+    static final String EVENT_STREAM = "text/event-stream";
+    static final long MAX_WAIT_MS = 30_000;
+
     public NewTransferRequest validateNewTransferRequest(Context ctx) {
-        NewTransferRequest request = ctx.bodyAsClass(NewTransferRequest.class);
+        return validate(ctx.bodyAsClass(NewTransferRequest.class));
+    }
+
+    public String validateIdempotencyKey(Context ctx) {
+        String key = ctx.header(IDEMPOTENCY_KEY_HEADER);
+        if (key == null) {
+            return null;
+        }
+        if (key.isEmpty() || key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new InvalidDataException(String.format("%s must be between 1 and %d characters",
+                    IDEMPOTENCY_KEY_HEADER, MAX_IDEMPOTENCY_KEY_LENGTH));
+        }
+        return key;
+    }
+
+    public long validateWait(Context ctx) {
+        String waitParam = ctx.queryParam("wait");
+        if (waitParam == null) {
+            return 0;
+        }
+
+        long wait;
+        try {
+            wait = Long.parseLong(waitParam);
+        } catch (NumberFormatException e) {
+            throw new InvalidDataException("Wait must be a number");
+        }
+        if (wait < 0 || wait > MAX_WAIT_MS) {
+            throw new InvalidDataException(String.format("Wait must be between 0 and %d", MAX_WAIT_MS));
+        }
+        return wait;
+    }
+
+    public List<BatchResult<NewTransferRequest>> validateNewTransferBatchRequest(Context ctx) {
+        NewTransferRequest[] requests = ctx.bodyAsClass(NewTransferRequest[].class);
+        if (requests == null || requests.length == 0) {
+            throw new InvalidDataException("Transfers must be provided");
+        }
+        if (requests.length > MAX_BATCH_SIZE) {
+            throw new InvalidDataException(String.format("At most %d transfers can be submitted at once", MAX_BATCH_SIZE));
+        }
+
+        return BatchItems.validateEach(requests, this::validate);
+    }
+
+    private NewTransferRequest validate(NewTransferRequest request) {
+        if (request == null) {
+            throw new InvalidDataException("Transfer must be provided");
+        }
+
         String sourceAccountId = request.getSourceAccountId();
         if (sourceAccountId == null) {
             throw new InvalidDataException("Source account must be provided");
@@ -29,6 +101,12 @@ public class TransferRequestValidator {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new InvalidDataException("Insufficient transfer amount");
         }
+        if (!hasMoneyScale(amount)) {
+            throw new InvalidDataException(String.format("Amount must have at most %d decimal places", Money.SCALE));
+        }
+        if (amount.compareTo(Money.MAX.toBigDecimal()) > 0) {
+            throw new InvalidDataException(String.format("Amount must not exceed %s", Money.MAX));
+        }
 
         return request;
     }
@@ -41,4 +119,141 @@ public class TransferRequestValidator {
 
         return TransferId.valueOf(transferId);
     }
+
+    public boolean isPageRequest(Context ctx) {
+        return ctx.queryParam("limit") != null || ctx.queryParam("cursor") != null;
+    }
+
+    public PageRequest validatePageRequest(Context ctx) {
+        String cursor = ctx.queryParam("cursor");
+        long position = cursor == null || cursor.isEmpty() ? 0 : Cursor.decode(cursor);
+
+        String limitParam = ctx.queryParam("limit");
+        int limit = DEFAULT_PAGE_SIZE;
+        if (limitParam != null) {
+            try {
+                limit = Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                throw new InvalidDataException("Limit must be a number");
+            }
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidDataException(String.format("Limit must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+
+        return new PageRequest(position, limit);
+    }
+
+    public Set<TransferId> validateTransferEventsRequest(Context ctx) {
+        if (!acceptsEventStream(ctx.header("Accept"))) {
+            throw new InvalidDataException(String.format("Accept header must be %s", EVENT_STREAM));
+        }
+
+        String ids = ctx.queryParam("ids");
+        if (ids == null || ids.isEmpty()) {
+            throw new InvalidDataException("Transfer ids must be provided");
+        }
+        Set<TransferId> transferIds = new LinkedHashSet<>();
+        for (String id : ids.split(",")) {
+            if (!id.isEmpty()) {
+                transferIds.add(TransferId.valueOf(id));
+            }
+        }
+        if (transferIds.isEmpty() || transferIds.size() > MAX_SUBSCRIBED_TRANSFERS) {
+            throw new InvalidDataException(String.format("Between 1 and %d transfer ids must be provided",
+                    MAX_SUBSCRIBED_TRANSFERS));
+        }
+
+        return transferIds;
+    }
+
+    public long validateEventsTimeout(Context ctx) {
+        String timeoutParam = ctx.queryParam("timeout");
+        if (timeoutParam == null) {
+            return DEFAULT_EVENTS_TIMEOUT_MS;
+        }
+
+        long timeout;
+        try {
+            timeout = Long.parseLong(timeoutParam);
+        } catch (NumberFormatException e) {
+            throw new InvalidDataException("Timeout must be a number");
+        }
+        if (timeout <= 0 || timeout > MAX_EVENTS_TIMEOUT_MS) {
+            throw new InvalidDataException(String.format("Timeout must be between 1 and %d", MAX_EVENTS_TIMEOUT_MS));
+        }
+        return timeout;
+    }
+
+    public AccountId validateFindAccountTransfersRequest(Context ctx) {
+        String accountId = ctx.pathParam("accountId", String.class).getValue();
+        if (accountId == null) {
+            throw new InvalidDataException("Account id must be provided");
+        }
+
+        return AccountId.valueOf(accountId);
+    }
+
+    public TransferState validateStateFilter(Context ctx) {
+        String state = ctx.queryParam("state");
+        if (state == null || state.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return TransferState.valueOf(state.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataException(String.format("Unknown transfer state %s", state));
+        }
+    }
+
+    public TransferDirection validateDirectionFilter(Context ctx) {
+        String direction = ctx.queryParam("direction");
+        if (direction == null || direction.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return TransferDirection.valueOf(direction.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataException(String.format("Unknown transfer direction %s", direction));
+        }
+    }
+
+    private boolean hasMoneyScale(BigDecimal amount) {
+        return amount.stripTrailingZeros().scale() <= Money.SCALE;
+    }
+
+    // Accept is a list of media ranges with parameters, e.g. "text/event-stream; charset=utf-8, */*",
+    // the event stream must be listed explicitly and not with q=0
+    private static boolean acceptsEventStream(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        for (String mediaRange : accept.split(",")) {
+            String[] parts = mediaRange.split(";");
+            if (!EVENT_STREAM.equalsIgnoreCase(parts[0].trim())) {
+                continue;
+            }
+            boolean rejected = false;
+            for (int i = 1; i < parts.length; i++) {
+                String[] parameter = parts[i].split("=", 2);
+                if (parameter.length == 2 && "q".equalsIgnoreCase(parameter[0].trim())) {
+                    rejected = isZeroQuality(parameter[1].trim());
+                }
+            }
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String quality) {
+        try {
+            return Double.parseDouble(quality) <= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
 }
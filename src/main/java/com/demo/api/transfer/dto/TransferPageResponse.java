@@ -0,0 +1,32 @@
+package com.demo.api.transfer.dto;
+
+import java.util.List;
+
+public class TransferPageResponse {
+    private List<TransferResponse> transfers;
+    private String nextCursor;
+
+    public TransferPageResponse() {
+    }
+
+    public TransferPageResponse(List<TransferResponse> transfers, String nextCursor) {
+        this.transfers = transfers;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TransferResponse> getTransfers() {
+        return transfers;
+    }
+
+    public void setTransfers(List<TransferResponse> transfers) {
+        this.transfers = transfers;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
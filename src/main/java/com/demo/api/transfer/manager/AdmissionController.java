@@ -0,0 +1,135 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.metrics.MetricsRegistry;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.common.BootstrapConfig;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits number of transfers which are submitted but not completed yet (AIMD). The limit grows by one
+ * every limit completions while end-to-end latency is within the target and is cut by 10% at most once
+ * per target interval when it's not, so transfers are rejected before the event store is full.
+ * While latency is healthy a submission waits a bit for a free permit instead of being rejected.
+ */
+@Singleton
+public class AdmissionController {
+    private static final double INITIAL_LIMIT = 16;
+    private static final double DECREASE_FACTOR = 0.9;
+    // weight of a new sample in smoothed latency
+    private static final double SMOOTHING = 0.1;
+    private static final long WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final long targetNanos;
+    private final long maxWaitNanos;
+    private final double maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // samples are skipped while another thread updates the limit
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    private volatile double limit;
+    private volatile double smoothedLatencyNanos;
+    private long lastDecreaseNanos;
+
+    @Inject
+    public AdmissionController(BootstrapConfig config, MetricsRegistry registry) {
+        Objects.requireNonNull(config, "Config must be provided");
+        Objects.requireNonNull(registry, "Metrics registry must be provided");
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(config.getAdmissionLatencyTargetMs());
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(config.getAdmissionMaxWaitMs());
+        this.maxLimit = config.getBufferSize();
+        this.limit = Math.min(INITIAL_LIMIT, maxLimit);
+        this.lastDecreaseNanos = System.nanoTime() - targetNanos;
+        registry.gauge("transfer_admission_limit", "Allowed number of transfers in the pipeline", () -> (long) limit);
+        registry.gauge("transfer_admission_in_flight", "Admitted transfers which are not completed yet", inFlight::get);
+    }
+
+    public boolean isEnabled() {
+        return targetNanos > 0;
+    }
+
+    /**
+     * @return number of admitted transfers, at most the requested one
+     */
+    int tryAcquire(int permits) {
+        if (!isEnabled()) {
+            return permits;
+        }
+
+        int acquired = acquire(permits);
+        if (acquired > 0 || maxWaitNanos == 0 || !isHealthy()) {
+            return acquired;
+        }
+
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (acquired == 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(WAIT_PARK_NANOS);
+            acquired = acquire(permits);
+        }
+        return acquired;
+    }
+
+    void release(int permits) {
+        if (isEnabled() && permits > 0) {
+            inFlight.addAndGet(-permits);
+        }
+    }
+
+    void onCompleted(TransferEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        release(1);
+        if (event.getCreatedAtNanos() == 0 || !sampleLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            long latency = now - event.getCreatedAtNanos();
+            smoothedLatencyNanos += SMOOTHING * (latency - smoothedLatencyNanos);
+            double currentLimit = limit;
+            if (latency <= targetNanos) {
+                limit = Math.min(maxLimit, currentLimit + 1 / currentLimit);
+            } else if (now - lastDecreaseNanos >= targetNanos) {
+                limit = Math.max(1, currentLimit * DECREASE_FACTOR);
+                lastDecreaseNanos = now;
+            }
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    /**
+     * Transfers which were admitted but will never complete (e.g. dropped on stop) free their permits.
+     */
+    void reset() {
+        inFlight.set(0);
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    private boolean isHealthy() {
+        return smoothedLatencyNanos < targetNanos / 2.0;
+    }
+
+    private int acquire(int permits) {
+        while (true) {
+            int current = inFlight.get();
+            int available = Math.min(permits, (int) limit - current);
+            if (available <= 0) {
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + available)) {
+                return available;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.journal.Journal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Runs completions of transfers once their final journal records are durable.
+ * Completions which are queued meanwhile share one journal sync, so pipeline threads never wait for the disk.
+ */
+class CompletionCommitter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompletionCommitter.class);
+    private static final int MAX_GROUP_SIZE = 4096;
+
+    private final Journal journal;
+    private final BlockingQueue<Completion> completions = new LinkedBlockingQueue<>();
+    private Thread committer;
+
+    CompletionCommitter(Journal journal) {
+        this.journal = Objects.requireNonNull(journal, "Journal must be provided");
+    }
+
+    /**
+     * @param position   position right after the final record of the transfer
+     * @param onDurable  completion which is run when the record is durable
+     */
+    void submit(long position, Runnable onDurable) {
+        startIfNeeded();
+        completions.add(new Completion(position, onDurable));
+    }
+
+    private synchronized void startIfNeeded() {
+        if (committer != null) {
+            return;
+        }
+
+        committer = new Thread(this::commitLoop, "transfer-completion-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    private void commitLoop() {
+        List<Completion> group = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                group.add(completions.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            completions.drainTo(group, MAX_GROUP_SIZE - 1);
+
+            long position = 0;
+            for (Completion completion : group) {
+                position = Math.max(position, completion.position);
+            }
+            try {
+                journal.sync(position);
+            } catch (RuntimeException e) {
+                LOGGER.error(String.format("Fail to sync journal up to position %s", position), e);
+            }
+            for (Completion completion : group) {
+                try {
+                    completion.onDurable.run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Fail to complete transfer", e);
+                }
+            }
+            group.clear();
+        }
+    }
+
+    private static final class Completion {
+        private final long position;
+        private final Runnable onDurable;
+
+        private Completion(long position, Runnable onDurable) {
+            this.position = position;
+            this.onDurable = onDurable;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.metrics.MetricsRegistry;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.store.EventStore;
+import com.demo.common.BootstrapConfig;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fill level of the event store and number of accepted and rejected (too busy) transfer submissions.
+ * Rejection rate of the last interval is logged every metrics log interval, the rejected ratio gauge
+ * is computed on its own windows whether logging is enabled or not.
+ */
+@Singleton
+public class EventStoreMetrics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventStoreMetrics.class);
+    private static final long RATIO_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final EventStore<TransferEvent> eventStore;
+    private final long logIntervalMs;
+    private final LongAdder accepted;
+    private final LongAdder rejected;
+    private final long ratioWindowNanos;
+    private long lastAccepted;
+    private long lastRejected;
+    private long windowStart = System.nanoTime();
+    private long windowAccepted;
+    private long windowRejected;
+    private double windowRejectionRatio;
+    private ScheduledExecutorService scheduler;
+
+    @Inject
+    public EventStoreMetrics(BootstrapConfig config, EventStore<TransferEvent> eventStore, MetricsRegistry registry) {
+        this(config, eventStore, registry, RATIO_WINDOW_NANOS);
+    }
+
+    EventStoreMetrics(BootstrapConfig config, EventStore<TransferEvent> eventStore, MetricsRegistry registry,
+                      long ratioWindowNanos) {
+        Objects.requireNonNull(config, "Config must be provided");
+        Objects.requireNonNull(registry, "Metrics registry must be provided");
+        this.eventStore = Objects.requireNonNull(eventStore, "Event store must be provided");
+        this.logIntervalMs = config.getMetricsLogIntervalMs();
+        this.ratioWindowNanos = ratioWindowNanos;
+        this.accepted = registry.counter("transfer_submissions_total", "Transfer submissions", "result", "accepted");
+        this.rejected = registry.counter("transfer_submissions_total", "Transfer submissions", "result", "rejected");
+        registry.gauge("transfer_event_store_size", "Transfers waiting in the event store", eventStore::size);
+        registry.gauge("transfer_event_store_capacity", "Capacity of the event store", eventStore::capacity);
+        registry.gauge("transfer_submissions_rejected_ratio",
+                "Share of rejected transfer submissions in the last window of at least 10 seconds", this::rejectionRatio);
+    }
+
+    public void start() {
+        if (logIntervalMs <= 0) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-store-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::logScheduled, logIntervalMs, logIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    void onSubmitted(int acceptedCount, int rejectedCount) {
+        if (acceptedCount > 0) {
+            accepted.add(acceptedCount);
+        }
+        if (rejectedCount > 0) {
+            rejected.add(rejectedCount);
+        }
+    }
+
+    synchronized String log() {
+        long totalAccepted = accepted.sum();
+        long totalRejected = rejected.sum();
+        long intervalAccepted = totalAccepted - lastAccepted;
+        long intervalRejected = totalRejected - lastRejected;
+        lastAccepted = totalAccepted;
+        lastRejected = totalRejected;
+
+        return String.format(Locale.ROOT, "Event store %d/%d, last interval: accepted %d, rejected %d (%.2f%%)",
+                eventStore.size(), eventStore.capacity(), intervalAccepted, intervalRejected,
+                ratio(intervalAccepted, intervalRejected) * 100);
+    }
+
+    /**
+     * Window is closed by the first read after it's over, the ratio of the closed window is reported until then.
+     */
+    synchronized double rejectionRatio() {
+        long now = System.nanoTime();
+        if (now - windowStart >= ratioWindowNanos) {
+            long totalAccepted = accepted.sum();
+            long totalRejected = rejected.sum();
+            windowRejectionRatio = ratio(totalAccepted - windowAccepted, totalRejected - windowRejected);
+            windowAccepted = totalAccepted;
+            windowRejected = totalRejected;
+            windowStart = now;
+        }
+        return windowRejectionRatio;
+    }
+
+    private static double ratio(long acceptedCount, long rejectedCount) {
+        long submitted = acceptedCount + rejectedCount;
+        return submitted == 0 ? 0 : (double) rejectedCount / submitted;
+    }
+
+    private void logScheduled() {
+        try {
+            LOGGER.info(log());
+        } catch (RuntimeException e) {
+            LOGGER.error("Fail to log event store metrics", e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.TransferId;
+import com.google.inject.Singleton;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Latest state of transfers which are processed by the pipeline but not yet stored in repository.
+ * Stage updates are single volatile writes, no map update and no new transfer per stage.
+ */
+@Singleton
+public class InFlightTransfers {
+    private final Map<TransferId, InFlightTransfer> transfers = new ConcurrentHashMap<>();
+    // final states which are journaled but not durable yet, they are seen only by snapshots
+    private final Map<TransferId, Transfer> completing = new ConcurrentHashMap<>();
+
+    public void register(TransferEvent event) {
+        transfers.put(event.getTransferId(), new InFlightTransfer(event));
+    }
+
+    public void update(TransferEvent event) {
+        InFlightTransfer transfer = transfers.get(event.getTransferId());
+        if (transfer != null) {
+            transfer.current = event;
+        }
+    }
+
+    public void complete(TransferEvent event) {
+        completing.put(event.getTransferId(), event.asTransfer());
+    }
+
+    public void release(TransferId transferId) {
+        transfers.remove(transferId);
+        completing.remove(transferId);
+    }
+
+    public Transfer findCompletingById(TransferId transferId) {
+        Objects.requireNonNull(transferId, "Transfer id must be provided");
+
+        return completing.isEmpty() ? null : completing.get(transferId);
+    }
+
+    public Collection<Transfer> findAllCompleting() {
+        return completing.values();
+    }
+
+    public Transfer findById(TransferId transferId) {
+        Objects.requireNonNull(transferId, "Transfer id must be provided");
+
+        InFlightTransfer transfer = transfers.get(transferId);
+        return transfer == null ? null : transfer.current.asTransfer();
+    }
+
+    public Collection<Transfer> findAll() {
+        return transfers.values().stream()
+                .map(transfer -> transfer.current.asTransfer())
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return transfers.size();
+    }
+
+    private static final class InFlightTransfer {
+        private volatile TransferEvent current;
+
+        private InFlightTransfer(TransferEvent current) {
+            this.current = current;
+        }
+    }
+}
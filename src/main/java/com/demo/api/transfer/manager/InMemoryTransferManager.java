@@ -1,7 +1,17 @@
 package com.demo.api.transfer.manager;
 
 import com.demo.api.account.model.Account;
+import com.demo.api.account.model.AccountId;
 import com.demo.api.account.repository.AccountRepository;
+import com.demo.api.journal.Journal;
+import com.demo.api.journal.JournalFlushPolicy;
+import com.demo.api.journal.JournalListener;
+import com.demo.api.model.Money;
+import com.demo.api.snapshot.SnapshotBarrier;
+import com.demo.api.snapshot.SnapshotListener;
+import com.demo.api.snapshot.SnapshotManager;
+import com.demo.api.transfer.manager.PipelineMetrics.Stage;
+import com.demo.api.transfer.model.TransferId;
 import com.demo.api.transfer.model.TransferEvent;
 import com.demo.api.transfer.model.TransferState;
 import com.demo.api.transfer.repository.TransferRepository;
@@ -14,8 +24,15 @@ import com.google.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Singleton
 public class InMemoryTransferManager implements TransferManager {
@@ -25,7 +42,21 @@ public class InMemoryTransferManager implements TransferManager {
     private final AccountRepository accountRepository;
     private final DebitTransferValidator transferValidator;
     private final EventStore<TransferEvent> eventSource;
+    private final InFlightTransfers inFlightTransfers;
+    private final Journal journal;
+    private final SnapshotManager snapshotManager;
+    private final SnapshotBarrier snapshotBarrier;
+    private final PipelineMetrics metrics;
+    private final EventStoreMetrics eventStoreMetrics;
+    private final AdmissionController admissionController;
+    private final TransferSubscriptions subscriptions;
+    private final CompletionCommitter completionCommitter;
     private PipelineExecutor pipeline;
+    private Consumer<TransferEvent> completeTransferFn;
+    private Set<TransferState> checkpoints;
+    private boolean trackInFlight;
+    private boolean groupCommit;
+    private boolean recovered;
     @Inject
     private BootstrapConfig config;
 
@@ -33,29 +64,78 @@ public class InMemoryTransferManager implements TransferManager {
     public InMemoryTransferManager(TransferRepository transferRepository,
                                    AccountRepository accountRepository,
                                    DebitTransferValidator transferValidator,
-                                   EventStore<TransferEvent> eventSource) {
+                                   EventStore<TransferEvent> eventSource,
+                                   InFlightTransfers inFlightTransfers,
+                                   Journal journal,
+                                   SnapshotManager snapshotManager,
+                                   SnapshotBarrier snapshotBarrier,
+                                   PipelineMetrics metrics,
+                                   EventStoreMetrics eventStoreMetrics,
+                                   AdmissionController admissionController,
+                                   TransferSubscriptions subscriptions) {
         this.transferRepository = Objects.requireNonNull(transferRepository, "Transfer repository must be provided");
         this.accountRepository = Objects.requireNonNull(accountRepository, "Account repository must be provided");
         this.transferValidator = Objects.requireNonNull(transferValidator, "Transfer validator must be provided");
         this.eventSource = Objects.requireNonNull(eventSource, "Event source must be provided");
+        this.inFlightTransfers = Objects.requireNonNull(inFlightTransfers, "In-flight transfers must be provided");
+        this.journal = Objects.requireNonNull(journal, "Journal must be provided");
+        this.snapshotManager = Objects.requireNonNull(snapshotManager, "Snapshot manager must be provided");
+        this.snapshotBarrier = Objects.requireNonNull(snapshotBarrier, "Snapshot barrier must be provided");
+        this.metrics = Objects.requireNonNull(metrics, "Pipeline metrics must be provided");
+        this.eventStoreMetrics = Objects.requireNonNull(eventStoreMetrics, "Event store metrics must be provided");
+        this.admissionController = Objects.requireNonNull(admissionController, "Admission controller must be provided");
+        this.subscriptions = Objects.requireNonNull(subscriptions, "Transfer subscriptions must be provided");
+        this.completionCommitter = new CompletionCommitter(journal);
     }
 
+    // submitted transfer is journaled only when it's registered by the pipeline, see scope of the journal in README
     @Override
     public boolean submitEvent(TransferEvent event) {
-        return eventSource.put(event);
+        boolean submitted = admissionController.tryAcquire(1) == 1;
+        if (submitted) {
+            submitted = eventSource.put(event);
+            if (!submitted) {
+                admissionController.release(1);
+            }
+        }
+        eventStoreMetrics.onSubmitted(submitted ? 1 : 0, submitted ? 0 : 1);
+        return submitted;
+    }
+
+    @Override
+    public int submitEvents(List<TransferEvent> events) {
+        int admitted = admissionController.tryAcquire(events.size());
+        int submitted = admitted == 0 ? 0
+                : eventSource.putAll(admitted == events.size() ? events : events.subList(0, admitted));
+        admissionController.release(admitted - submitted);
+        eventStoreMetrics.onSubmitted(submitted, events.size() - submitted);
+        return submitted;
     }
 
     @Override
     public void start() {
+        checkpoints = EnumSet.copyOf(config.getTransferCheckpoints());
+        // intermediate states which are not stored in repository are tracked in memory
+        trackInFlight = !checkpoints.containsAll(EnumSet.range(TransferState.PENDING, TransferState.TARGET_DEPOSITED));
+        if (!recovered) {
+            // recovered transfers are completed before the pipeline starts, nobody sees them until then
+            groupCommit = false;
+            recover();
+            recovered = true;
+        }
+        groupCommit = config.getJournalFlushPolicy() == JournalFlushPolicy.GROUP_COMMIT;
+        completeTransferFn = metrics.timedConsumer(Stage.COMPLETE,
+                event -> onCompleteTransfer(event, admissionController::onCompleted));
         pipeline = PipelineExecutor.builder()
                 .withEventSource(eventSource)
                 .withConfig(config)
-                .withRegisterTransferFn(this::onRegisterTransfer)
-                .withValidateTransferFn(this::onValidateTransfer)
+                .withRegisterTransferFn(metrics.timed(Stage.REGISTER, this::onRegisterTransfer))
+                .withValidateTransferFn(metrics.timed(Stage.VALIDATE, this::onValidateTransfer))
                 .withIsValidTransferFn(this::isValidTransfer)
-                .withWithdrawSourceFn(this::onWithdrawSource)
-                .withDepositTargetFn(this::onDepositTarget)
-                .withCompleteTransferFn(this::onCompleteTransfer)
+                .withWithdrawSourceFn(metrics.timed(Stage.WITHDRAW, this::onWithdrawSource))
+                .withDepositTargetFn(metrics.timed(Stage.DEPOSIT, this::onDepositTarget))
+                .withNetTransfersFn(this::onNetTransfers)
+                .withCompleteTransferFn(this::completeTransfer)
                 .withErrorHandler(this::onError)
                 .build();
         pipeline.start();
@@ -65,20 +145,31 @@ public class InMemoryTransferManager implements TransferManager {
     public void stop() {
         pipeline.stop();
         eventSource.clear();
+        admissionController.reset();
     }
 
     private TransferEvent onRegisterTransfer(TransferEvent event) {
-        LOGGER.debug(String.format("%s --- onRegisterTransfer: %s", Thread.currentThread().getName(), event));
+        LOGGER.debug("{} --- onRegisterTransfer: {}", Thread.currentThread().getName(), event);
+        metrics.onTaken(event);
         TransferEvent newState = TransferEvent.builder().from(event)
                 .withState(TransferState.PENDING)
                 .withDetails("Transfer processing")
                 .build();
-        transferRepository.save(newState.getTransferId(), newState.asTransfer());
+        snapshotBarrier.enter();
+        try {
+            snapshotManager.preserveTransfer(newState.getTransferId());
+            if (trackInFlight) {
+                inFlightTransfers.register(newState);
+            }
+            saveState(newState);
+        } finally {
+            snapshotBarrier.exit();
+        }
         return newState;
     }
 
     private TransferEvent onValidateTransfer(TransferEvent event) {
-        LOGGER.debug(String.format("%s --- onValidateTransfer: %s", Thread.currentThread().getName(), event));
+        LOGGER.debug("{} --- onValidateTransfer: {}", Thread.currentThread().getName(), event);
         TransferEvent newState;
         try {
             transferValidator.validate(event.getSourceId(), event.getTargetId(), event.getAmount());
@@ -93,7 +184,13 @@ public class InMemoryTransferManager implements TransferManager {
                     .build();
             return newState;
         }
-        transferRepository.save(newState.getTransferId(), newState.asTransfer());
+        snapshotBarrier.enter();
+        try {
+            snapshotManager.preserveTransfer(newState.getTransferId());
+            saveState(newState);
+        } finally {
+            snapshotBarrier.exit();
+        }
         return newState;
     }
 
@@ -102,56 +199,327 @@ public class InMemoryTransferManager implements TransferManager {
     }
 
     private TransferEvent onWithdrawSource(TransferEvent event) {
-        LOGGER.debug(String.format("%s --- onWithdrawSource: %s", Thread.currentThread().getName(), event));
-        accountRepository.executeUpdate(event.getSourceId(), (accountId, prevAccount) -> {
-            BigDecimal newBalance = prevAccount.getBalance().subtract(event.getAmount());
-            return Account.builder()
-                    .withId(accountId)
-                    .withBalance(newBalance)
-                    .build();
-        });
-
+        LOGGER.debug("{} --- onWithdrawSource: {}", Thread.currentThread().getName(), event);
         TransferEvent newState = TransferEvent.builder().from(event)
                 .withState(TransferState.SOURCE_WITHDRAWN)
                 .withDetails("Source account balance updated")
                 .build();
-        transferRepository.save(newState.getTransferId(), newState.asTransfer());
+        snapshotBarrier.enter();
+        try {
+            snapshotManager.preserveAccount(event.getSourceId());
+            snapshotManager.preserveTransfer(event.getTransferId());
+            accountRepository.withdraw(event.getSourceId(), event.getAmount());
+            saveState(newState);
+        } finally {
+            snapshotBarrier.exit();
+        }
         return newState;
     }
 
     private TransferEvent onDepositTarget(TransferEvent event) {
-        LOGGER.debug(String.format("%s --- onDepositTarget: %s", Thread.currentThread().getName(), event));
-        accountRepository.executeUpdate(event.getTargetId(), (accountId, prevAccount) -> {
-            BigDecimal newBalance = prevAccount.getBalance().add(event.getAmount());
-            return Account.builder()
-                    .withId(accountId)
-                    .withBalance(newBalance)
-                    .build();
-        });
-
+        LOGGER.debug("{} --- onDepositTarget: {}", Thread.currentThread().getName(), event);
         TransferEvent newState = TransferEvent.builder().from(event)
                 .withState(TransferState.TARGET_DEPOSITED)
                 .withDetails("Target account balance updated")
                 .build();
-        transferRepository.save(newState.getTransferId(), newState.asTransfer());
+        snapshotBarrier.enter();
+        try {
+            snapshotManager.preserveAccount(event.getTargetId());
+            snapshotManager.preserveTransfer(event.getTransferId());
+            try {
+                accountRepository.deposit(event.getTargetId(), event.getAmount());
+            } catch (RuntimeException e) {
+                LOGGER.error(String.format("Fail to deposit transfer %s, money is returned to the source",
+                        event.getTransferId()), e);
+                // replay returns money of the failed transfer the same way, see recover()
+                snapshotManager.preserveAccount(event.getSourceId());
+                accountRepository.deposit(event.getSourceId(), event.getAmount());
+                return TransferEvent.builder().from(event)
+                        .withState(TransferState.ERROR)
+                        .withDetails("Target account balance can't hold transfer amount")
+                        .build();
+            }
+            saveState(newState);
+        } finally {
+            snapshotBarrier.exit();
+        }
         return newState;
     }
 
-    private void onCompleteTransfer(TransferEvent event) {
-        LOGGER.debug(String.format("%s --- onCompleteTransfer: %s", Thread.currentThread().getName(), event));
+    /**
+     * Settles batch of registered transfers with one balance update per account instead of two per transfer.
+     * Transfers are validated in order against balances which include earlier transfers of the batch,
+     * every transfer is still journaled as validated, withdrawn and deposited, so replay ends with the same balances.
+     */
+    private List<TransferEvent> onNetTransfers(List<TransferEvent> events) {
+        LOGGER.debug("{} --- onNetTransfers: {} transfers", Thread.currentThread().getName(), events.size());
+        List<TransferEvent> settledEvents = new ArrayList<>(events.size());
+        List<TransferEvent> acceptedEvents = new ArrayList<>(events.size());
+        Map<AccountId, Money> balances = new HashMap<>();
+        Map<AccountId, Money> deltas = new LinkedHashMap<>();
+        snapshotBarrier.enter();
+        try {
+            for (TransferEvent event : events) {
+                long startTime = System.nanoTime();
+                try {
+                    transferValidator.validate(event.getSourceId(), event.getTargetId(), event.getAmount(),
+                            source -> balances.computeIfAbsent(source.getId(), id -> source.getBalance()));
+                    Money targetBalance = balances.computeIfAbsent(event.getTargetId(), this::findBalance);
+                    if (Long.MAX_VALUE - event.getAmount().getMinorUnits() < targetBalance.getMinorUnits()) {
+                        throw new InvalidDataException("Target account balance can't hold transfer amount");
+                    }
+                } catch (InvalidDataException e) {
+                    settledEvents.add(TransferEvent.builder().from(event)
+                            .withState(TransferState.ERROR)
+                            .withDetails(e.getMessage())
+                            .build());
+                    metrics.record(Stage.VALIDATE, startTime, 1);
+                    continue;
+                }
+
+                snapshotManager.preserveAccount(event.getSourceId());
+                snapshotManager.preserveAccount(event.getTargetId());
+                snapshotManager.preserveTransfer(event.getTransferId());
+                balances.put(event.getSourceId(), balances.get(event.getSourceId()).minus(event.getAmount()));
+                balances.put(event.getTargetId(), balances.get(event.getTargetId()).plus(event.getAmount()));
+                deltas.merge(event.getSourceId(), Money.ZERO.minus(event.getAmount()), Money::plus);
+                deltas.merge(event.getTargetId(), event.getAmount(), Money::plus);
+                acceptedEvents.add(event);
+                metrics.record(Stage.VALIDATE, startTime, 1);
+            }
+
+            // balances are updated before any state of the batch is saved, failed batch leaves neither behind
+            if (!applyDeltas(deltas, acceptedEvents.size())) {
+                for (TransferEvent event : acceptedEvents) {
+                    settledEvents.add(TransferEvent.builder().from(event)
+                            .withState(TransferState.ERROR)
+                            .withDetails("Transfer failed")
+                            .build());
+                }
+                return settledEvents;
+            }
+            for (TransferEvent event : acceptedEvents) {
+                TransferEvent validatedEvent = TransferEvent.builder().from(event)
+                        .withState(TransferState.VALIDATED)
+                        .withDetails("Transfer is valid")
+                        .build();
+                saveState(validatedEvent);
+                TransferEvent withdrawnEvent = TransferEvent.builder().from(validatedEvent)
+                        .withState(TransferState.SOURCE_WITHDRAWN)
+                        .withDetails("Source account balance updated")
+                        .build();
+                saveState(withdrawnEvent);
+                TransferEvent depositedEvent = TransferEvent.builder().from(withdrawnEvent)
+                        .withState(TransferState.TARGET_DEPOSITED)
+                        .withDetails("Target account balance updated")
+                        .build();
+                saveState(depositedEvent);
+                settledEvents.add(depositedEvent);
+            }
+        } finally {
+            snapshotBarrier.exit();
+        }
+        return settledEvents;
+    }
+
+    /**
+     * Withdraws negative deltas first, then deposits positive ones, every transfer of the batch spends
+     * the whole time of the step in the stage. If any update fails, updates applied so far are reverted.
+     *
+     * @return {@code true} if all deltas are applied, {@code false} if the batch is reverted
+     */
+    private boolean applyDeltas(Map<AccountId, Money> deltas, int transfers) {
+        List<Map.Entry<AccountId, Money>> appliedDeltas = new ArrayList<>(deltas.size());
+        try {
+            long startTime = System.nanoTime();
+            for (Map.Entry<AccountId, Money> delta : deltas.entrySet()) {
+                if (delta.getValue().isNegative()) {
+                    accountRepository.withdraw(delta.getKey(), Money.ZERO.minus(delta.getValue()));
+                    appliedDeltas.add(delta);
+                }
+            }
+            metrics.record(Stage.WITHDRAW, startTime, transfers);
+
+            startTime = System.nanoTime();
+            for (Map.Entry<AccountId, Money> delta : deltas.entrySet()) {
+                if (delta.getValue().isPositive()) {
+                    accountRepository.deposit(delta.getKey(), delta.getValue());
+                    appliedDeltas.add(delta);
+                }
+            }
+            metrics.record(Stage.DEPOSIT, startTime, transfers);
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.error(String.format("Fail to update balances of %s netted transfers, batch is reverted", transfers), e);
+            for (int i = appliedDeltas.size() - 1; i >= 0; i--) {
+                Map.Entry<AccountId, Money> delta = appliedDeltas.get(i);
+                if (delta.getValue().isNegative()) {
+                    accountRepository.deposit(delta.getKey(), Money.ZERO.minus(delta.getValue()));
+                } else {
+                    accountRepository.withdraw(delta.getKey(), delta.getValue());
+                }
+            }
+            return false;
+        }
+    }
+
+    private Money findBalance(AccountId accountId) {
+        return accountRepository.findById(accountId).getBalance();
+    }
+
+    private void completeTransfer(TransferEvent event) {
+        try {
+            completeTransferFn.accept(event);
+        } catch (RuntimeException e) {
+            // permit is released even if completion fails, otherwise admission slowly closes
+            admissionController.onCompleted(event);
+            throw e;
+        }
+    }
+
+    /**
+     * Final record is appended within the barrier, but the barrier is never held while the journal is synced:
+     * with group commit the final state is stored and published by the completion committer
+     * once the record is durable, many completions share one sync.
+     */
+    private void onCompleteTransfer(TransferEvent event, Consumer<TransferEvent> onStored) {
+        LOGGER.debug("{} --- onCompleteTransfer: {}", Thread.currentThread().getName(), event);
         TransferEvent newState;
         if (TransferState.TARGET_DEPOSITED == event.getState()) {
             newState = TransferEvent.builder().from(event)
                     .withState(TransferState.DONE)
                     .withDetails("Transfer processed")
                     .build();
+        } else if (TransferState.ERROR == event.getState()) {
+            newState = event;
         } else {
             newState = TransferEvent.builder().from(event)
                     .withState(TransferState.ERROR)
                     .withDetails(String.format("Transfer is not in a valid state: %s", event.getState()))
                     .build();
         }
-        transferRepository.save(newState.getTransferId(), newState.asTransfer());
+        snapshotBarrier.enter();
+        try {
+            snapshotManager.preserveTransfer(newState.getTransferId());
+            long position = journal.appendTransferStateChanged(newState);
+            if (groupCommit) {
+                // final state is visible only when it's durable, until then it's seen only by snapshots
+                inFlightTransfers.complete(newState);
+                completionCommitter.submit(position, () -> onDurableTransfer(newState, onStored));
+                return;
+            }
+            storeCompletedTransfer(newState);
+        } finally {
+            snapshotBarrier.exit();
+        }
+        onStoredTransfer(newState, onStored);
+    }
+
+    private void onDurableTransfer(TransferEvent event, Consumer<TransferEvent> onStored) {
+        snapshotBarrier.enter();
+        try {
+            snapshotManager.preserveTransfer(event.getTransferId());
+            storeCompletedTransfer(event);
+        } finally {
+            snapshotBarrier.exit();
+        }
+        onStoredTransfer(event, onStored);
+    }
+
+    private void storeCompletedTransfer(TransferEvent event) {
+        transferRepository.save(event.getTransferId(), event.asTransfer());
+        if (trackInFlight || groupCommit) {
+            inFlightTransfers.release(event.getTransferId());
+        }
+    }
+
+    private void onStoredTransfer(TransferEvent event, Consumer<TransferEvent> onStored) {
+        subscriptions.publish(event);
+        metrics.onCompleted(event);
+        onStored.accept(event);
+    }
+
+    private void saveState(TransferEvent event) {
+        journal.appendTransferStateChanged(event);
+        if (trackInFlight) {
+            inFlightTransfers.update(event);
+        }
+        if (checkpoints.contains(event.getState())) {
+            transferRepository.save(event.getTransferId(), event.asTransfer());
+        }
+        subscriptions.publish(event);
+    }
+
+    private void recover() {
+        Map<TransferId, TransferEvent> interruptedTransfers = new LinkedHashMap<>();
+        long position = snapshotManager.restoreLatest(new SnapshotListener() {
+            @Override
+            public void onAccount(AccountId accountId, Money balance) {
+                accountRepository.save(accountId, Account.builder()
+                        .withId(accountId)
+                        .withBalance(balance)
+                        .build());
+            }
+
+            @Override
+            public void onTransfer(TransferEvent event) {
+                if (isCompleted(event)) {
+                    transferRepository.save(event.getTransferId(), event.asTransfer());
+                } else {
+                    interruptedTransfers.put(event.getTransferId(), event);
+                }
+            }
+        });
+        journal.replay(position, new JournalListener() {
+            @Override
+            public void onAccountOpened(AccountId accountId, Money balance) {
+                accountRepository.save(accountId, Account.builder()
+                        .withId(accountId)
+                        .withBalance(balance)
+                        .build());
+            }
+
+            @Override
+            public void onTransferStateChanged(TransferEvent event) {
+                if (TransferState.SOURCE_WITHDRAWN == event.getState()) {
+                    accountRepository.withdraw(event.getSourceId(), event.getAmount());
+                } else if (TransferState.TARGET_DEPOSITED == event.getState()) {
+                    accountRepository.deposit(event.getTargetId(), event.getAmount());
+                } else if (TransferState.ERROR == event.getState() && isWithdrawn(interruptedTransfers.get(event.getTransferId()))) {
+                    // deposit failed, money was returned to the source
+                    accountRepository.deposit(event.getSourceId(), event.getAmount());
+                }
+
+                if (isCompleted(event)) {
+                    interruptedTransfers.remove(event.getTransferId());
+                    transferRepository.save(event.getTransferId(), event.asTransfer());
+                } else {
+                    interruptedTransfers.put(event.getTransferId(), event);
+                }
+            }
+        });
+
+        // withdrawn money is delivered to the target account, transfers which didn't touch balances fail
+        interruptedTransfers.values().forEach(event -> {
+            if (trackInFlight) {
+                inFlightTransfers.register(event);
+            }
+            onCompleteTransfer(TransferState.SOURCE_WITHDRAWN == event.getState() ? onDepositTarget(event) : event,
+                    recoveredEvent -> {
+                    });
+        });
+        if (!interruptedTransfers.isEmpty()) {
+            journal.sync(journal.position());
+            LOGGER.info(String.format("Recovered %s interrupted transfers", interruptedTransfers.size()));
+        }
+    }
+
+    private static boolean isWithdrawn(TransferEvent event) {
+        return event != null && TransferState.SOURCE_WITHDRAWN == event.getState();
+    }
+
+    private static boolean isCompleted(TransferEvent event) {
+        return TransferState.DONE == event.getState() || TransferState.ERROR == event.getState();
     }
 
     private void onError(Throwable throwable) {
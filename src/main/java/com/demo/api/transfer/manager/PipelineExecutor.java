@@ -1,37 +1,61 @@
 package com.demo.api.transfer.manager;
 
 import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.TransferState;
 import com.demo.api.transfer.store.EventStore;
 import com.demo.common.BootstrapConfig;
+import com.demo.common.ThreadType;
+import com.demo.common.VirtualThreads;
 import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
 import io.reactivex.rxjava3.disposables.Disposable;
 import io.reactivex.rxjava3.flowables.ConnectableFlowable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 public class PipelineExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelineExecutor.class);
+    static final int STOP_TIMEOUT_SECONDS = 10;
+
     private final EventStore<TransferEvent> eventSource;
     private final BootstrapConfig config;
     private final AtomicBoolean running;
+    private final BooleanSupplier isRunning;
+    // held by the consumer while it takes events, event store has single consumer
+    private final Lock consumerLock = new ReentrantLock();
+    private boolean consumerStopped;
 
     private final Function<TransferEvent, TransferEvent> registerTransferFn;
     private final Function<TransferEvent, TransferEvent> validateTransferFn;
     private final Predicate<TransferEvent> isValidTransferFn;
     private final Function<TransferEvent, TransferEvent> withdrawSourceFn;
     private final Function<TransferEvent, TransferEvent> depositTargetFn;
+    private final Function<List<TransferEvent>, List<TransferEvent>> netTransfersFn;
     private final Consumer<TransferEvent> completeTransferFn;
     private final Consumer<Throwable> errorHandler;
 
     private Disposable validSubscriber;
     private Disposable nonValidSubscriber;
+    private Disposable connection;
+    private List<ExecutorService> laneExecutors;
+    private List<ExecutorService> depositExecutors;
 
     private PipelineExecutor(EventStore<TransferEvent> eventSource,
                              BootstrapConfig config,
@@ -40,6 +64,7 @@ public class PipelineExecutor {
                              Predicate<TransferEvent> isValidTransferFn,
                              Function<TransferEvent, TransferEvent> withdrawSourceFn,
                              Function<TransferEvent, TransferEvent> depositTargetFn,
+                             Function<List<TransferEvent>, List<TransferEvent>> netTransfersFn,
                              Consumer<TransferEvent> completeTransferFn,
                              Consumer<Throwable> errorHandler) {
         this.eventSource = Objects.requireNonNull(eventSource, "Event source must be provided");
@@ -49,9 +74,13 @@ public class PipelineExecutor {
         this.isValidTransferFn = Objects.requireNonNull(isValidTransferFn, "IsValid transfer function must be provided");
         this.withdrawSourceFn = Objects.requireNonNull(withdrawSourceFn, "Withdraw source function must be provided");
         this.depositTargetFn = Objects.requireNonNull(depositTargetFn, "Deposit target function must be provided");
+        this.netTransfersFn = config.getNettingBatchSize() > 0
+                ? Objects.requireNonNull(netTransfersFn, "Net transfers function must be provided")
+                : netTransfersFn;
         this.completeTransferFn = Objects.requireNonNull(completeTransferFn, "Complete transfer function must be provided");
         this.errorHandler = Objects.requireNonNull(errorHandler, "Error handler must be provided");
         this.running = new AtomicBoolean(false);
+        this.isRunning = running::get;
     }
 
     public static Builder builder() {
@@ -62,30 +91,185 @@ public class PipelineExecutor {
         running.set(true);
         AtomicInteger partitioner = new AtomicInteger(0);
         Predicate<TransferEvent> isNonValidTransferFn = isValidTransferFn.negate();
-        // register -> validate -> withdraw: done in single thread
-        // deposit -> complete: done in separate thread
-        ConnectableFlowable<TransferEvent> flow = createFlow()
+        List<Scheduler> depositSchedulers = createDepositWorkers();
+        boolean netting = config.getNettingBatchSize() > 0;
+        // register -> validate -> withdraw: done in single thread of the lane, lane is picked by source account
+        // deposit -> complete: done in the worker of the partition, partitions are picked round-robin
+        // with netting register -> validate -> withdraw -> deposit of the whole batch is done in single thread
+        Function<TransferEvent, TransferEvent> depositFn = netting ? Function.identity() : depositTargetFn;
+        Flowable<TransferEvent> events = netting ? createBatchFlow().concatMapIterable(this::registerAndNet) : createFlow();
+        ConnectableFlowable<TransferEvent> flow = createLanes(events
                 .onErrorResumeNext(this::onError)
-                .subscribeOn(Schedulers.single())
-                .map(registerTransferFn::apply)
-                .map(validateTransferFn::apply)
+                // lanes are shut down only when no more events can be routed to them
+                .doFinally(this::shutdownLanes)
+                .subscribeOn(Schedulers.single()))
                 .publish();
         validSubscriber = flow.filter(isValidTransferFn::test)
-                .map(withdrawSourceFn::apply)
                 .groupBy(event -> partitioner.updateAndGet(i -> Math.max(i + 1, 0)) % config.getMaxThreads())
-                .flatMap(grp -> grp.observeOn(Schedulers.io())
-                        .map(depositTargetFn::apply))
-                .subscribe(completeTransferFn::accept);
+                .flatMap(grp -> grp.observeOn(depositSchedulers.get(grp.getKey()), false, config.getDepositQueueSize())
+                        .map(event -> applySafely(depositFn, event)), config.getMaxThreads())
+                .subscribe(this::completeSafely);
         nonValidSubscriber = flow.filter(isNonValidTransferFn::test)
-                .subscribe(completeTransferFn::accept);
+                .subscribe(this::completeSafely);
 
-        flow.connect();
+        connection = flow.connect();
     }
 
+    /**
+     * When it returns, the event source is not used by the pipeline anymore and may be cleared by the caller,
+     * lane and deposit workers are terminated unless they didn't finish within {@link #STOP_TIMEOUT_SECONDS}.
+     */
     public void stop() {
         running.set(false);
+        eventSource.wakeUp();
+        consumerLock.lock();
+        try {
+            consumerStopped = true;
+        } finally {
+            consumerLock.unlock();
+        }
         validSubscriber.dispose();
         nonValidSubscriber.dispose();
+        // source which hasn't completed yet is cancelled after the lanes, then it shuts the lanes down
+        connection.dispose();
+        depositExecutors.forEach(ExecutorService::shutdown);
+        List<ExecutorService> executors = new ArrayList<>(laneExecutors);
+        executors.addAll(depositExecutors);
+        awaitTermination(executors);
+    }
+
+    private void awaitTermination(List<ExecutorService> executors) {
+        try {
+            for (ExecutorService executor : executors) {
+                if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    LOGGER.warn(String.format("Pipeline workers didn't stop within %s seconds", STOP_TIMEOUT_SECONDS));
+                    executor.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            executors.forEach(ExecutorService::shutdownNow);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Every partition has its own worker, at most deposit queue size transfers wait for it,
+     * then the source of transfers is held back.
+     */
+    private List<Scheduler> createDepositWorkers() {
+        int partitions = config.getMaxThreads();
+        depositExecutors = new ArrayList<>(partitions);
+        List<Scheduler> schedulers = new ArrayList<>(partitions);
+        if (config.getThreadType() == ThreadType.VIRTUAL) {
+            // deposits of one partition are still executed one by one, but every deposit gets a cheap virtual thread
+            ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("pipeline-deposit-");
+            depositExecutors.add(executor);
+            for (int i = 0; i < partitions; i++) {
+                schedulers.add(Schedulers.from(executor));
+            }
+            return schedulers;
+        }
+
+        for (int i = 0; i < partitions; i++) {
+            String threadName = "pipeline-deposit-" + i;
+            ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            depositExecutors.add(executor);
+            schedulers.add(Schedulers.from(executor));
+        }
+        return schedulers;
+    }
+
+    private void shutdownLanes() {
+        laneExecutors.forEach(ExecutorService::shutdown);
+    }
+
+    private Flowable<TransferEvent> createLanes(Flowable<TransferEvent> events) {
+        int lanes = config.getLanes();
+        laneExecutors = new ArrayList<>(lanes);
+        if (config.getNettingBatchSize() > 0) {
+            // batch is settled as a whole, so it isn't split between lanes
+            return events;
+        }
+        if (lanes == 1) {
+            // no need to hand events over to another thread
+            return events.map(event -> applySafely(this::registerAndWithdraw, event));
+        }
+
+        List<Scheduler> laneSchedulers = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            String threadName = "pipeline-lane-" + i;
+            ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            laneExecutors.add(executor);
+            laneSchedulers.add(Schedulers.from(executor));
+        }
+
+        // all transfers of the same source account go through the same lane,
+        // so balance check and withdraw of the account are never executed concurrently
+        return events.groupBy(event -> Math.floorMod(event.getSourceId().hashCode(), lanes))
+                .flatMap(lane -> lane.observeOn(laneSchedulers.get(lane.getKey()))
+                        .map(event -> applySafely(this::registerAndWithdraw, event)), lanes);
+    }
+
+    private TransferEvent registerAndWithdraw(TransferEvent event) {
+        TransferEvent validatedEvent = validateTransferFn.apply(registerTransferFn.apply(event));
+        if (isValidTransferFn.test(validatedEvent)) {
+            return withdrawSourceFn.apply(validatedEvent);
+        }
+        return validatedEvent;
+    }
+
+    /**
+     * Failure of one transfer fails only this transfer, exception thrown out of a stage would terminate the flow.
+     */
+    private TransferEvent applySafely(Function<TransferEvent, TransferEvent> stageFn, TransferEvent event) {
+        try {
+            return stageFn.apply(event);
+        } catch (RuntimeException e) {
+            errorHandler.accept(e);
+            return TransferEvent.builder().from(event)
+                    .withState(TransferState.ERROR)
+                    .withDetails("Transfer failed")
+                    .build();
+        }
+    }
+
+    private void completeSafely(TransferEvent event) {
+        try {
+            completeTransferFn.accept(event);
+        } catch (RuntimeException e) {
+            errorHandler.accept(e);
+        }
+    }
+
+    private List<TransferEvent> registerAndNet(List<TransferEvent> events) {
+        List<TransferEvent> settledEvents = new ArrayList<>(events.size());
+        List<TransferEvent> registeredEvents = new ArrayList<>(events.size());
+        for (TransferEvent event : events) {
+            TransferEvent registeredEvent = applySafely(registerTransferFn, event);
+            (isValidTransferFn.test(registeredEvent) ? registeredEvents : settledEvents).add(registeredEvent);
+        }
+        // transfers are validated by netting, stored balances don't include earlier transfers of the batch yet
+        try {
+            settledEvents.addAll(netTransfersFn.apply(registeredEvents));
+        } catch (RuntimeException e) {
+            // failure of one batch fails only this batch, the flow keeps taking events
+            errorHandler.accept(e);
+            for (TransferEvent event : registeredEvents) {
+                settledEvents.add(TransferEvent.builder().from(event)
+                        .withState(TransferState.ERROR)
+                        .withDetails("Transfer failed")
+                        .build());
+            }
+        }
+        return settledEvents;
     }
 
     private Publisher<TransferEvent> onError(Throwable throwable) {
@@ -95,16 +279,48 @@ public class PipelineExecutor {
 
     private Flowable<TransferEvent> createFlow() {
         return Flowable.generate(emitter -> {
-            Optional<TransferEvent> event = Optional.empty();
-            while (!Thread.currentThread().isInterrupted()
-                    && running.get()
-                    && event.isEmpty()) {
-                event = eventSource.take();
-                event.ifPresent(emitter::onNext);
+            consumerLock.lock();
+            try {
+                TransferEvent event = consumerStopped ? null : eventSource.take(isRunning);
+                if (event != null) {
+                    emitter.onNext(event);
+                } else if (!running.get()) {
+                    emitter.onComplete();
+                }
+            } finally {
+                consumerLock.unlock();
             }
+        });
+    }
 
-            if (!running.get()) {
-                emitter.onComplete();
+    /**
+     * Batch holds transfers which are already waiting, up to netting batch size.
+     * With netting window it waits for more transfers until the batch is full or the window is closed.
+     */
+    private Flowable<List<TransferEvent>> createBatchFlow() {
+        int batchSize = config.getNettingBatchSize();
+        long windowNanos = TimeUnit.MILLISECONDS.toNanos(config.getNettingWindowMs());
+        return Flowable.generate(emitter -> {
+            consumerLock.lock();
+            try {
+                TransferEvent event = consumerStopped ? null : eventSource.take(isRunning);
+                if (event == null) {
+                    if (!running.get()) {
+                        emitter.onComplete();
+                    }
+                    return;
+                }
+
+                List<TransferEvent> batch = new ArrayList<>(batchSize);
+                batch.add(event);
+                long deadline = System.nanoTime() + windowNanos;
+                BooleanSupplier isWindowOpen = () -> running.get() && System.nanoTime() - deadline < 0;
+                while (batch.size() < batchSize && (event = eventSource.take(isWindowOpen)) != null) {
+                    batch.add(event);
+                }
+                emitter.onNext(batch);
+            } finally {
+                consumerLock.unlock();
             }
         });
     }
@@ -117,6 +333,7 @@ public class PipelineExecutor {
         private Predicate<TransferEvent> isValidTransferFn;
         private Function<TransferEvent, TransferEvent> withdrawSourceFn;
         private Function<TransferEvent, TransferEvent> depositTargetFn;
+        private Function<List<TransferEvent>, List<TransferEvent>> netTransfersFn;
         private Consumer<TransferEvent> completeTransferFn;
         private Consumer<Throwable> errorHandler;
 
@@ -155,6 +372,11 @@ public class PipelineExecutor {
             return this;
         }
 
+        public Builder withNetTransfersFn(Function<List<TransferEvent>, List<TransferEvent>> netTransfersFn) {
+            this.netTransfersFn = netTransfersFn;
+            return this;
+        }
+
         public Builder withCompleteTransferFn(Consumer<TransferEvent> completeTransferFn) {
             this.completeTransferFn = completeTransferFn;
             return this;
@@ -167,7 +389,7 @@ public class PipelineExecutor {
 
         public PipelineExecutor build() {
             return new PipelineExecutor(eventSource, config, registerTransferFn, validateTransferFn, isValidTransferFn, withdrawSourceFn,
-                    depositTargetFn, completeTransferFn, errorHandler);
+                    depositTargetFn, netTransfersFn, completeTransferFn, errorHandler);
         }
     }
 }
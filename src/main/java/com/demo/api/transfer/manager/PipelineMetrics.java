@@ -0,0 +1,93 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.metrics.LatencyHistogram;
+import com.demo.api.metrics.MetricsRegistry;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.TransferState;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Latency of every pipeline stage, time transfers wait in the event store and end-to-end time of transfers.
+ */
+@Singleton
+public class PipelineMetrics {
+    enum Stage {
+        REGISTER, VALIDATE, WITHDRAW, DEPOSIT, COMPLETE
+    }
+
+    private final LatencyHistogram[] stageLatencies = new LatencyHistogram[Stage.values().length];
+    private final LatencyHistogram queueWait;
+    private final LatencyHistogram endToEnd;
+    private final LongAdder completed;
+    private final LongAdder failed;
+
+    @Inject
+    public PipelineMetrics(MetricsRegistry registry) {
+        Objects.requireNonNull(registry, "Metrics registry must be provided");
+        for (Stage stage : Stage.values()) {
+            stageLatencies[stage.ordinal()] = registry.histogram("transfer_stage_latency_seconds",
+                    "Time spent by transfer in pipeline stage", "stage", stage.name().toLowerCase(Locale.ROOT));
+        }
+        this.queueWait = registry.histogram("transfer_queue_wait_seconds",
+                "Time from transfer submission until pipeline takes it from the event store");
+        this.endToEnd = registry.histogram("transfer_end_to_end_seconds",
+                "Time from transfer submission until it is completed");
+        this.completed = registry.counter("transfers_completed_total", "Completed transfers", "state", "done");
+        this.failed = registry.counter("transfers_completed_total", "Completed transfers", "state", "error");
+    }
+
+    <T> Function<TransferEvent, T> timed(Stage stage, Function<TransferEvent, T> fn) {
+        LatencyHistogram histogram = stageLatencies[stage.ordinal()];
+        return event -> {
+            long startTime = System.nanoTime();
+            try {
+                return fn.apply(event);
+            } finally {
+                histogram.record(System.nanoTime() - startTime);
+            }
+        };
+    }
+
+    Consumer<TransferEvent> timedConsumer(Stage stage, Consumer<TransferEvent> fn) {
+        LatencyHistogram histogram = stageLatencies[stage.ordinal()];
+        return event -> {
+            long startTime = System.nanoTime();
+            try {
+                fn.accept(event);
+            } finally {
+                histogram.record(System.nanoTime() - startTime);
+            }
+        };
+    }
+
+    /**
+     * Records time since {@code startTime} for each of {@code transfers} which went through the stage together.
+     */
+    void record(Stage stage, long startTime, int transfers) {
+        LatencyHistogram histogram = stageLatencies[stage.ordinal()];
+        long latency = System.nanoTime() - startTime;
+        for (int i = 0; i < transfers; i++) {
+            histogram.record(latency);
+        }
+    }
+
+    void onTaken(TransferEvent event) {
+        if (event.getCreatedAtNanos() != 0) {
+            queueWait.record(System.nanoTime() - event.getCreatedAtNanos());
+        }
+    }
+
+    void onCompleted(TransferEvent event) {
+        (event.getState() == TransferState.DONE ? completed : failed).increment();
+        if (event.getCreatedAtNanos() != 0) {
+            endToEnd.record(System.nanoTime() - event.getCreatedAtNanos());
+        }
+    }
+}
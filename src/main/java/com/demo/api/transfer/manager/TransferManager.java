@@ -2,9 +2,13 @@ package com.demo.api.transfer.manager;
 
 import com.demo.api.transfer.model.TransferEvent;
 
+import java.util.List;
+
 public interface TransferManager {
     boolean submitEvent(TransferEvent event);
 
+    int submitEvents(List<TransferEvent> events);
+
     void start();
 
     void stop();
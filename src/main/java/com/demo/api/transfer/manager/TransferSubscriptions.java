@@ -0,0 +1,89 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.TransferId;
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Listeners of transfer state changes. Listeners are called on a single notification thread,
+ * so slow subscribers never hold up the pipeline and see state changes of a transfer in order.
+ * Listeners and scheduled tasks must not block (e.g. on writes to a client), they would hold up all others.
+ */
+@Singleton
+public class TransferSubscriptions {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransferSubscriptions.class);
+
+    private final Map<TransferId, List<Consumer<Transfer>>> listeners = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService notifier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transfer-subscriptions");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public void subscribe(TransferId transferId, Consumer<Transfer> listener) {
+        Objects.requireNonNull(transferId, "Transfer id must be provided");
+        Objects.requireNonNull(listener, "Listener must be provided");
+
+        listeners.computeIfAbsent(transferId, id -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void unsubscribe(TransferId transferId, Consumer<Transfer> listener) {
+        Objects.requireNonNull(transferId, "Transfer id must be provided");
+        Objects.requireNonNull(listener, "Listener must be provided");
+
+        listeners.computeIfPresent(transferId, (id, transferListeners) -> {
+            transferListeners.remove(listener);
+            return transferListeners.isEmpty() ? null : transferListeners;
+        });
+    }
+
+    /**
+     * Passes transfer to the listener on the notification thread.
+     */
+    public void notify(Consumer<Transfer> listener, Transfer transfer) {
+        notifier.execute(() -> {
+            try {
+                listener.accept(transfer);
+            } catch (RuntimeException e) {
+                LOGGER.warn(String.format("Failed to notify listener of transfer %s", transfer.getId()), e);
+            }
+        });
+    }
+
+    /**
+     * Runs task on the notification thread after the delay, so it's ordered with notifications.
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return notifier.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    void publish(TransferEvent event) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+
+        List<Consumer<Transfer>> transferListeners = listeners.get(event.getTransferId());
+        if (transferListeners == null) {
+            return;
+        }
+
+        Transfer transfer = event.asTransfer();
+        for (Consumer<Transfer> listener : transferListeners) {
+            notify(listener, transfer);
+        }
+    }
+}
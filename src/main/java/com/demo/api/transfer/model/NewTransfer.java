@@ -0,0 +1,67 @@
+package com.demo.api.transfer.model;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
+
+/**
+ * Transfer requested by a client, it's validated when submitted.
+ */
+public final class NewTransfer {
+    private final AccountId sourceId;
+    private final AccountId targetId;
+    private final Money amount;
+
+    private NewTransfer(AccountId sourceId, AccountId targetId, Money amount) {
+        this.sourceId = sourceId;
+        this.targetId = targetId;
+        this.amount = amount;
+    }
+
+    public static NewTransfer.Builder builder() {
+        return new NewTransfer.Builder();
+    }
+
+    public AccountId getSourceId() {
+        return sourceId;
+    }
+
+    public AccountId getTargetId() {
+        return targetId;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        return "Source=" + sourceId
+                + ", Target=" + targetId
+                + ", Amount=" + amount;
+    }
+
+    public static final class Builder {
+        private AccountId sourceId;
+        private AccountId targetId;
+        private Money amount;
+
+        public NewTransfer.Builder withSourceId(AccountId sourceId) {
+            this.sourceId = sourceId;
+            return this;
+        }
+
+        public NewTransfer.Builder withTargetId(AccountId targetId) {
+            this.targetId = targetId;
+            return this;
+        }
+
+        public NewTransfer.Builder withAmount(Money amount) {
+            this.amount = amount;
+            return this;
+        }
+
+        public NewTransfer build() {
+            return new NewTransfer(sourceId, targetId, amount);
+        }
+    }
+}
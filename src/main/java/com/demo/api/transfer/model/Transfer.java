@@ -1,19 +1,19 @@
 package com.demo.api.transfer.model;
 
 import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
 
-import java.math.BigDecimal;
 import java.util.Objects;
 
 public final class Transfer {
     private final TransferId id;
     private final AccountId sourceId;
     private final AccountId targetId;
-    private final BigDecimal amount;
+    private final Money amount;
     private final TransferState state;
     private final String details;
 
-    private Transfer(TransferId id, AccountId sourceId, AccountId targetId, BigDecimal amount,
+    private Transfer(TransferId id, AccountId sourceId, AccountId targetId, Money amount,
                      TransferState state, String details) {
         this.id = Objects.requireNonNull(id, "Id must be provided");
         this.sourceId = Objects.requireNonNull(sourceId, "Source account id must be provided");
@@ -39,7 +39,7 @@ public final class Transfer {
         return targetId;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
@@ -78,7 +78,7 @@ public final class Transfer {
         private TransferId id;
         private AccountId sourceId;
         private AccountId targetId;
-        private BigDecimal amount;
+        private Money amount;
         private TransferState state;
         private String details;
 
@@ -97,7 +97,7 @@ public final class Transfer {
             return this;
         }
 
-        public Transfer.Builder withAmount(BigDecimal amount) {
+        public Transfer.Builder withAmount(Money amount) {
             this.amount = amount;
             return this;
         }
@@ -0,0 +1,5 @@
+package com.demo.api.transfer.model;
+
+public enum TransferDirection {
+    INCOMING, OUTGOING
+}
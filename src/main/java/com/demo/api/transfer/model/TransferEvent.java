@@ -1,26 +1,29 @@
 package com.demo.api.transfer.model;
 
 import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
 
-import java.math.BigDecimal;
 import java.util.Objects;
 
 public final class TransferEvent {
     private final TransferId transferId;
     private final AccountId sourceId;
     private final AccountId targetId;
-    private final BigDecimal amount;
+    private final Money amount;
     private final TransferState state;
     private final String details;
+    // System.nanoTime() when transfer was submitted, 0 if unknown (e.g. transfer was recovered)
+    private final long createdAtNanos;
 
-    private TransferEvent(TransferId transferId, AccountId sourceId, AccountId targetId, BigDecimal amount,
-                          TransferState state, String details) {
+    private TransferEvent(TransferId transferId, AccountId sourceId, AccountId targetId, Money amount,
+                          TransferState state, String details, long createdAtNanos) {
         this.transferId = Objects.requireNonNull(transferId, "Transfer id must be provided");
         this.sourceId = Objects.requireNonNull(sourceId, "Source account id must be provided");
         this.targetId = Objects.requireNonNull(targetId, "Target account id must be provided");
         this.amount = Objects.requireNonNull(amount, "Amount must be provided");
         this.state = Objects.requireNonNull(state, "State must be provided");
         this.details = Objects.requireNonNull(details, "Details must be provided");
+        this.createdAtNanos = createdAtNanos;
     }
 
     public static Builder builder() {
@@ -50,7 +53,7 @@ public final class TransferEvent {
         return targetId;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
@@ -62,6 +65,10 @@ public final class TransferEvent {
         return details;
     }
 
+    public long getCreatedAtNanos() {
+        return createdAtNanos;
+    }
+
     @Override
     public String toString() {
         return "#" + transferId
@@ -89,9 +96,10 @@ public final class TransferEvent {
         private TransferId transferId;
         private AccountId sourceId;
         private AccountId targetId;
-        private BigDecimal amount;
+        private Money amount;
         private TransferState state;
         private String details;
+        private long createdAtNanos;
 
         public Builder from(TransferEvent source) {
             this.transferId = source.transferId;
@@ -100,6 +108,7 @@ public final class TransferEvent {
             this.amount = source.amount;
             this.state = source.state;
             this.details = source.details;
+            this.createdAtNanos = source.createdAtNanos;
             return this;
         }
 
@@ -118,7 +127,7 @@ public final class TransferEvent {
             return this;
         }
 
-        public Builder withAmount(BigDecimal amount) {
+        public Builder withAmount(Money amount) {
             this.amount = amount;
             return this;
         }
@@ -133,8 +142,13 @@ public final class TransferEvent {
             return this;
         }
 
+        public Builder withCreatedAtNanos(long createdAtNanos) {
+            this.createdAtNanos = createdAtNanos;
+            return this;
+        }
+
         public TransferEvent build() {
-            return new TransferEvent(transferId, sourceId, targetId, amount, state, details);
+            return new TransferEvent(transferId, sourceId, targetId, amount, state, details, createdAtNanos);
         }
     }
 }
@@ -2,12 +2,27 @@ package com.demo.api.transfer.model;
 
 import com.demo.api.model.Id;
 
+import java.util.UUID;
+
 public final class TransferId extends Id {
     public TransferId(String value) {
         super(value);
     }
 
+    private TransferId(long mostSigBits, long leastSigBits) {
+        super(mostSigBits, leastSigBits);
+    }
+
     public static TransferId valueOf(String val) {
         return new TransferId(val);
     }
+
+    public static TransferId valueOf(long mostSigBits, long leastSigBits) {
+        return new TransferId(mostSigBits, leastSigBits);
+    }
+
+    public static TransferId generate() {
+        UUID uuid = UUID.randomUUID();
+        return new TransferId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
 }
@@ -0,0 +1,28 @@
+package com.demo.api.transfer.model;
+
+import java.util.List;
+import java.util.Objects;
+
+public final class TransferPage {
+    private final List<Transfer> transfers;
+    private final long nextPosition;
+    private final boolean hasMore;
+
+    public TransferPage(List<Transfer> transfers, long nextPosition, boolean hasMore) {
+        this.transfers = Objects.requireNonNull(transfers, "Transfers must be provided");
+        this.nextPosition = nextPosition;
+        this.hasMore = hasMore;
+    }
+
+    public List<Transfer> getTransfers() {
+        return transfers;
+    }
+
+    public long getNextPosition() {
+        return nextPosition;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
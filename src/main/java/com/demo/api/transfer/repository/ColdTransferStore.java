@@ -0,0 +1,158 @@
+package com.demo.api.transfer.repository;
+
+import com.demo.api.common.BinaryCodec;
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferId;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only store of completed transfers. Transfers are packed as binary records into large byte arrays,
+ * records are found through open addressing table of their offsets, so the store holds few objects
+ * no matter how many transfers it keeps.
+ */
+class ColdTransferStore {
+    private static final int SEGMENT_SIZE = 1 << 20;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final long EMPTY = -1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<byte[]> segments = new ArrayList<>();
+    private ByteBuffer record = ByteBuffer.allocate(256);
+    private int segmentPosition = SEGMENT_SIZE;
+    private long[] offsets;
+    private int[] hashes;
+    private volatile int size;
+
+    ColdTransferStore() {
+        this.offsets = newOffsets(INITIAL_CAPACITY);
+        this.hashes = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @return offset of the record, transfer is read by it without its id
+     */
+    long put(Transfer transfer) {
+        lock.writeLock().lock();
+        try {
+            encode(transfer);
+            long offset = append();
+            if ((size + 1) * 2 > offsets.length) {
+                resize();
+            }
+            insert(offsets, hashes, hash(transfer.getId()), offset);
+            size++;
+            return offset;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    Transfer getAt(long offset) {
+        lock.readLock().lock();
+        try {
+            return BinaryCodec.readTransfer(read(offset));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Transfer get(TransferId transferId) {
+        int hash = hash(transferId);
+        lock.readLock().lock();
+        try {
+            int mask = offsets.length - 1;
+            for (int index = hash & mask; offsets[index] != EMPTY; index = (index + 1) & mask) {
+                if (hashes[index] != hash) {
+                    continue;
+                }
+                ByteBuffer buffer = read(offsets[index]);
+                if (BinaryCodec.readTransferId(buffer.duplicate()).equals(transferId)) {
+                    return BinaryCodec.readTransfer(buffer);
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void encode(Transfer transfer) {
+        while (true) {
+            record.clear();
+            try {
+                BinaryCodec.writeTransfer(record, transfer);
+                record.flip();
+                return;
+            } catch (BufferOverflowException e) {
+                record = ByteBuffer.allocate(record.capacity() * 2);
+            }
+        }
+    }
+
+    private long append() {
+        int length = record.remaining();
+        if (SEGMENT_SIZE - segmentPosition < length) {
+            // record never spans segments, too long record gets a segment of its own
+            segments.add(new byte[Math.max(SEGMENT_SIZE, length)]);
+            segmentPosition = 0;
+        }
+        long offset = (long) (segments.size() - 1) << 32 | segmentPosition;
+        record.get(segments.get(segments.size() - 1), segmentPosition, length);
+        segmentPosition += length;
+        return offset;
+    }
+
+    private ByteBuffer read(long offset) {
+        byte[] segment = segments.get((int) (offset >>> 32));
+        int position = (int) offset;
+        return ByteBuffer.wrap(segment, position, segment.length - position);
+    }
+
+    private void resize() {
+        long[] newOffsets = newOffsets(offsets.length * 2);
+        int[] newHashes = new int[newOffsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            if (offsets[i] != EMPTY) {
+                insert(newOffsets, newHashes, hashes[i], offsets[i]);
+            }
+        }
+        offsets = newOffsets;
+        hashes = newHashes;
+    }
+
+    private static void insert(long[] offsets, int[] hashes, int hash, long offset) {
+        int mask = offsets.length - 1;
+        int index = hash & mask;
+        while (offsets[index] != EMPTY) {
+            index = (index + 1) & mask;
+        }
+        offsets[index] = offset;
+        hashes[index] = hash;
+    }
+
+    private static long[] newOffsets(int capacity) {
+        long[] offsets = new long[capacity];
+        Arrays.fill(offsets, EMPTY);
+        return offsets;
+    }
+
+    private static int hash(TransferId transferId) {
+        int hash = transferId.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -1,21 +1,38 @@
 package com.demo.api.transfer.repository;
 
 
+import com.demo.api.account.model.AccountId;
 import com.demo.api.transfer.model.TransferId;
 import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferState;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 
+import java.util.AbstractCollection;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
 
 @Singleton
 public class MapTransferRepository implements TransferRepository {
+    private static final int ACCOUNT_CHUNK_SHIFT = 5;
+    private static final int SCAN_CHUNK_SIZE = 1024;
 
     private final Map<TransferId, Transfer> mapImpl;
+    private final TransferSequence sequence = new TransferSequence();
+    // history of every account as positions in the sequence, most accounts have few transfers so chunks are small
+    private final Map<AccountId, TransferSequence> accountSequences = new ConcurrentHashMap<>();
+    private final ColdTransferStore coldStore = new ColdTransferStore();
 
     @Inject
     public MapTransferRepository(@Named("transferMapStorage") Map<TransferId, Transfer> mapStorage) {
@@ -27,14 +44,16 @@ public class MapTransferRepository implements TransferRepository {
         Objects.requireNonNull(key, "Key must be provided");
         Objects.requireNonNull(value, "Value must be provided");
 
-        mapImpl.put(key, value);
+        if (mapImpl.put(key, value) == null) {
+            append(value);
+        }
     }
 
     @Override
     public Transfer findById(TransferId key) {
         Objects.requireNonNull(key, "Key must be provided");
 
-        return mapImpl.get(key);
+        return find(key);
     }
 
     @Override
@@ -42,11 +61,165 @@ public class MapTransferRepository implements TransferRepository {
         Objects.requireNonNull(key, "Key must be provided");
         Objects.requireNonNull(executor, "Executor must be provided");
 
-        return mapImpl.compute(key, executor);
+        boolean[] created = new boolean[1];
+        Transfer transfer = mapImpl.compute(key, (transferId, prevTransfer) -> {
+            Transfer newTransfer = executor.apply(transferId, prevTransfer);
+            created[0] = prevTransfer == null && newTransfer != null;
+            return newTransfer;
+        });
+        if (created[0]) {
+            append(transfer);
+        }
+        return transfer;
     }
 
     @Override
     public Collection<Transfer> findAll() {
-        return mapImpl.values();
+        // transfers are iterated in order of the sequence, so a transfer moved to the cold store meanwhile
+        // is still found, cold transfers are decoded while iterating and never held in memory all together
+        return new AbstractCollection<Transfer>() {
+            @Override
+            public Iterator<Transfer> iterator() {
+                return new ScanIterator();
+            }
+
+            @Override
+            public int size() {
+                return mapImpl.size() + coldStore.size();
+            }
+        };
+    }
+
+    @Override
+    public long scan(long position, int limit, Consumer<Transfer> consumer) {
+        Objects.requireNonNull(consumer, "Consumer must be provided");
+
+        long current = position;
+        int count = 0;
+        // scan stops at the end of sequence or at transfer which is not written yet, next scan continues from it
+        while (count < limit && sequence.isWritten(current)) {
+            Transfer transfer = findAt(current++);
+            if (transfer != null) {
+                consumer.accept(transfer);
+                count++;
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public long scanByAccount(AccountId accountId, long position, int limit,
+                              Predicate<Transfer> filter, Consumer<Transfer> consumer) {
+        Objects.requireNonNull(accountId, "Account id must be provided");
+        Objects.requireNonNull(filter, "Filter must be provided");
+        Objects.requireNonNull(consumer, "Consumer must be provided");
+
+        TransferSequence accountSequence = accountSequences.get(accountId);
+        if (accountSequence == null) {
+            return position;
+        }
+
+        long current = position;
+        int count = 0;
+        while (count < limit) {
+            long sequencePosition = accountSequence.getReference(current);
+            if (sequencePosition == TransferSequence.NONE) {
+                break;
+            }
+            current++;
+            Transfer transfer = findAt(sequencePosition);
+            if (transfer != null && filter.test(transfer)) {
+                consumer.accept(transfer);
+                count++;
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public long count() {
+        return sequence.size();
+    }
+
+    @Override
+    public long archive(long position, long toPosition, LongConsumer skipped) {
+        Objects.requireNonNull(skipped, "Skipped consumer must be provided");
+
+        long current = position;
+        while (current < toPosition && sequence.isWritten(current)) {
+            TransferId transferId = sequence.getId(current);
+            Transfer transfer = transferId != null ? mapImpl.get(transferId) : null;
+            if (transfer != null) {
+                if (transfer.getState() != TransferState.DONE && transfer.getState() != TransferState.ERROR) {
+                    skipped.accept(current);
+                } else {
+                    // transfer is written to the cold store first, so it's always found by one of the stores,
+                    // then the sequence refers to its record instead of holding its id
+                    sequence.archive(current, coldStore.put(transfer));
+                    mapImpl.remove(transferId, transfer);
+                }
+            }
+            current++;
+        }
+        return current;
+    }
+
+    private Transfer find(TransferId transferId) {
+        Transfer transfer = mapImpl.get(transferId);
+        if (transfer == null && !coldStore.isEmpty()) {
+            transfer = coldStore.get(transferId);
+        }
+        return transfer;
+    }
+
+    /**
+     * @return transfer at the position of the sequence, it's read from the cold store if it's archived
+     */
+    private Transfer findAt(long position) {
+        TransferId transferId = sequence.getId(position);
+        if (transferId != null) {
+            return find(transferId);
+        }
+        long offset = sequence.getReference(position);
+        return offset != TransferSequence.NONE ? coldStore.getAt(offset) : null;
+    }
+
+    private void append(Transfer transfer) {
+        long position = sequence.append(transfer.getId());
+        accountSequences.computeIfAbsent(transfer.getSourceId(), accountId -> newAccountSequence())
+                .append(position);
+        accountSequences.computeIfAbsent(transfer.getTargetId(), accountId -> newAccountSequence())
+                .append(position);
+    }
+
+    private static TransferSequence newAccountSequence() {
+        return new TransferSequence(ACCOUNT_CHUNK_SHIFT, false);
+    }
+
+    private class ScanIterator implements Iterator<Transfer> {
+        private final List<Transfer> chunk = new ArrayList<>(SCAN_CHUNK_SIZE);
+        private long position;
+        private int index;
+        private boolean exhausted;
+
+        @Override
+        public boolean hasNext() {
+            while (index == chunk.size() && !exhausted) {
+                chunk.clear();
+                index = 0;
+                long nextPosition = scan(position, SCAN_CHUNK_SIZE, chunk::add);
+                exhausted = nextPosition == position;
+                position = nextPosition;
+            }
+            return index < chunk.size();
+        }
+
+        @Override
+        public Transfer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.get(index++);
+        }
     }
 }
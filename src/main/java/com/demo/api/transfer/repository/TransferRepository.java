@@ -1,10 +1,14 @@
 package com.demo.api.transfer.repository;
 
+import com.demo.api.account.model.AccountId;
 import com.demo.api.transfer.model.TransferId;
 import com.demo.api.transfer.model.Transfer;
 
 import java.util.Collection;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
 
 
 public interface TransferRepository {
@@ -15,4 +19,34 @@ public interface TransferRepository {
     Transfer executeUpdate(TransferId accountId, BiFunction<TransferId, Transfer, Transfer> executor);
 
     Collection<Transfer> findAll();
+
+    /**
+     * Passes up to limit transfers to the consumer, in order they were stored first.
+     *
+     * @return position to continue from
+     */
+    long scan(long position, int limit, Consumer<Transfer> consumer);
+
+    /**
+     * Passes up to limit transfers of the account accepted by the filter to the consumer,
+     * in order they were stored first.
+     *
+     * @return position in history of the account to continue from
+     */
+    long scanByAccount(AccountId accountId, long position, int limit,
+                       Predicate<Transfer> filter, Consumer<Transfer> consumer);
+
+    /**
+     * @return number of transfers stored so far, positions of stored transfers are below it
+     */
+    long count();
+
+    /**
+     * Moves completed transfers stored at positions from the given one up to toPosition out of the hot storage,
+     * they are still found by id and listed. Positions of transfers which aren't completed yet are passed
+     * to the skipped consumer, so they can be archived later.
+     *
+     * @return position to continue from, it's below toPosition if a transfer isn't stored at the position yet
+     */
+    long archive(long position, long toPosition, LongConsumer skipped);
 }
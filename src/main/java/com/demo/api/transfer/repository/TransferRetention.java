@@ -0,0 +1,105 @@
+package com.demo.api.transfer.repository;
+
+import com.demo.common.BootstrapConfig;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically moves completed transfers older than the retention age to the cold store.
+ * Age of a transfer isn't stored, instead every run remembers how many transfers were stored at that time,
+ * so transfers below the count remembered at least retention age ago are old enough.
+ */
+@Singleton
+public class TransferRetention {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransferRetention.class);
+
+    private final TransferRepository transferRepository;
+    private final long retentionMs;
+    // pairs of time and number of stored transfers at that time
+    private final Deque<long[]> marks = new ArrayDeque<>();
+    // positions of old transfers which weren't completed yet, they are retried on every run
+    private List<Long> skippedPositions = new ArrayList<>();
+    private long position;
+    private ScheduledExecutorService scheduler;
+
+    @Inject
+    public TransferRetention(BootstrapConfig config, TransferRepository transferRepository) {
+        Objects.requireNonNull(config, "Config must be provided");
+        this.transferRepository = Objects.requireNonNull(transferRepository, "Transfer repository must be provided");
+        this.retentionMs = config.getTransferRetentionMs();
+    }
+
+    public boolean isEnabled() {
+        return retentionMs > 0;
+    }
+
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        synchronized (this) {
+            // age of transfers restored on startup is unknown, they are moved on the first run
+            marks.addLast(new long[]{System.currentTimeMillis() - retentionMs, transferRepository.count()});
+        }
+        long intervalMs = Math.max(1, retentionMs / 10);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transfer-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::archiveScheduled, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    synchronized void archive(long nowMs) {
+        marks.addLast(new long[]{nowMs, transferRepository.count()});
+        List<Long> stillSkipped = new ArrayList<>();
+        for (long skippedPosition : skippedPositions) {
+            transferRepository.archive(skippedPosition, skippedPosition + 1, stillSkipped::add);
+        }
+        skippedPositions = stillSkipped;
+
+        long toPosition = position;
+        while (!marks.isEmpty() && marks.peekFirst()[0] <= nowMs - retentionMs) {
+            toPosition = marks.pollFirst()[1];
+        }
+        if (toPosition > position) {
+            long nextPosition = transferRepository.archive(position, toPosition, skippedPositions::add);
+            LOGGER.debug("Moved transfers from position {} to {} to the cold store", position, nextPosition);
+            position = nextPosition;
+        }
+    }
+
+    private void archiveScheduled() {
+        try {
+            archive(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            LOGGER.error("Fail to move transfers to the cold store", e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.demo.api.transfer.repository;
+
+import com.demo.api.transfer.model.TransferId;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Append-only sequence of transfers in order they were stored, position of a transfer never changes,
+ * so it can be used as a cursor. Entries are kept in chunks, appending never copies stored entries.
+ * <p>
+ * Entry is either id of a transfer kept in memory or a long reference: offset of a transfer moved to the cold store,
+ * or position of the transfer in another sequence. Archived entry keeps only the reference, so ids of archived
+ * transfers are not held by the sequence.
+ */
+class TransferSequence {
+    static final long NONE = -1;
+    private static final int DEFAULT_CHUNK_SHIFT = 14;
+
+    private final AtomicLong size = new AtomicLong();
+    private final int chunkShift;
+    private final int chunkMask;
+    private final boolean holdsIds;
+    private volatile Chunk[] chunks;
+
+    TransferSequence() {
+        this(DEFAULT_CHUNK_SHIFT, true);
+    }
+
+    /**
+     * @param holdsIds {@code false} if only references are appended, chunks don't have room for ids then
+     */
+    TransferSequence(int chunkShift, boolean holdsIds) {
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1 << chunkShift) - 1;
+        this.holdsIds = holdsIds;
+        this.chunks = new Chunk[]{new Chunk(1 << chunkShift, holdsIds)};
+    }
+
+    long append(TransferId transferId) {
+        long position = size.getAndIncrement();
+        chunk(position).ids.set((int) position & chunkMask, transferId);
+        return position;
+    }
+
+    long append(long reference) {
+        long position = size.getAndIncrement();
+        chunk(position).references.set((int) position & chunkMask, reference + 1);
+        return position;
+    }
+
+    /**
+     * Replaces id at the position with the reference, reference is visible before the id is dropped.
+     */
+    void archive(long position, long reference) {
+        Chunk chunk = chunks[(int) (position >>> chunkShift)];
+        chunk.references.set((int) position & chunkMask, reference + 1);
+        chunk.ids.set((int) position & chunkMask, null);
+    }
+
+    /**
+     * @return id at the position or null if the position is archived or not written yet
+     */
+    TransferId getId(long position) {
+        Chunk chunk = find(position);
+        return chunk == null || chunk.ids == null ? null : chunk.ids.get((int) position & chunkMask);
+    }
+
+    /**
+     * @return reference at the position or {@link #NONE} if the position holds an id or is not written yet
+     */
+    long getReference(long position) {
+        Chunk chunk = find(position);
+        return chunk == null ? NONE : chunk.references.get((int) position & chunkMask) - 1;
+    }
+
+    boolean isWritten(long position) {
+        // archived entry gets its reference before the id is dropped, so one of them is always seen
+        return getId(position) != null || getReference(position) != NONE;
+    }
+
+    long size() {
+        return size.get();
+    }
+
+    private Chunk chunk(long position) {
+        int chunkIndex = (int) (position >>> chunkShift);
+        if (chunkIndex >= chunks.length) {
+            grow(chunkIndex);
+        }
+        return chunks[chunkIndex];
+    }
+
+    private Chunk find(long position) {
+        int chunkIndex = (int) (position >>> chunkShift);
+        Chunk[] currentChunks = chunks;
+        if (position >= size.get() || chunkIndex >= currentChunks.length) {
+            return null;
+        }
+        return currentChunks[chunkIndex];
+    }
+
+    private synchronized void grow(int chunkIndex) {
+        Chunk[] currentChunks = chunks;
+        if (chunkIndex < currentChunks.length) {
+            return;
+        }
+
+        // chunk table is doubled, so long sequences don't copy it on every new chunk
+        int length = Math.max(chunkIndex + 1, currentChunks.length * 2);
+        Chunk[] newChunks = Arrays.copyOf(currentChunks, length);
+        for (int i = currentChunks.length; i < newChunks.length; i++) {
+            newChunks[i] = new Chunk(1 << chunkShift, holdsIds);
+        }
+        chunks = newChunks;
+    }
+
+    private static final class Chunk {
+        private final AtomicReferenceArray<TransferId> ids;
+        // reference + 1, 0 marks entry without reference
+        private final AtomicLongArray references;
+
+        private Chunk(int size, boolean holdsIds) {
+            this.ids = holdsIds ? new AtomicReferenceArray<>(size) : null;
+            this.references = new AtomicLongArray(size);
+        }
+    }
+}
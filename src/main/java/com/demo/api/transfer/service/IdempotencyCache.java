@@ -0,0 +1,141 @@
+package com.demo.api.transfer.service;
+
+import com.demo.api.exception.InvalidDataException;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.common.BootstrapConfig;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Remembers transfers created by idempotency key. Entries expire after TTL, when the cache is full
+ * the oldest entries are evicted, so memory stays bounded. Entries are evicted in order they were added,
+ * which is also order of their expiration.
+ * <p>
+ * Eviction takes a lock only when the oldest entry is expired or the cache is full, and is skipped while another
+ * thread evicts, so the cache may briefly hold a few more entries than its size. Entry whose transfer is still
+ * being created is never evicted, so its retry waits for the same transfer instead of creating another one.
+ */
+@Singleton
+public class IdempotencyCache {
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+    // entries in order which are not failed, failed entries are dropped from order lazily
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    @Inject
+    public IdempotencyCache(BootstrapConfig config) {
+        Objects.requireNonNull(config, "Config must be provided");
+        this.maxSize = config.getIdempotencyCacheSize();
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(config.getIdempotencyKeyTtlMs());
+    }
+
+    /**
+     * Creates transfer once per key, later calls with the same key and request get the same transfer id.
+     * Failed creation isn't remembered, so it can be retried with the same key.
+     */
+    public TransferId computeIfAbsent(String key, Object request, Supplier<TransferId> creator) {
+        Objects.requireNonNull(key, "Key must be provided");
+        Objects.requireNonNull(request, "Request must be provided");
+        Objects.requireNonNull(creator, "Creator must be provided");
+
+        long now = System.nanoTime();
+        evict(now);
+        Entry entry = new Entry(key, request, now + ttlNanos);
+        Entry existing = entries.putIfAbsent(key, entry);
+        while (existing != null) {
+            if (now - existing.expiresAt < 0) {
+                return await(existing, request);
+            }
+            // expired entry which is not evicted yet
+            existing = entries.replace(key, existing, entry) ? null : entries.putIfAbsent(key, entry);
+        }
+
+        order.add(entry);
+        size.incrementAndGet();
+        try {
+            TransferId transferId = creator.get();
+            entry.result.complete(transferId);
+            return transferId;
+        } catch (RuntimeException e) {
+            entries.remove(key, entry);
+            // size is decreased before the entry is seen as failed, so eviction never counts it twice
+            size.decrementAndGet();
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private TransferId await(Entry entry, Object request) {
+        if (!entry.request.equals(request)) {
+            throw new InvalidDataException(String.format("Idempotency key %s is already used for another transfer", entry.key));
+        }
+
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            // the same failure is reported to concurrent retries
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void evict(long now) {
+        Entry head = order.peek();
+        if (head == null || !isEvictable(head, now) || !evictionLock.tryLock()) {
+            return;
+        }
+
+        try {
+            while ((head = order.peek()) != null && isEvictable(head, now)) {
+                order.poll();
+                if (!head.result.isCompletedExceptionally()) {
+                    size.decrementAndGet();
+                    entries.remove(head.key, head);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean isEvictable(Entry entry, long now) {
+        if (entry.result.isCompletedExceptionally()) {
+            return true;
+        }
+        return entry.result.isDone() && (now - entry.expiresAt >= 0 || size.get() >= maxSize);
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final Object request;
+        private final long expiresAt;
+        private final CompletableFuture<TransferId> result = new CompletableFuture<>();
+
+        private Entry(String key, Object request, long expiresAt) {
+            this.key = key;
+            this.request = request;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
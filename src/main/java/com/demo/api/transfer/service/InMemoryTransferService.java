@@ -1,68 +1,279 @@
 package com.demo.api.transfer.service;
 
 import com.demo.api.account.model.AccountId;
+import com.demo.api.account.service.AccountService;
 import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.manager.InFlightTransfers;
 import com.demo.api.transfer.manager.TransferManager;
+import com.demo.api.transfer.manager.TransferSubscriptions;
+import com.demo.api.transfer.model.NewTransfer;
 import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferDirection;
 import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.TransferPage;
 import com.demo.api.transfer.model.TransferState;
 import com.demo.api.transfer.repository.TransferRepository;
 import com.demo.api.transfer.validator.TransferValidator;
+import com.demo.api.exception.InvalidDataException;
+import com.demo.api.exception.NotFoundException;
 import com.demo.api.exception.TooBusyException;
+import com.demo.api.model.BatchResult;
+import com.demo.api.model.Money;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 @Singleton
 public class InMemoryTransferService implements TransferService {
+    private static final String TOO_BUSY_MESSAGE = "Server is too busy, please try again later";
+    private static final int SCAN_CHUNK_SIZE = 1024;
 
     private final TransferManager transferManager;
     private final TransferRepository transferRepository;
     private final TransferValidator transferValidator;
+    private final InFlightTransfers inFlightTransfers;
+    private final AccountService accountService;
+    private final IdempotencyCache idempotencyCache;
+    private final TransferSubscriptions transferSubscriptions;
 
     @Inject
     public InMemoryTransferService(TransferValidator transferValidator,
                                    TransferManager transferManager,
-                                   TransferRepository transferRepository) {
+                                   TransferRepository transferRepository,
+                                   InFlightTransfers inFlightTransfers,
+                                   AccountService accountService,
+                                   IdempotencyCache idempotencyCache,
+                                   TransferSubscriptions transferSubscriptions) {
         this.transferValidator = Objects.requireNonNull(transferValidator, "Transfer validator must be provided");
         this.transferManager = Objects.requireNonNull(transferManager, "Transfer manager must be provided");
         this.transferRepository = Objects.requireNonNull(transferRepository, "Transfer repository must be provided");
+        this.inFlightTransfers = Objects.requireNonNull(inFlightTransfers, "In-flight transfers must be provided");
+        this.accountService = Objects.requireNonNull(accountService, "Account service must be provided");
+        this.idempotencyCache = Objects.requireNonNull(idempotencyCache, "Idempotency cache must be provided");
+        this.transferSubscriptions = Objects.requireNonNull(transferSubscriptions, "Transfer subscriptions must be provided");
     }
 
     @Override
-    public TransferId createNew(AccountId sourceAccountId, AccountId targetAccountId, BigDecimal amount) {
+    public TransferId createNew(AccountId sourceAccountId, AccountId targetAccountId, Money amount) {
         transferValidator.validate(sourceAccountId, targetAccountId, amount);
 
-        TransferId transferId = TransferId.valueOf(UUID.randomUUID().toString());
-        boolean submitted = transferManager.submitEvent(TransferEvent.builder()
-                .withTransferId(transferId)
-                .withSourceId(sourceAccountId)
-                .withTargetId(targetAccountId)
-                .withAmount(amount)
-                .withState(TransferState.NEW)
-                .withDetails("Transfer created")
-                .build());
+        TransferEvent event = newTransferEvent(sourceAccountId, targetAccountId, amount);
+        boolean submitted = transferManager.submitEvent(event);
         if (submitted) {
-            return transferId;
+            return event.getTransferId();
         } else {
             // can't schedule offer execution
-            throw new TooBusyException("Server is too busy, please try again later");
+            throw new TooBusyException(TOO_BUSY_MESSAGE);
+        }
+    }
+
+    @Override
+    public TransferId createNew(String idempotencyKey, AccountId sourceAccountId, AccountId targetAccountId, Money amount) {
+        if (idempotencyKey == null) {
+            return createNew(sourceAccountId, targetAccountId, amount);
+        }
+
+        return idempotencyCache.computeIfAbsent(idempotencyKey, Arrays.asList(sourceAccountId, targetAccountId, amount),
+                () -> createNew(sourceAccountId, targetAccountId, amount));
+    }
+
+    @Override
+    public List<BatchResult<TransferId>> createNew(List<NewTransfer> transfers) {
+        Objects.requireNonNull(transfers, "Transfers must be provided");
+
+        List<BatchResult<TransferId>> results = new ArrayList<>(transfers.size());
+        List<TransferEvent> events = new ArrayList<>(transfers.size());
+        for (NewTransfer transfer : transfers) {
+            try {
+                transferValidator.validate(transfer.getSourceId(), transfer.getTargetId(), transfer.getAmount());
+            } catch (InvalidDataException e) {
+                results.add(BatchResult.failure(e.getMessage()));
+                continue;
+            }
+
+            TransferEvent event = newTransferEvent(transfer.getSourceId(), transfer.getTargetId(), transfer.getAmount());
+            events.add(event);
+            results.add(BatchResult.success(event.getTransferId()));
+        }
+
+        // events are stored in order, so the tail which didn't fit is rejected
+        int submitted = transferManager.submitEvents(events);
+        if (submitted < events.size()) {
+            int accepted = 0;
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).isSuccess() && accepted++ >= submitted) {
+                    results.set(i, BatchResult.failure(TOO_BUSY_MESSAGE));
+                }
+            }
         }
+        return results;
     }
 
     @Override
     public Transfer findById(TransferId transferId) {
         Objects.requireNonNull(transferId, "Transfer id must be provided");
 
-        return transferRepository.findById(transferId);
+        // repository is updated before transfer is released from in-flight transfers
+        Transfer transfer = inFlightTransfers.findById(transferId);
+        return transfer != null ? transfer : transferRepository.findById(transferId);
     }
 
     @Override
     public Collection<Transfer> findAll() {
-        return transferRepository.findAll();
+        if (inFlightTransfers.size() == 0) {
+            return transferRepository.findAll();
+        }
+
+        Map<TransferId, Transfer> transfers = new LinkedHashMap<>();
+        transferRepository.findAll().forEach(transfer -> transfers.put(transfer.getId(), transfer));
+        inFlightTransfers.findAll().forEach(transfer -> transfers.put(transfer.getId(), transfer));
+        return transfers.values();
+    }
+
+    @Override
+    public TransferPage findPage(long position, int limit) {
+        if (position < 0) {
+            throw new IllegalArgumentException("Position must be greater than or equal to 0");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+
+        // stored state can be behind the in-flight one when transfer checkpoints are enabled
+        List<Transfer> transfers = new ArrayList<>(limit);
+        long nextPosition = transferRepository.scan(position, limit,
+                transfer -> transfers.add(currentState(transfer)));
+        return new TransferPage(transfers, nextPosition, transfers.size() == limit);
+    }
+
+    @Override
+    public TransferPage findPageByAccount(AccountId accountId, TransferState state, TransferDirection direction,
+                                          long position, int limit) {
+        Objects.requireNonNull(accountId, "Account id must be provided");
+        if (position < 0) {
+            throw new IllegalArgumentException("Position must be greater than or equal to 0");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        if (accountService.findById(accountId) == null) {
+            throw new NotFoundException(String.format("Account %s not found", accountId));
+        }
+
+        // stored state can be behind the in-flight one when transfer checkpoints are enabled
+        Predicate<Transfer> filter = transfer -> {
+            Transfer current = currentState(transfer);
+            return (state == null || current.getState() == state)
+                    && (direction != TransferDirection.OUTGOING || current.getSourceId().equals(accountId))
+                    && (direction != TransferDirection.INCOMING || current.getTargetId().equals(accountId));
+        };
+        List<Transfer> transfers = new ArrayList<>(limit);
+        long nextPosition = transferRepository.scanByAccount(accountId, position, limit, filter,
+                transfer -> transfers.add(currentState(transfer)));
+        return new TransferPage(transfers, nextPosition, transfers.size() == limit);
+    }
+
+    @Override
+    public void forEach(Consumer<Transfer> consumer) {
+        Objects.requireNonNull(consumer, "Consumer must be provided");
+
+        // transfers stored before or while scanning are taken from the repository with their in-flight state,
+        // the rest only from in-flight ones
+        Map<TransferId, Transfer> inFlight = new HashMap<>();
+        inFlightTransfers.findAll().forEach(transfer -> inFlight.put(transfer.getId(), transfer));
+
+        long position = 0;
+        while (true) {
+            long nextPosition = transferRepository.scan(position, SCAN_CHUNK_SIZE, transfer -> {
+                inFlight.remove(transfer.getId());
+                consumer.accept(currentState(transfer));
+            });
+            if (nextPosition == position) {
+                break;
+            }
+            position = nextPosition;
+        }
+
+        for (Transfer transfer : inFlight.values()) {
+            Transfer current = inFlightTransfers.findById(transfer.getId());
+            consumer.accept(current != null ? current : transfer);
+        }
+    }
+
+    @Override
+    public void subscribe(Collection<TransferId> transferIds, Consumer<Transfer> listener) {
+        Objects.requireNonNull(transferIds, "Transfer ids must be provided");
+        Objects.requireNonNull(listener, "Listener must be provided");
+
+        transferIds.forEach(transferId -> transferSubscriptions.subscribe(transferId, listener));
+        // state changes before subscription are not published, so current state is passed after subscribing
+        for (TransferId transferId : transferIds) {
+            Transfer transfer = findById(transferId);
+            if (transfer != null) {
+                transferSubscriptions.notify(listener, transfer);
+            }
+        }
+    }
+
+    @Override
+    public void unsubscribe(Collection<TransferId> transferIds, Consumer<Transfer> listener) {
+        Objects.requireNonNull(transferIds, "Transfer ids must be provided");
+        Objects.requireNonNull(listener, "Listener must be provided");
+
+        transferIds.forEach(transferId -> transferSubscriptions.unsubscribe(transferId, listener));
+    }
+
+    @Override
+    public CompletableFuture<Transfer> awaitCompletion(TransferId transferId, long timeoutMs) {
+        Objects.requireNonNull(transferId, "Transfer id must be provided");
+
+        CompletableFuture<Transfer> completion = new CompletableFuture<>();
+        List<TransferId> transferIds = Collections.singletonList(transferId);
+        Consumer<Transfer> listener = transfer -> {
+            if (transfer.getState() == TransferState.DONE || transfer.getState() == TransferState.ERROR) {
+                completion.complete(transfer);
+            }
+        };
+        ScheduledFuture<?> timeout = transferSubscriptions.schedule(() -> completion.complete(null), timeoutMs);
+        subscribe(transferIds, listener);
+        return completion.whenComplete((transfer, e) -> {
+            timeout.cancel(false);
+            unsubscribe(transferIds, listener);
+        });
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return transferSubscriptions.schedule(task, delayMs);
+    }
+
+    private Transfer currentState(Transfer transfer) {
+        Transfer inFlight = inFlightTransfers.findById(transfer.getId());
+        return inFlight != null ? inFlight : transfer;
+    }
+
+    private TransferEvent newTransferEvent(AccountId sourceAccountId, AccountId targetAccountId, Money amount) {
+        return TransferEvent.builder()
+                .withTransferId(TransferId.generate())
+                .withSourceId(sourceAccountId)
+                .withTargetId(targetAccountId)
+                .withAmount(amount)
+                .withState(TransferState.NEW)
+                .withDetails("Transfer created")
+                .withCreatedAtNanos(System.nanoTime())
+                .build();
     }
 }
@@ -3,15 +3,69 @@ package com.demo.api.transfer.service;
 
 import com.demo.api.account.model.AccountId;
 import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.NewTransfer;
 import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferDirection;
+import com.demo.api.transfer.model.TransferPage;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.api.model.BatchResult;
+import com.demo.api.model.Money;
 
-import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
 
 public interface TransferService {
-    TransferId createNew(AccountId sourceAccountId, AccountId targetAccountId, BigDecimal amount);
+    TransferId createNew(AccountId sourceAccountId, AccountId targetAccountId, Money amount);
+
+    /**
+     * Retries with the same idempotency key get the originally created transfer id, key is optional.
+     */
+    TransferId createNew(String idempotencyKey, AccountId sourceAccountId, AccountId targetAccountId, Money amount);
+
+    /**
+     * @return transfer id or rejection reason of every transfer, in the same order
+     */
+    List<BatchResult<TransferId>> createNew(List<NewTransfer> transfers);
 
     Transfer findById(TransferId transferId);
 
     Collection<Transfer> findAll();
+
+    /**
+     * Pages through completed transfers in order they were completed, in-flight transfers
+     * show up once they reach final state.
+     */
+    TransferPage findPage(long position, int limit);
+
+    /**
+     * Pages through transfers of the account in order they were stored, state and direction filters are optional.
+     */
+    TransferPage findPageByAccount(AccountId accountId, TransferState state, TransferDirection direction,
+                                   long position, int limit);
+
+    /**
+     * Passes all transfers to the consumer without copying them into one collection.
+     */
+    void forEach(Consumer<Transfer> consumer);
+
+    /**
+     * Listener gets current state of every known transfer and then its state changes, possibly more than once
+     * per state. Listener is called on one notification thread.
+     */
+    void subscribe(Collection<TransferId> transferIds, Consumer<Transfer> listener);
+
+    void unsubscribe(Collection<TransferId> transferIds, Consumer<Transfer> listener);
+
+    /**
+     * Completes with final state of the transfer, or with null when it's not completed within the timeout.
+     */
+    CompletableFuture<Transfer> awaitCompletion(TransferId transferId, long timeoutMs);
+
+    /**
+     * Runs task on the thread which notifies listeners, after the delay.
+     */
+    ScheduledFuture<?> schedule(Runnable task, long delayMs);
 }
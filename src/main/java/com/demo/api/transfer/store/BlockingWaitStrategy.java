@@ -0,0 +1,54 @@
+package com.demo.api.transfer.store;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+public class BlockingWaitStrategy implements WaitStrategy {
+    // upper bound for a missed wake up, also how often running flag is re-checked
+    private static final long MAX_AWAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private volatile boolean signalNeeded;
+
+    @Override
+    public <T> T waitFor(Supplier<T> source, BooleanSupplier running) throws InterruptedException {
+        T event = source.get();
+        if (event != null) {
+            return event;
+        }
+
+        lock.lock();
+        try {
+            while (running.getAsBoolean()) {
+                // flag must be raised before re-check, so producer either sees it or we see the event
+                signalNeeded = true;
+                event = source.get();
+                if (event != null) {
+                    return event;
+                }
+                notEmpty.awaitNanos(MAX_AWAIT_NANOS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return null;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        if (signalNeeded) {
+            lock.lock();
+            try {
+                signalNeeded = false;
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.demo.api.transfer.store;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+public class BusySpinWaitStrategy implements WaitStrategy {
+    @Override
+    public <T> T waitFor(Supplier<T> source, BooleanSupplier running) {
+        T event;
+        while ((event = source.get()) == null
+                && running.getAsBoolean()) {
+            Thread.onSpinWait();
+        }
+        return event;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        // nothing to signal, consumer never blocks
+    }
+}
@@ -1,41 +1,31 @@
 package com.demo.api.transfer.store;
 
-import java.util.Objects;
-import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
-
-public class EventStore<T> {
-    private final BlockingQueue<T> eventSource;
-
-    public EventStore(BlockingQueue<T> eventSource) {
-        this.eventSource = Objects.requireNonNull(eventSource, "Event source must be provided");
-    }
-
-    public boolean put(T event) {
-        boolean submitted = false;
-        try {
-            submitted = eventSource.offer(event, 1, TimeUnit.NANOSECONDS);
-        } catch (InterruptedException e) {
-            // preserve interruption status
-            Thread.currentThread().interrupt();
-        }
-
-        return submitted;
-    }
-
-    public Optional<T> take() {
-        try {
-            return Optional.ofNullable(eventSource.poll(1, TimeUnit.NANOSECONDS));
-        } catch (InterruptedException e) {
-            // preserve interruption status
-            Thread.currentThread().interrupt();
-        }
-
-        return Optional.empty();
-    }
-
-    public void clear() {
-        eventSource.clear();
-    }
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+public interface EventStore<T> {
+    boolean put(T event);
+
+    /**
+     * Stores events in order while there is a room for them.
+     *
+     * @return number of stored events from the beginning of the list
+     */
+    int putAll(List<T> events);
+
+    T take(BooleanSupplier running);
+
+    void wakeUp();
+
+    /**
+     * Drops stored events, must not be called while another thread takes events.
+     */
+    void clear();
+
+    /**
+     * @return approximate number of stored events
+     */
+    int size();
+
+    int capacity();
 }
@@ -18,8 +18,33 @@ public class EventStoreModule extends AbstractModule {
     }
 
     protected void configure() {
-        BlockingQueue<TransferEvent> eventSource = new ArrayBlockingQueue<>(config.getBufferSize());
+        WaitStrategy waitStrategy = createWaitStrategy(config.getWaitStrategy());
         bind(new TypeLiteral<EventStore<TransferEvent>>() {
-        }).toInstance(new EventStore<>(eventSource));
+        }).toInstance(createEventStore(config.getEventStore(), waitStrategy));
+    }
+
+    private EventStore<TransferEvent> createEventStore(EventStoreType type, WaitStrategy waitStrategy) {
+        switch (type) {
+            case RING_BUFFER:
+                return new RingBufferEventStore<>(config.getBufferSize(), waitStrategy);
+            case QUEUE:
+            default:
+                BlockingQueue<TransferEvent> eventSource = new ArrayBlockingQueue<>(config.getBufferSize());
+                return new QueueEventStore<>(eventSource, waitStrategy);
+        }
+    }
+
+    private WaitStrategy createWaitStrategy(WaitStrategyType type) {
+        switch (type) {
+            case YIELDING:
+                return new YieldingWaitStrategy();
+            case PARKING:
+                return new ParkingWaitStrategy();
+            case BLOCKING:
+                return new BlockingWaitStrategy();
+            case BUSY_SPIN:
+            default:
+                return new BusySpinWaitStrategy();
+        }
     }
 }
@@ -0,0 +1,5 @@
+package com.demo.api.transfer.store;
+
+public enum EventStoreType {
+    QUEUE, RING_BUFFER
+}
@@ -0,0 +1,43 @@
+package com.demo.api.transfer.store;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+public class ParkingWaitStrategy implements WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Override
+    public <T> T waitFor(Supplier<T> source, BooleanSupplier running) throws InterruptedException {
+        int counter = SPIN_TRIES + YIELD_TRIES;
+        long parkNanos = MIN_PARK_NANOS;
+        T event;
+        while ((event = source.get()) == null
+                && running.getAsBoolean()) {
+            if (counter > YIELD_TRIES) {
+                counter--;
+                Thread.onSpinWait();
+            } else if (counter > 0) {
+                counter--;
+                Thread.yield();
+            } else {
+                // exponential backoff, bounded by max park time
+                LockSupport.parkNanos(parkNanos);
+                parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+        return event;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        // nothing to signal, consumer wakes up by itself
+    }
+}
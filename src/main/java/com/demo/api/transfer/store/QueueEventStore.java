@@ -0,0 +1,85 @@
+package com.demo.api.transfer.store;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+public class QueueEventStore<T> implements EventStore<T> {
+    private final BlockingQueue<T> eventSource;
+    private final WaitStrategy waitStrategy;
+    private final Supplier<T> poller;
+    private final int capacity;
+
+    public QueueEventStore(BlockingQueue<T> eventSource, WaitStrategy waitStrategy) {
+        this.eventSource = Objects.requireNonNull(eventSource, "Event source must be provided");
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "Wait strategy must be provided");
+        this.poller = eventSource::poll;
+        this.capacity = eventSource.size() + eventSource.remainingCapacity();
+    }
+
+    @Override
+    public boolean put(T event) {
+        boolean submitted = false;
+        try {
+            submitted = eventSource.offer(event, 1, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            // preserve interruption status
+            Thread.currentThread().interrupt();
+        }
+
+        if (submitted) {
+            waitStrategy.signalAllWhenBlocking();
+        }
+        return submitted;
+    }
+
+    @Override
+    public int putAll(List<T> events) {
+        Objects.requireNonNull(events, "Events must be provided");
+
+        int submitted = 0;
+        while (submitted < events.size() && eventSource.offer(events.get(submitted))) {
+            submitted++;
+        }
+
+        if (submitted > 0) {
+            waitStrategy.signalAllWhenBlocking();
+        }
+        return submitted;
+    }
+
+    @Override
+    public T take(BooleanSupplier running) {
+        try {
+            return waitStrategy.waitFor(poller, running);
+        } catch (InterruptedException e) {
+            // preserve interruption status
+            Thread.currentThread().interrupt();
+        }
+
+        return null;
+    }
+
+    @Override
+    public void wakeUp() {
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    @Override
+    public void clear() {
+        eventSource.clear();
+    }
+
+    @Override
+    public int size() {
+        return eventSource.size();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
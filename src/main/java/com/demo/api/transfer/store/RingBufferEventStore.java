@@ -0,0 +1,195 @@
+package com.demo.api.transfer.store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer/single-consumer ring buffer.
+ * <p>
+ * Producers claim a slot by advancing the tail sequence with CAS and publish the event by
+ * updating the slot sequence, so offer path never takes a lock. Only one thread may take events.
+ */
+public class RingBufferEventStore<T> implements EventStore<T> {
+    private final int capacity;
+    private final long mask;
+    private final Object[] slots;
+    // sequence of the slot: equals to position when slot is free, position + 1 when slot is published
+    private final AtomicLongArray sequences;
+    private final Sequence tail;
+    private final Sequence head;
+    private final WaitStrategy waitStrategy;
+    private final Supplier<T> poller;
+
+    public RingBufferEventStore(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.capacity = capacity;
+        this.mask = Integer.bitCount(capacity) == 1 ? capacity - 1 : -1;
+        this.slots = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.tail = new Sequence();
+        this.head = new Sequence();
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "Wait strategy must be provided");
+        this.poller = this::poll;
+    }
+
+    @Override
+    public boolean put(T event) {
+        Objects.requireNonNull(event, "Event must be provided");
+
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = index(position);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                // slot is not consumed yet: buffer is full
+                return false;
+            } else {
+                // slot claimed by another producer
+                position = tail.get();
+            }
+        }
+
+        slots[index] = event;
+        sequences.lazySet(index, position + 1);
+        waitStrategy.signalAllWhenBlocking();
+        return true;
+    }
+
+    @Override
+    public int putAll(List<T> events) {
+        Objects.requireNonNull(events, "Events must be provided");
+        events.forEach(event -> Objects.requireNonNull(event, "Event must be provided"));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        // the whole range is claimed with one CAS, slots are freed in order so the range is free
+        // when it doesn't overlap with events which are not consumed yet
+        long position;
+        int count;
+        do {
+            position = tail.get();
+            count = (int) Math.min(events.size(), capacity - (position - head.get()));
+            if (count <= 0) {
+                return 0;
+            }
+        } while (!tail.compareAndSet(position, position + count));
+
+        for (int i = 0; i < count; i++) {
+            int index = index(position + i);
+            slots[index] = events.get(i);
+            sequences.lazySet(index, position + i + 1);
+        }
+        waitStrategy.signalAllWhenBlocking();
+        return count;
+    }
+
+    @Override
+    public T take(BooleanSupplier running) {
+        try {
+            return waitStrategy.waitFor(poller, running);
+        } catch (InterruptedException e) {
+            // preserve interruption status
+            Thread.currentThread().interrupt();
+        }
+
+        return null;
+    }
+
+    @Override
+    public void wakeUp() {
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null) {
+            // drain published events
+        }
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T poll() {
+        long position = head.getPlain();
+        int index = index(position);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        T event = (T) slots[index];
+        slots[index] = null;
+        sequences.lazySet(index, position + capacity);
+        head.setRelease(position + 1);
+        return event;
+    }
+
+    private int index(long position) {
+        return (int) (mask >= 0 ? position & mask : position % capacity);
+    }
+
+    // padded to keep producers and consumer sequences on different cache lines
+    private static class LhsPadding {
+        protected long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    private static class Value extends LhsPadding {
+        protected volatile long value;
+    }
+
+    private static final class Sequence extends Value {
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(Value.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        protected long p9, p10, p11, p12, p13, p14, p15;
+
+        long get() {
+            return value;
+        }
+
+        long getPlain() {
+            return (long) VALUE.get(this);
+        }
+
+        void setRelease(long newValue) {
+            VALUE.setRelease(this, newValue);
+        }
+
+        boolean compareAndSet(long expected, long newValue) {
+            return VALUE.compareAndSet(this, expected, newValue);
+        }
+    }
+}
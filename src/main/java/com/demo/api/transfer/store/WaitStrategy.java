@@ -0,0 +1,18 @@
+package com.demo.api.transfer.store;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+public interface WaitStrategy {
+    /**
+     * Polls the source until it returns an event or {@code running} becomes false.
+     *
+     * @return next event or {@code null} if waiting was stopped
+     */
+    <T> T waitFor(Supplier<T> source, BooleanSupplier running) throws InterruptedException;
+
+    /**
+     * Called by producers after an event was published, wakes up consumer if it is blocked.
+     */
+    void signalAllWhenBlocking();
+}
@@ -0,0 +1,5 @@
+package com.demo.api.transfer.store;
+
+public enum WaitStrategyType {
+    BUSY_SPIN, YIELDING, PARKING, BLOCKING
+}
@@ -0,0 +1,29 @@
+package com.demo.api.transfer.store;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+public class YieldingWaitStrategy implements WaitStrategy {
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public <T> T waitFor(Supplier<T> source, BooleanSupplier running) {
+        int counter = SPIN_TRIES;
+        T event;
+        while ((event = source.get()) == null
+                && running.getAsBoolean()) {
+            if (counter > 0) {
+                counter--;
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return event;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        // nothing to signal, consumer never blocks
+    }
+}
@@ -4,11 +4,12 @@ import com.demo.api.account.model.Account;
 import com.demo.api.account.service.AccountService;
 import com.demo.api.account.model.AccountId;
 import com.demo.api.exception.InvalidDataException;
+import com.demo.api.model.Money;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
-import java.math.BigDecimal;
 import java.util.Objects;
+import java.util.function.Function;
 
 @Singleton
 public class DebitTransferValidator implements TransferValidator {
@@ -20,7 +21,16 @@ public class DebitTransferValidator implements TransferValidator {
     }
 
     @Override
-    public void validate(AccountId sourceAccountId, AccountId targetAccountId, BigDecimal amount) {
+    public void validate(AccountId sourceAccountId, AccountId targetAccountId, Money amount) {
+        validate(sourceAccountId, targetAccountId, amount, Account::getBalance);
+    }
+
+    /**
+     * Source account balance is taken from the function instead of the stored account,
+     * e.g. when earlier transfers are not applied to the account yet.
+     */
+    public void validate(AccountId sourceAccountId, AccountId targetAccountId, Money amount,
+                         Function<Account, Money> balanceFn) {
         if (sourceAccountId == null) {
             throw new InvalidDataException("Source account id must be provided");
         }
@@ -40,14 +50,17 @@ public class DebitTransferValidator implements TransferValidator {
             throw new InvalidDataException("Target account not found");
         }
 
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+        if (!amount.isPositive()) {
             throw new InvalidDataException("Transfer must be a positive decimal number");
         }
-        if (source.getBalance().compareTo(amount) < 0) {
+        if (balanceFn.apply(source).isLessThan(amount)) {
             throw new InvalidDataException("Insufficient account balance to execute transfer");
         }
         if (source.equals(target)) {
             throw new InvalidDataException("Source and target accounts must not be the same");
         }
+        if (Long.MAX_VALUE - amount.getMinorUnits() < target.getBalance().getMinorUnits()) {
+            throw new InvalidDataException("Target account balance can't hold transfer amount");
+        }
     }
 }
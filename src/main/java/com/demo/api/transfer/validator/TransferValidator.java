@@ -1,9 +1,9 @@
 package com.demo.api.transfer.validator;
 
 import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
 
-import java.math.BigDecimal;
 
 public interface TransferValidator {
-    void validate(AccountId sourceAccountId, AccountId targetAccountId, BigDecimal amount);
+    void validate(AccountId sourceAccountId, AccountId targetAccountId, Money amount);
 }
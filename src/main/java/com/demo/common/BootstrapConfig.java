@@ -1,6 +1,18 @@
 package com.demo.common;
 
+import com.demo.api.account.model.AccountId;
+import com.demo.api.account.repository.AccountStoreType;
+import com.demo.api.journal.JournalFlushPolicy;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.api.transfer.store.EventStoreType;
+import com.demo.api.transfer.store.WaitStrategyType;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 
 public class BootstrapConfig {
     private static final String DEFAULT_SWAGGER_UI_PATH = "swagger-ui";
@@ -10,6 +22,29 @@ public class BootstrapConfig {
     private final int port;
     private final int bufferSize;
     private final int maxThreads;
+    private final int lanes;
+    private final WaitStrategyType waitStrategy;
+    private final EventStoreType eventStore;
+    private final AccountStoreType accountStore;
+    private final Set<TransferState> transferCheckpoints;
+    private final String journalDir;
+    private final JournalFlushPolicy journalFlushPolicy;
+    private final long journalFlushIntervalMs;
+    private final String snapshotDir;
+    private final long snapshotIntervalMs;
+    private final long transferRetentionMs;
+    private final long metricsLogIntervalMs;
+    private final long admissionLatencyTargetMs;
+    private final long admissionMaxWaitMs;
+    private final int idempotencyCacheSize;
+    private final long idempotencyKeyTtlMs;
+    private final ThreadType threadType;
+    private final int depositQueueSize;
+    private final int nettingBatchSize;
+    private final long nettingWindowMs;
+    private final Set<AccountId> hotAccounts;
+    private final int hotAccountContentionThreshold;
+    private final int responseWriterThreads;
     private final String version;
     private final String groupId;
     private final String artifactId;
@@ -17,27 +52,103 @@ public class BootstrapConfig {
     private final String swaggerDocsBaseUrl;
     private final String redocBaseUrl;
 
-    private BootstrapConfig(int port, int bufferSize, int maxThreads,
-                            String version, String groupId, String artifactId,
-                            String swaggerUiBaseUrl, String swaggerDocsBaseUrl, String redocBaseUrl) {
-        if (port < 0) {
+    private BootstrapConfig(Builder builder, String version, String groupId, String artifactId) {
+        if (builder.port < 0) {
             throw new IllegalArgumentException("Port number must be greater or equal to 0");
         }
-        if (bufferSize <= 0) {
+        if (builder.bufferSize <= 0) {
             throw new IllegalArgumentException("Buffer size must be greater than 0");
         }
-        if (maxThreads <= 0) {
+        if (builder.maxThreads <= 0) {
             throw new IllegalArgumentException("Max number of threads must be greater than 0");
         }
-        this.port = port;
-        this.bufferSize = bufferSize;
-        this.maxThreads = maxThreads;
+        if (builder.lanes <= 0) {
+            throw new IllegalArgumentException("Number of lanes must be greater than 0");
+        }
+        if (builder.journalFlushIntervalMs <= 0) {
+            throw new IllegalArgumentException("Journal flush interval must be greater than 0");
+        }
+        if (builder.snapshotIntervalMs <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be greater than 0");
+        }
+        if (builder.transferRetentionMs < 0) {
+            throw new IllegalArgumentException("Transfer retention must be greater or equal to 0");
+        }
+        if (builder.metricsLogIntervalMs < 0) {
+            throw new IllegalArgumentException("Metrics log interval must be greater or equal to 0");
+        }
+        if (builder.admissionLatencyTargetMs < 0) {
+            throw new IllegalArgumentException("Admission latency target must be greater or equal to 0");
+        }
+        if (builder.admissionMaxWaitMs < 0) {
+            throw new IllegalArgumentException("Admission max wait must be greater or equal to 0");
+        }
+        if (builder.idempotencyCacheSize <= 0) {
+            throw new IllegalArgumentException("Idempotency cache size must be greater than 0");
+        }
+        if (builder.idempotencyKeyTtlMs <= 0) {
+            throw new IllegalArgumentException("Idempotency key TTL must be greater than 0");
+        }
+        if (builder.threadType == ThreadType.VIRTUAL && !VirtualThreads.isSupported()) {
+            throw new IllegalArgumentException("Virtual threads require Java 21 or newer");
+        }
+        if (builder.depositQueueSize <= 0) {
+            throw new IllegalArgumentException("Deposit queue size must be greater than 0");
+        }
+        if (builder.nettingBatchSize < 0) {
+            throw new IllegalArgumentException("Netting batch size must be greater or equal to 0");
+        }
+        if (builder.nettingWindowMs < 0) {
+            throw new IllegalArgumentException("Netting window must be greater or equal to 0");
+        }
+        if (builder.hotAccountContentionThreshold < 0) {
+            throw new IllegalArgumentException("Hot account contention threshold must be greater or equal to 0");
+        }
+        if (builder.responseWriterThreads <= 0) {
+            throw new IllegalArgumentException("Number of response writer threads must be greater than 0");
+        }
+        this.port = builder.port;
+        this.bufferSize = builder.bufferSize;
+        this.maxThreads = builder.maxThreads;
+        this.lanes = builder.lanes;
+        this.waitStrategy = Optional.ofNullable(builder.waitStrategy).orElse(WaitStrategyType.BUSY_SPIN);
+        this.eventStore = Optional.ofNullable(builder.eventStore).orElse(EventStoreType.QUEUE);
+        this.accountStore = Optional.ofNullable(builder.accountStore).orElse(AccountStoreType.MAP);
+        EnumSet<TransferState> transferCheckpoints = EnumSet.allOf(TransferState.class);
+        if (builder.transferCheckpoints != null) {
+            transferCheckpoints = EnumSet.noneOf(TransferState.class);
+            transferCheckpoints.addAll(builder.transferCheckpoints);
+            // final states are always stored
+            transferCheckpoints.add(TransferState.DONE);
+            transferCheckpoints.add(TransferState.ERROR);
+        }
+        this.transferCheckpoints = Collections.unmodifiableSet(transferCheckpoints);
+        this.journalDir = builder.journalDir;
+        this.journalFlushPolicy = Optional.ofNullable(builder.journalFlushPolicy).orElse(JournalFlushPolicy.ASYNC);
+        this.journalFlushIntervalMs = builder.journalFlushIntervalMs;
+        this.snapshotDir = builder.snapshotDir;
+        this.snapshotIntervalMs = builder.snapshotIntervalMs;
+        this.transferRetentionMs = builder.transferRetentionMs;
+        this.metricsLogIntervalMs = builder.metricsLogIntervalMs;
+        this.admissionLatencyTargetMs = builder.admissionLatencyTargetMs;
+        this.admissionMaxWaitMs = builder.admissionMaxWaitMs;
+        this.idempotencyCacheSize = builder.idempotencyCacheSize;
+        this.idempotencyKeyTtlMs = builder.idempotencyKeyTtlMs;
+        this.threadType = Optional.ofNullable(builder.threadType).orElse(ThreadType.PLATFORM);
+        this.depositQueueSize = builder.depositQueueSize;
+        this.nettingBatchSize = builder.nettingBatchSize;
+        this.nettingWindowMs = builder.nettingWindowMs;
+        this.hotAccounts = builder.hotAccounts != null
+                ? Collections.unmodifiableSet(new HashSet<>(builder.hotAccounts))
+                : Collections.emptySet();
+        this.hotAccountContentionThreshold = builder.hotAccountContentionThreshold;
+        this.responseWriterThreads = builder.responseWriterThreads;
         this.version = Optional.ofNullable(version).orElse("");
         this.groupId = Optional.ofNullable(groupId).orElse("");
         this.artifactId = Optional.ofNullable(artifactId).orElse("");
-        this.swaggerUiBaseUrl = Optional.ofNullable(swaggerUiBaseUrl).orElse(DEFAULT_SWAGGER_UI_PATH);
-        this.swaggerDocsBaseUrl = Optional.ofNullable(swaggerDocsBaseUrl).orElse(DEFAULT_SWAGGER_DOCS_PATH);
-        this.redocBaseUrl = Optional.ofNullable(redocBaseUrl).orElse(DEFAULT_REDOC_PATH);
+        this.swaggerUiBaseUrl = Optional.ofNullable(builder.swaggerUiBaseUrl).orElse(DEFAULT_SWAGGER_UI_PATH);
+        this.swaggerDocsBaseUrl = Optional.ofNullable(builder.swaggerDocsBaseUrl).orElse(DEFAULT_SWAGGER_DOCS_PATH);
+        this.redocBaseUrl = Optional.ofNullable(builder.redocBaseUrl).orElse(DEFAULT_REDOC_PATH);
     }
 
     public static Builder builder() {
@@ -56,6 +167,98 @@ public class BootstrapConfig {
         return maxThreads;
     }
 
+    public int getLanes() {
+        return lanes;
+    }
+
+    public WaitStrategyType getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public EventStoreType getEventStore() {
+        return eventStore;
+    }
+
+    public AccountStoreType getAccountStore() {
+        return accountStore;
+    }
+
+    public Set<TransferState> getTransferCheckpoints() {
+        return transferCheckpoints;
+    }
+
+    public String getJournalDir() {
+        return journalDir;
+    }
+
+    public JournalFlushPolicy getJournalFlushPolicy() {
+        return journalFlushPolicy;
+    }
+
+    public long getJournalFlushIntervalMs() {
+        return journalFlushIntervalMs;
+    }
+
+    public String getSnapshotDir() {
+        return snapshotDir;
+    }
+
+    public long getSnapshotIntervalMs() {
+        return snapshotIntervalMs;
+    }
+
+    public long getTransferRetentionMs() {
+        return transferRetentionMs;
+    }
+
+    public long getMetricsLogIntervalMs() {
+        return metricsLogIntervalMs;
+    }
+
+    public long getAdmissionLatencyTargetMs() {
+        return admissionLatencyTargetMs;
+    }
+
+    public long getAdmissionMaxWaitMs() {
+        return admissionMaxWaitMs;
+    }
+
+    public int getIdempotencyCacheSize() {
+        return idempotencyCacheSize;
+    }
+
+    public long getIdempotencyKeyTtlMs() {
+        return idempotencyKeyTtlMs;
+    }
+
+    public ThreadType getThreadType() {
+        return threadType;
+    }
+
+    public int getDepositQueueSize() {
+        return depositQueueSize;
+    }
+
+    public int getNettingBatchSize() {
+        return nettingBatchSize;
+    }
+
+    public long getNettingWindowMs() {
+        return nettingWindowMs;
+    }
+
+    public Set<AccountId> getHotAccounts() {
+        return hotAccounts;
+    }
+
+    public int getHotAccountContentionThreshold() {
+        return hotAccountContentionThreshold;
+    }
+
+    public int getResponseWriterThreads() {
+        return responseWriterThreads;
+    }
+
     public String getVersion() {
         return version;
     }
@@ -85,6 +288,29 @@ public class BootstrapConfig {
         return "port=" + port +
                 ", bufferSize=" + bufferSize +
                 ", maxThreads=" + maxThreads +
+                ", lanes=" + lanes +
+                ", waitStrategy=" + waitStrategy +
+                ", eventStore=" + eventStore +
+                ", accountStore=" + accountStore +
+                ", transferCheckpoints=" + transferCheckpoints +
+                ", journalDir='" + journalDir + '\'' +
+                ", journalFlushPolicy=" + journalFlushPolicy +
+                ", journalFlushIntervalMs=" + journalFlushIntervalMs +
+                ", snapshotDir='" + snapshotDir + '\'' +
+                ", snapshotIntervalMs=" + snapshotIntervalMs +
+                ", transferRetentionMs=" + transferRetentionMs +
+                ", metricsLogIntervalMs=" + metricsLogIntervalMs +
+                ", admissionLatencyTargetMs=" + admissionLatencyTargetMs +
+                ", admissionMaxWaitMs=" + admissionMaxWaitMs +
+                ", idempotencyCacheSize=" + idempotencyCacheSize +
+                ", idempotencyKeyTtlMs=" + idempotencyKeyTtlMs +
+                ", threadType=" + threadType +
+                ", depositQueueSize=" + depositQueueSize +
+                ", nettingBatchSize=" + nettingBatchSize +
+                ", nettingWindowMs=" + nettingWindowMs +
+                ", hotAccounts=" + hotAccounts +
+                ", hotAccountContentionThreshold=" + hotAccountContentionThreshold +
+                ", responseWriterThreads=" + responseWriterThreads +
                 ", version='" + version + '\'' +
                 ", groupId='" + groupId + '\'' +
                 ", artifactId='" + artifactId + '\'' +
@@ -97,6 +323,29 @@ public class BootstrapConfig {
         private int port;
         private int bufferSize;
         private int maxThreads;
+        private int lanes = 1;
+        private WaitStrategyType waitStrategy;
+        private EventStoreType eventStore;
+        private AccountStoreType accountStore;
+        private Collection<TransferState> transferCheckpoints;
+        private String journalDir;
+        private JournalFlushPolicy journalFlushPolicy;
+        private long journalFlushIntervalMs = 10;
+        private String snapshotDir;
+        private long snapshotIntervalMs = 60000;
+        private long transferRetentionMs;
+        private long metricsLogIntervalMs = 60000;
+        private long admissionLatencyTargetMs;
+        private long admissionMaxWaitMs = 5;
+        private int idempotencyCacheSize = 100000;
+        private long idempotencyKeyTtlMs = 3600000;
+        private ThreadType threadType;
+        private int depositQueueSize = 128;
+        private int nettingBatchSize;
+        private long nettingWindowMs;
+        private Collection<AccountId> hotAccounts;
+        private int hotAccountContentionThreshold;
+        private int responseWriterThreads = 16;
         private String swaggerUiBaseUrl;
         private String swaggerDocsBaseUrl;
         private String redocBaseUrl;
@@ -116,6 +365,121 @@ public class BootstrapConfig {
             return this;
         }
 
+        public Builder withLanes(int lanes) {
+            this.lanes = lanes;
+            return this;
+        }
+
+        public Builder withWaitStrategy(WaitStrategyType waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        public Builder withEventStore(EventStoreType eventStore) {
+            this.eventStore = eventStore;
+            return this;
+        }
+
+        public Builder withAccountStore(AccountStoreType accountStore) {
+            this.accountStore = accountStore;
+            return this;
+        }
+
+        public Builder withTransferCheckpoints(Collection<TransferState> transferCheckpoints) {
+            this.transferCheckpoints = transferCheckpoints;
+            return this;
+        }
+
+        public Builder withJournalDir(String journalDir) {
+            this.journalDir = journalDir;
+            return this;
+        }
+
+        public Builder withJournalFlushPolicy(JournalFlushPolicy journalFlushPolicy) {
+            this.journalFlushPolicy = journalFlushPolicy;
+            return this;
+        }
+
+        public Builder withJournalFlushIntervalMs(long journalFlushIntervalMs) {
+            this.journalFlushIntervalMs = journalFlushIntervalMs;
+            return this;
+        }
+
+        public Builder withSnapshotDir(String snapshotDir) {
+            this.snapshotDir = snapshotDir;
+            return this;
+        }
+
+        public Builder withSnapshotIntervalMs(long snapshotIntervalMs) {
+            this.snapshotIntervalMs = snapshotIntervalMs;
+            return this;
+        }
+
+        public Builder withTransferRetentionMs(long transferRetentionMs) {
+            this.transferRetentionMs = transferRetentionMs;
+            return this;
+        }
+
+        public Builder withMetricsLogIntervalMs(long metricsLogIntervalMs) {
+            this.metricsLogIntervalMs = metricsLogIntervalMs;
+            return this;
+        }
+
+        public Builder withAdmissionLatencyTargetMs(long admissionLatencyTargetMs) {
+            this.admissionLatencyTargetMs = admissionLatencyTargetMs;
+            return this;
+        }
+
+        public Builder withAdmissionMaxWaitMs(long admissionMaxWaitMs) {
+            this.admissionMaxWaitMs = admissionMaxWaitMs;
+            return this;
+        }
+
+        public Builder withIdempotencyCacheSize(int idempotencyCacheSize) {
+            this.idempotencyCacheSize = idempotencyCacheSize;
+            return this;
+        }
+
+        public Builder withIdempotencyKeyTtlMs(long idempotencyKeyTtlMs) {
+            this.idempotencyKeyTtlMs = idempotencyKeyTtlMs;
+            return this;
+        }
+
+        public Builder withThreadType(ThreadType threadType) {
+            this.threadType = threadType;
+            return this;
+        }
+
+        public Builder withDepositQueueSize(int depositQueueSize) {
+            this.depositQueueSize = depositQueueSize;
+            return this;
+        }
+
+        public Builder withNettingBatchSize(int nettingBatchSize) {
+            this.nettingBatchSize = nettingBatchSize;
+            return this;
+        }
+
+        public Builder withNettingWindowMs(long nettingWindowMs) {
+            this.nettingWindowMs = nettingWindowMs;
+            return this;
+        }
+
+        public Builder withHotAccounts(Collection<AccountId> hotAccounts) {
+            this.hotAccounts = hotAccounts;
+            return this;
+        }
+
+        public Builder withHotAccountContentionThreshold(int hotAccountContentionThreshold) {
+            this.hotAccountContentionThreshold = hotAccountContentionThreshold;
+            return this;
+        }
+
+        public Builder withResponseWriterThreads(int responseWriterThreads) {
+            this.responseWriterThreads = responseWriterThreads;
+            return this;
+        }
+
         public Builder withSwaggerUiBaseUrl(String swaggerUiBaseUrl) {
             this.swaggerUiBaseUrl = swaggerUiBaseUrl;
             return this;
@@ -137,9 +501,7 @@ public class BootstrapConfig {
             String groupId = pkg.getName();
             String artifactId = pkg.getImplementationTitle();
 
-            return new BootstrapConfig(port, bufferSize, maxThreads,
-                    version, groupId, artifactId,
-                    swaggerUiBaseUrl, swaggerDocsBaseUrl, redocBaseUrl);
+            return new BootstrapConfig(this, version, groupId, artifactId);
         }
     }
 }
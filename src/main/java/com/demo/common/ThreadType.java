@@ -0,0 +1,5 @@
+package com.demo.common;
+
+public enum ThreadType {
+    PLATFORM, VIRTUAL
+}
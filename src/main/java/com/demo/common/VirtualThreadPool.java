@@ -0,0 +1,73 @@
+package com.demo.common;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jetty thread pool which runs every job (acceptors, selectors and requests) in its own virtual thread,
+ * so requests blocked on I/O or locks don't hold platform threads and the pool never runs out of threads.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+    private final String namePrefix;
+    private final AtomicInteger threads = new AtomicInteger();
+    private ExecutorService executor;
+
+    public VirtualThreadPool(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    @Override
+    protected void doStart() {
+        executor = VirtualThreads.newThreadPerTaskExecutor(namePrefix);
+    }
+
+    @Override
+    protected void doStop() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void execute(Runnable job) {
+        if (executor == null) {
+            throw new RejectedExecutionException("Thread pool is not started");
+        }
+
+        executor.execute(() -> {
+            threads.incrementAndGet();
+            try {
+                job.run();
+            } finally {
+                threads.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        while (executor != null && !executor.awaitTermination(1, TimeUnit.DAYS)) {
+            // wait until stopped
+        }
+    }
+
+    @Override
+    public int getThreads() {
+        return threads.get();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        // new thread is created for every job
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
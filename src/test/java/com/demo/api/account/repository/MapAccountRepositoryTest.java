@@ -0,0 +1,277 @@
+package com.demo.api.account.repository;
+
+import com.demo.api.account.model.Account;
+import com.demo.api.account.model.AccountId;
+import com.demo.api.exception.NotFoundException;
+import com.demo.api.model.Money;
+import com.demo.common.BootstrapConfig;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class MapAccountRepositoryTest {
+
+    @Test
+    public void shouldDepositAndWithdrawConcurrentlyToHotAccount() throws InterruptedException {
+        // Given
+        AccountId accountId = AccountId.valueOf("1");
+        MapAccountRepository repository = repository(BootstrapConfig.builder()
+                .withHotAccounts(Collections.singletonList(accountId)));
+        repository.save(accountId, account(accountId, Money.of(1000)));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> repository.deposit(accountId, Money.of(2)));
+            executor.execute(() -> repository.withdraw(accountId, Money.of(1)));
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(repository.isHot(accountId), is(true));
+        assertThat(repository.findById(accountId).getBalance(), equalTo(Money.of(2000)));
+        Collection<Account> accounts = repository.findAll();
+        assertThat(accounts.iterator().next().getBalance(), equalTo(Money.of(2000)));
+    }
+
+    @Test
+    public void shouldKeepBalanceWhenAccountTurnsHot() {
+        // Given
+        AccountId accountId = AccountId.valueOf("1");
+        MapAccountRepository repository = repository(BootstrapConfig.builder());
+        repository.save(accountId, account(accountId, Money.of(10)));
+        repository.deposit(accountId, Money.of(5));
+
+        // When
+        repository.markHot(accountId);
+        repository.deposit(accountId, Money.of(1));
+        repository.executeUpdate(accountId, (id, prevAccount) -> account(id, prevAccount.getBalance().plus(Money.of(4))));
+
+        // Then
+        assertThat(repository.findById(accountId).getBalance(), equalTo(Money.of(20)));
+    }
+
+    @Test
+    public void shouldResetHotBalanceOnSave() {
+        // Given
+        AccountId accountId = AccountId.valueOf("1");
+        MapAccountRepository repository = repository(BootstrapConfig.builder()
+                .withHotAccounts(Collections.singletonList(accountId)));
+        repository.save(accountId, account(accountId, Money.of(10)));
+        repository.deposit(accountId, Money.of(5));
+
+        // When
+        repository.save(accountId, account(accountId, Money.of(3)));
+
+        // Then
+        assertThat(repository.findById(accountId).getBalance(), equalTo(Money.of(3)));
+    }
+
+    @Test
+    public void shouldMarkAccountHotOnContendedDeposits() throws InterruptedException {
+        // Given
+        AccountId accountId = AccountId.valueOf("1");
+        MapAccountRepository repository = repository(BootstrapConfig.builder()
+                .withHotAccountContentionThreshold(1));
+        repository.save(accountId, account(accountId, Money.of(0)));
+        CountDownLatch depositing = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        Thread blocker = new Thread(() -> repository.executeUpdate(accountId, (id, prevAccount) -> {
+            depositing.countDown();
+            awaitQuietly(released);
+            return prevAccount;
+        }));
+        blocker.start();
+        depositing.await(5, TimeUnit.SECONDS);
+
+        // When
+        Thread first = new Thread(() -> repository.deposit(accountId, Money.of(1)));
+        Thread second = new Thread(() -> repository.deposit(accountId, Money.of(1)));
+        first.start();
+        second.start();
+        // both deposits wait for the map bin held by blocker
+        Thread.sleep(200);
+        released.countDown();
+        blocker.join();
+        first.join();
+        second.join();
+
+        // Then
+        assertThat(repository.isHot(accountId), is(true));
+        assertThat(repository.findById(accountId).getBalance(), equalTo(Money.of(2)));
+    }
+
+    @Test
+    public void shouldCoolDownIdleAccountWhichTurnedHot() {
+        // Given
+        AccountId accountId = AccountId.valueOf("1");
+        MapAccountRepository repository = repository(BootstrapConfig.builder()
+                .withHotAccountContentionThreshold(1000));
+        repository.save(accountId, account(accountId, Money.of(0)));
+        repository.markHot(accountId);
+        AtomicInteger deposits = new AtomicInteger();
+
+        // When
+        await().atMost(5, TimeUnit.SECONDS).until(() -> {
+            repository.deposit(accountId, Money.of(1));
+            deposits.incrementAndGet();
+            return !repository.isHot(accountId);
+        });
+        repository.deposit(accountId, Money.of(1));
+
+        // Then
+        assertThat(repository.findById(accountId).getBalance(), equalTo(Money.of(deposits.get() + 1)));
+    }
+
+    @Test
+    public void shouldKeepConfiguredHotAccountHot() throws InterruptedException {
+        // Given
+        AccountId accountId = AccountId.valueOf("1");
+        MapAccountRepository repository = repository(BootstrapConfig.builder()
+                .withHotAccounts(Collections.singletonList(accountId))
+                .withHotAccountContentionThreshold(1000));
+        repository.save(accountId, account(accountId, Money.of(0)));
+
+        // When
+        repository.deposit(accountId, Money.of(1));
+        TimeUnit.NANOSECONDS.sleep(MapAccountRepository.CONTENTION_WINDOW_NANOS);
+        repository.deposit(accountId, Money.of(1));
+
+        // Then
+        assertThat(repository.isHot(accountId), is(true));
+        assertThat(repository.findById(accountId).getBalance(), equalTo(Money.of(2)));
+    }
+
+    @Test
+    public void shouldKeepDepositsWhichRaceWithCoolDown() throws InterruptedException {
+        // Given
+        AccountId accountId = AccountId.valueOf("1");
+        MapAccountRepository repository = repository(BootstrapConfig.builder()
+                .withHotAccountContentionThreshold(Integer.MAX_VALUE));
+        repository.save(accountId, account(accountId, Money.of(0)));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        long deadline = System.nanoTime() + 3 * MapAccountRepository.CONTENTION_WINDOW_NANOS;
+        AtomicInteger deposits = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    if (!repository.isHot(accountId)) {
+                        repository.markHot(accountId);
+                    }
+                    repository.deposit(accountId, Money.of(1));
+                    deposits.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(repository.findById(accountId).getBalance(), equalTo(Money.of(deposits.get())));
+    }
+
+    @Test
+    public void shouldNeverReadBalanceFromBeforeAccountTurnedHotWhileItCoolsDown() throws InterruptedException {
+        // Given
+        AccountId accountId = AccountId.valueOf("1");
+        // every deposit closes the window, so hot balance cools down right after it turns hot
+        MapAccountRepository repository = new MapAccountRepository(new ConcurrentHashMap<>(), BootstrapConfig.builder()
+                .withHotAccountContentionThreshold(Integer.MAX_VALUE)
+                .withBufferSize(8)
+                .withMaxThreads(1)
+                .build(), 0);
+        repository.save(accountId, account(accountId, Money.of(0)));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        List<Money> staleReads = new CopyOnWriteArrayList<>();
+
+        // When
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    repository.markHot(accountId);
+                    repository.deposit(accountId, Money.of(1));
+                }
+            });
+            executor.execute(() -> {
+                // only deposits are made, so balance read by one thread never goes down
+                Money prevBalance = Money.ZERO;
+                while (System.nanoTime() < deadline) {
+                    Money balance = repository.findById(accountId).getBalance();
+                    if (balance.isLessThan(prevBalance)) {
+                        staleReads.add(balance);
+                    }
+                    prevBalance = balance;
+                }
+            });
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(staleReads, empty());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void shouldRejectDepositWhichOverflowsHotBalance() {
+        // Given
+        AccountId accountId = AccountId.valueOf("1");
+        MapAccountRepository repository = repository(BootstrapConfig.builder()
+                .withHotAccounts(Collections.singletonList(accountId)));
+        repository.save(accountId, account(accountId, Money.of(0)));
+        repository.deposit(accountId, Money.MAX);
+
+        // When
+        repository.deposit(accountId, Money.ofMinor(1));
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void shouldRejectDepositToUnknownAccount() {
+        // Given
+        MapAccountRepository repository = repository(BootstrapConfig.builder()
+                .withHotAccountContentionThreshold(1));
+
+        // When
+        repository.deposit(AccountId.valueOf("1"), Money.of(1));
+    }
+
+    private MapAccountRepository repository(BootstrapConfig.Builder config) {
+        return new MapAccountRepository(new ConcurrentHashMap<>(), config
+                .withBufferSize(8)
+                .withMaxThreads(1)
+                .build());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Account account(AccountId accountId, Money balance) {
+        return Account.builder()
+                .withId(accountId)
+                .withBalance(balance)
+                .build();
+    }
+}
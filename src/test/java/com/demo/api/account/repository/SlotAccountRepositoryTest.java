@@ -0,0 +1,165 @@
+package com.demo.api.account.repository;
+
+import com.demo.api.account.model.Account;
+import com.demo.api.account.model.AccountId;
+import com.demo.api.exception.NotFoundException;
+import com.demo.api.model.Money;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SlotAccountRepositoryTest {
+
+    @Test
+    public void shouldFindSavedAccount() {
+        // Given
+        SlotAccountRepository repository = new SlotAccountRepository();
+        AccountId accountId = AccountId.valueOf("1");
+
+        // When
+        repository.save(accountId, account(accountId, Money.of(10)));
+
+        // Then
+        assertThat(repository.findById(accountId).getBalance(), equalTo(Money.of(10)));
+        assertThat(repository.findById(AccountId.valueOf("2")), nullValue());
+    }
+
+    @Test
+    public void shouldKeepBalancesOfAccountsInDifferentSegments() {
+        // Given
+        SlotAccountRepository repository = new SlotAccountRepository(2);
+        List<AccountId> accountIds = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            AccountId accountId = AccountId.valueOf(String.valueOf(i));
+            accountIds.add(accountId);
+            repository.save(accountId, account(accountId, Money.of(i)));
+        }
+
+        // Then
+        for (int i = 0; i < accountIds.size(); i++) {
+            assertThat(repository.findById(accountIds.get(i)).getBalance(), equalTo(Money.of(i)));
+        }
+    }
+
+    @Test
+    public void shouldDepositAndWithdrawConcurrently() throws InterruptedException {
+        // Given
+        SlotAccountRepository repository = new SlotAccountRepository();
+        AccountId accountId = AccountId.valueOf("1");
+        repository.save(accountId, account(accountId, Money.of(1000)));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> repository.deposit(accountId, Money.of(2)));
+            executor.execute(() -> repository.withdraw(accountId, Money.of(1)));
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(repository.findById(accountId).getBalance(), equalTo(Money.of(2000)));
+    }
+
+    @Test
+    public void shouldUpdateBalanceWithExecutor() {
+        // Given
+        SlotAccountRepository repository = new SlotAccountRepository();
+        AccountId accountId = AccountId.valueOf("1");
+        repository.save(accountId, account(accountId, Money.of(1)));
+
+        // When
+        repository.executeUpdate(accountId, (id, prevAccount) -> account(id, prevAccount.getBalance().plus(Money.of(1))));
+
+        // Then
+        assertThat(repository.findById(accountId).getBalance(), equalTo(Money.of(2)));
+    }
+
+    @Test
+    public void shouldSaveAndFindAccountsInBulk() {
+        // Given
+        SlotAccountRepository repository = new SlotAccountRepository(2);
+        AccountId existingAccountId = AccountId.valueOf("0");
+        repository.save(existingAccountId, account(existingAccountId, Money.of(1)));
+        List<Account> accounts = new ArrayList<>();
+        List<AccountId> accountIds = new ArrayList<>();
+        accounts.add(account(existingAccountId, Money.of(5)));
+        for (int i = 1; i < 10; i++) {
+            AccountId accountId = AccountId.valueOf(String.valueOf(i));
+            accounts.add(account(accountId, Money.of(i)));
+            accountIds.add(accountId);
+        }
+
+        // When
+        repository.saveAll(accounts);
+
+        // Then
+        List<Account> found = repository.findAllById(Arrays.asList(existingAccountId, AccountId.valueOf("missing"),
+                accountIds.get(8)));
+        assertThat(found.size(), equalTo(2));
+        assertThat(found.get(0).getBalance(), equalTo(Money.of(5)));
+        assertThat(found.get(1).getBalance(), equalTo(Money.of(9)));
+        for (int i = 0; i < accountIds.size(); i++) {
+            assertThat(repository.findById(accountIds.get(i)).getBalance(), equalTo(Money.of(i + 1)));
+        }
+    }
+
+    @Test
+    public void shouldFindAccountsWithGeneratedIdsAfterIndexGrows() {
+        // Given
+        SlotAccountRepository repository = new SlotAccountRepository(4);
+        Map<AccountId, Money> balances = new HashMap<>();
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            AccountId accountId = AccountId.generate();
+            balances.put(accountId, Money.of(i));
+            if (i % 2 == 0) {
+                repository.save(accountId, account(accountId, Money.of(i)));
+            } else {
+                accounts.add(account(accountId, Money.of(i)));
+            }
+        }
+
+        // When
+        repository.saveAll(accounts);
+
+        // Then
+        balances.forEach((accountId, balance) ->
+                assertThat(repository.findById(accountId).getBalance(), equalTo(balance)));
+        Map<AccountId, Money> found = repository.findAll().stream()
+                .collect(Collectors.toMap(Account::getId, Account::getBalance));
+        assertThat(found, equalTo(balances));
+        assertThat(repository.findById(AccountId.generate()), nullValue());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void shouldRejectDepositToUnknownAccount() {
+        // Given
+        SlotAccountRepository repository = new SlotAccountRepository();
+
+        // When
+        repository.deposit(AccountId.valueOf("1"), Money.of(1));
+    }
+
+    private Account account(AccountId accountId, Money balance) {
+        return Account.builder()
+                .withId(accountId)
+                .withBalance(balance)
+                .build();
+    }
+}
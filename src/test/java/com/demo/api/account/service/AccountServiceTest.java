@@ -6,13 +6,20 @@ import com.demo.api.account.validator.AccountValidator;
 import com.demo.api.account.validator.DebitAccountValidator;
 import com.demo.api.account.model.AccountId;
 import com.demo.api.exception.InvalidDataException;
+import com.demo.api.model.BatchResult;
+import com.demo.api.model.Money;
+import com.demo.api.journal.Journal;
+import com.demo.api.journal.NoOpJournal;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import net.lamberto.junit.GuiceJUnitRunner;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 
-import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -33,7 +40,7 @@ public class AccountServiceTest {
     @Test
     public void shouldCreateAccountWithPositiveBalance() {
         // Given
-        BigDecimal positiveBalance = BigDecimal.ONE;
+        Money positiveBalance = Money.of(1);
 
         // When
         AccountId sourceAccountId = accountService.createNew(positiveBalance);
@@ -44,10 +51,29 @@ public class AccountServiceTest {
         verify(accountRepository, times(1)).save(eq(sourceAccountId), any(Account.class));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldCreateValidAccountsOfBatch() {
+        // Given
+        List<Money> initialBalances = Arrays.asList(Money.of(1), Money.of(-1), Money.ZERO);
+
+        // When
+        List<BatchResult<AccountId>> results = accountService.createNew(initialBalances);
+
+        // Then
+        assertThat(results.get(0).isSuccess(), is(true));
+        assertThat(results.get(1).isSuccess(), is(false));
+        assertThat(results.get(2).isSuccess(), is(true));
+        ArgumentCaptor<Collection> accounts = ArgumentCaptor.forClass(Collection.class);
+        verify(accountRepository, times(1)).saveAll(accounts.capture());
+        assertThat(accounts.getValue().size(), is(2));
+        verify(accountRepository, never()).save(any(AccountId.class), any(Account.class));
+    }
+
     @Test
     public void shouldCreateAccountWithZeroBalance() {
         // Given
-        BigDecimal positiveBalance = BigDecimal.ZERO;
+        Money positiveBalance = Money.ZERO;
 
         // When
         AccountId sourceAccountId = accountService.createNew(positiveBalance);
@@ -61,7 +87,7 @@ public class AccountServiceTest {
     @Test
     public void shouldFailWhenCreateAccountWithNegativeBalance() {
         // Given
-        BigDecimal positiveBalance = BigDecimal.ONE.negate();
+        Money positiveBalance = Money.of(-1);
 
         // When
         try {
@@ -80,6 +106,7 @@ public class AccountServiceTest {
             bind(AccountRepository.class).toInstance(mock(AccountRepository.class));
             bind(AccountValidator.class).to(DebitAccountValidator.class);
             bind(AccountService.class).to(InMemoryAccountService.class);
+            bind(Journal.class).to(NoOpJournal.class);
         }
     }
 }
@@ -0,0 +1,178 @@
+package com.demo.api.journal;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+
+public class MappedJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReplayAppendedRecordsInOrder() throws Exception {
+        // Given
+        Path directory = folder.newFolder().toPath();
+        MappedJournal journal = new MappedJournal(directory, JournalFlushPolicy.ASYNC, 10);
+        AccountId accountId = AccountId.generate();
+        TransferEvent event = transferEvent(TransferState.SOURCE_WITHDRAWN);
+
+        // When
+        journal.appendAccountOpened(accountId, Money.of(10));
+        journal.appendTransferStateChanged(event);
+        RecordingListener listener = new RecordingListener();
+        journal.replay(0, listener);
+        journal.close();
+
+        // Then
+        assertThat(listener.accounts, equalTo(List.of(accountId)));
+        assertThat(listener.balances, equalTo(List.of(Money.of(10))));
+        assertThat(listener.events, hasSize(1));
+        assertThat(listener.events.get(0).getTransferId(), equalTo(event.getTransferId()));
+        assertThat(listener.events.get(0).getState(), equalTo(TransferState.SOURCE_WITHDRAWN));
+        assertThat(listener.events.get(0).getAmount(), equalTo(event.getAmount()));
+    }
+
+    @Test
+    public void shouldReplayRecordsWithTextIdsAndMultiByteDetails() throws Exception {
+        // Given
+        Path directory = folder.newFolder().toPath();
+        MappedJournal journal = new MappedJournal(directory, JournalFlushPolicy.ASYNC, 10);
+        AccountId accountId = AccountId.valueOf("счёт-1");
+        TransferEvent event = TransferEvent.builder()
+                .withTransferId(TransferId.valueOf("transfer-1"))
+                .withSourceId(accountId)
+                .withTargetId(AccountId.valueOf("2"))
+                .withAmount(Money.ofMinor(150))
+                .withState(TransferState.ERROR)
+                .withDetails("Überweisung fehlgeschlagen \u20ac \uD83D\uDCB8 \uD800")
+                .build();
+
+        // When
+        journal.appendAccountOpened(accountId, Money.of(10));
+        journal.appendTransferStateChanged(event);
+        journal.appendAccountOpened(AccountId.valueOf("3"), Money.of(20));
+        RecordingListener listener = new RecordingListener();
+        journal.replay(0, listener);
+        journal.close();
+
+        // Then
+        assertThat(listener.accounts, equalTo(List.of(accountId, AccountId.valueOf("3"))));
+        assertThat(listener.balances, equalTo(List.of(Money.of(10), Money.of(20))));
+        assertThat(listener.events, hasSize(1));
+        assertThat(listener.events.get(0).getTransferId(), equalTo(event.getTransferId()));
+        assertThat(listener.events.get(0).getSourceId(), equalTo(accountId));
+        assertThat(listener.events.get(0).getDetails(), equalTo("Überweisung fehlgeschlagen \u20ac \uD83D\uDCB8 ?"));
+    }
+
+    @Test
+    public void shouldContinueAfterReopen() throws Exception {
+        // Given
+        Path directory = folder.newFolder().toPath();
+        MappedJournal journal = new MappedJournal(directory, JournalFlushPolicy.GROUP_COMMIT, 10);
+        journal.sync(journal.appendTransferStateChanged(transferEvent(TransferState.PENDING)));
+        long position = journal.position();
+        journal.close();
+
+        // When
+        MappedJournal reopened = new MappedJournal(directory, JournalFlushPolicy.GROUP_COMMIT, 10);
+        reopened.sync(reopened.appendTransferStateChanged(transferEvent(TransferState.DONE)));
+        RecordingListener listener = new RecordingListener();
+        reopened.replay(0, listener);
+        reopened.close();
+
+        // Then
+        assertThat(reopened.position(), greaterThan(position));
+        assertThat(listener.events, hasSize(2));
+        assertThat(listener.events.get(0).getState(), equalTo(TransferState.PENDING));
+        assertThat(listener.events.get(1).getState(), equalTo(TransferState.DONE));
+    }
+
+    @Test
+    public void shouldRollOverToNextSegment() throws Exception {
+        // Given
+        Path directory = folder.newFolder().toPath();
+        MappedJournal journal = new MappedJournal(directory, JournalFlushPolicy.ASYNC, 10, 256 * 1024);
+        int records = 5_000;
+
+        // When
+        for (int i = 0; i < records; i++) {
+            journal.appendTransferStateChanged(transferEvent(TransferState.PENDING));
+        }
+        journal.close();
+        MappedJournal reopened = new MappedJournal(directory, JournalFlushPolicy.ASYNC, 10, 256 * 1024);
+        RecordingListener listener = new RecordingListener();
+        reopened.replay(0, listener);
+        reopened.close();
+
+        // Then
+        assertThat(directory.toFile().list().length, greaterThan(1));
+        assertThat(listener.events, hasSize(records));
+    }
+
+    @Test
+    public void shouldRemoveSegmentsBeforeTruncatedPosition() throws Exception {
+        // Given
+        Path directory = folder.newFolder().toPath();
+        MappedJournal journal = new MappedJournal(directory, JournalFlushPolicy.ASYNC, 10, 256 * 1024);
+        for (int i = 0; i < 5_000; i++) {
+            journal.appendTransferStateChanged(transferEvent(TransferState.PENDING));
+        }
+        long position = journal.position();
+        TransferEvent event = transferEvent(TransferState.DONE);
+        journal.appendTransferStateChanged(event);
+
+        // When
+        journal.truncate(position);
+        RecordingListener listener = new RecordingListener();
+        journal.replay(position, listener);
+        journal.close();
+
+        // Then
+        assertThat(directory.toFile().list().length, equalTo(1));
+        assertThat(listener.events, hasSize(1));
+        assertThat(listener.events.get(0).getTransferId(), equalTo(event.getTransferId()));
+    }
+
+    private static TransferEvent transferEvent(TransferState state) {
+        return TransferEvent.builder()
+                .withTransferId(TransferId.generate())
+                .withSourceId(AccountId.generate())
+                .withTargetId(AccountId.generate())
+                .withAmount(Money.ofMinor(150))
+                .withState(state)
+                .withDetails("Transfer details")
+                .build();
+    }
+
+    private static class RecordingListener implements JournalListener {
+        private final List<AccountId> accounts = new ArrayList<>();
+        private final List<Money> balances = new ArrayList<>();
+        private final List<TransferEvent> events = new ArrayList<>();
+
+        @Override
+        public void onAccountOpened(AccountId accountId, Money balance) {
+            accounts.add(accountId);
+            balances.add(balance);
+        }
+
+        @Override
+        public void onTransferStateChanged(TransferEvent event) {
+            events.add(event);
+        }
+    }
+}
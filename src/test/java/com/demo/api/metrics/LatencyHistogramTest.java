@@ -0,0 +1,90 @@
+package com.demo.api.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldPlaceEveryValueIntoBucketCoveringIt() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456_789, 1L << 40}) {
+            // When
+            int index = LatencyHistogram.bucketIndex(value);
+
+            // Then
+            assertThat(LatencyHistogram.bucketUpperBound(index), greaterThanOrEqualTo(value));
+            assertThat(index == 0 || LatencyHistogram.bucketUpperBound(index - 1) < value, is(true));
+        }
+    }
+
+    @Test
+    public void shouldReportPercentilesWithinBucketPrecision() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        // Then
+        assertThat(histogram.getCount(), is(1000L));
+        assertThat(histogram.getMax(), is(1_000_000L));
+        assertThat(histogram.getPercentile(0.5), allOf(greaterThanOrEqualTo(500_000L), lessThanOrEqualTo(532_000L)));
+        assertThat(histogram.getPercentile(0.99), allOf(greaterThanOrEqualTo(990_000L), lessThanOrEqualTo(1_000_000L)));
+        assertThat(histogram.getPercentile(1), is(1_000_000L));
+        assertThat(new LatencyHistogram().getPercentile(0.5), is(0L));
+    }
+
+    @Test
+    public void shouldSumUpSamplesRecordedByManyThreads() throws InterruptedException {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        for (int thread = 0; thread < 4; thread++) {
+            long value = (thread + 1) * 1000L;
+            executor.execute(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    histogram.record(value);
+                }
+            });
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(histogram.getCount(), is(4000L));
+        assertThat(histogram.getSum(), is(10_000_000L));
+        assertThat(histogram.getMax(), is(4000L));
+        assertThat(histogram.getPercentile(0.25), allOf(greaterThanOrEqualTo(1000L), lessThanOrEqualTo(1063L)));
+    }
+
+    @Test
+    public void shouldRenderMetricsInPrometheusFormat() {
+        // Given
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.histogram("stage_latency_seconds", "Stage latency", "stage", "register").record(2_000_000);
+        registry.counter("completed_total", "Completed", "state", "done").add(3);
+
+        // When
+        String metrics = registry.scrape();
+
+        // Then
+        assertThat(metrics, containsString("# TYPE completed_total counter\ncompleted_total{state=\"done\"} 3\n"));
+        assertThat(metrics, containsString("# TYPE stage_latency_seconds summary\n"));
+        assertThat(metrics, containsString("stage_latency_seconds{stage=\"register\",quantile=\"0.99\"} 0.002"));
+        assertThat(metrics, containsString("stage_latency_seconds_count{stage=\"register\"} 1\n"));
+    }
+}
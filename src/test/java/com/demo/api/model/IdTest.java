@@ -0,0 +1,110 @@
+package com.demo.api.model;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.transfer.model.TransferId;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class IdTest {
+
+    @Test
+    public void shouldKeepCanonicalFormOfUuid() {
+        // Given
+        String value = UUID.randomUUID().toString();
+
+        // When
+        AccountId accountId = AccountId.valueOf(value);
+
+        // Then
+        assertThat(accountId.getValue(), equalTo(value));
+        assertThat(accountId.toString(), equalTo(value));
+    }
+
+    @Test
+    public void shouldBeEqualToIdParsedFromItsValue() {
+        // Given
+        TransferId transferId = TransferId.generate();
+
+        // When
+        TransferId parsedTransferId = TransferId.valueOf(transferId.getValue());
+
+        // Then
+        assertThat(parsedTransferId, equalTo(transferId));
+        assertThat(parsedTransferId.hashCode(), equalTo(transferId.hashCode()));
+        assertThat(UUID.fromString(transferId.getValue()).toString(), equalTo(transferId.getValue()));
+    }
+
+    @Test
+    public void shouldKeepNonUuidValueAsIs() {
+        // Given
+        String value = "someFakeId";
+
+        // When
+        AccountId accountId = AccountId.valueOf(value);
+
+        // Then
+        assertThat(accountId.getValue(), equalTo(value));
+        assertThat(accountId, equalTo(AccountId.valueOf(value)));
+        assertThat(accountId, not(equalTo(AccountId.valueOf("1"))));
+    }
+
+    @Test
+    public void shouldNotTreatMalformedUuidAsBinary() {
+        // Given
+        String value = "de07e939x55dd-4086-b559-86db399e51d5";
+
+        // When
+        AccountId accountId = AccountId.valueOf(value);
+
+        // Then
+        assertThat(accountId.getValue(), equalTo(value));
+    }
+
+    @Test
+    public void shouldNotTreatUuidWithNonAsciiDigitsAsBinary() {
+        // Given
+        // Arabic-Indic digit one instead of the first '1'
+        String value = "de07e939-55dd-4086-b559-86db399e5\u0661d5";
+
+        // When
+        AccountId accountId = AccountId.valueOf(value);
+
+        // Then
+        assertThat(accountId.isBinary(), is(false));
+        assertThat(accountId.getValue(), equalTo(value));
+        assertThat(accountId, not(equalTo(AccountId.valueOf("de07e939-55dd-4086-b559-86db399e51d5"))));
+    }
+
+    @Test
+    public void shouldKeepMixedCaseUuidAsIs() {
+        // Given
+        String value = "DE07E939-55dd-4086-B559-86db399e51d5";
+
+        // When
+        AccountId accountId = AccountId.valueOf(value);
+
+        // Then
+        assertThat(accountId.isBinary(), is(false));
+        assertThat(accountId.getValue(), equalTo(value));
+        assertThat(accountId, not(equalTo(AccountId.valueOf(value.toLowerCase(Locale.ROOT)))));
+    }
+
+    @Test
+    public void shouldNotBeEqualToIdOfAnotherType() {
+        // Given
+        String value = UUID.randomUUID().toString();
+
+        // When
+        boolean equal = AccountId.valueOf(value).equals(TransferId.valueOf(value));
+
+        // Then
+        assertThat(equal, is(false));
+    }
+}
@@ -0,0 +1,79 @@
+package com.demo.api.model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class MoneyTest {
+
+    @Test
+    public void shouldConvertDecimalToMinorUnits() {
+        // Given
+        BigDecimal amount = new BigDecimal("12.3");
+
+        // When
+        Money money = Money.of(amount);
+
+        // Then
+        assertThat(money.getMinorUnits(), is(1230L));
+        assertThat(money, equalTo(Money.ofMinor(1230)));
+    }
+
+    @Test
+    public void shouldConvertToDecimalWithoutTrailingZeros() {
+        // Given
+        Money wholeAmount = Money.of(10);
+        Money fractionAmount = Money.ofMinor(1050);
+
+        // When
+        BigDecimal wholeDecimal = wholeAmount.toBigDecimal();
+        BigDecimal fractionDecimal = fractionAmount.toBigDecimal();
+
+        // Then
+        assertThat(wholeDecimal, equalTo(BigDecimal.TEN));
+        assertThat(fractionDecimal, equalTo(new BigDecimal("10.5")));
+        assertThat(Money.ZERO.toBigDecimal(), equalTo(BigDecimal.ZERO));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void shouldRejectAmountBelowMinorUnit() {
+        // When
+        Money.of(new BigDecimal("0.001"));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void shouldRejectAmountOutOfRange() {
+        // When
+        Money.of(BigDecimal.valueOf(Long.MAX_VALUE));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void shouldFailOnOverflow() {
+        // Given
+        Money money = Money.ofMinor(Long.MAX_VALUE);
+
+        // When
+        money.plus(Money.ofMinor(1));
+    }
+
+    @Test
+    public void shouldAddAndSubtract() {
+        // Given
+        Money money = Money.of(new BigDecimal("1.25"));
+
+        // When
+        Money sum = money.plus(Money.of(1));
+        Money difference = money.minus(money);
+
+        // Then
+        assertThat(sum.toBigDecimal(), equalTo(new BigDecimal("2.25")));
+        assertThat(difference, sameInstance(Money.ZERO));
+        assertThat(money.minus(sum).isNegative(), is(true));
+        assertThat(money.isLessThan(sum), is(true));
+    }
+}
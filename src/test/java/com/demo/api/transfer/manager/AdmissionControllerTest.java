@@ -0,0 +1,93 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.metrics.MetricsRegistry;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.common.BootstrapConfig;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class AdmissionControllerTest {
+
+    @Test
+    public void shouldAdmitEverythingIfDisabled() {
+        // Given
+        AdmissionController admissionController = newAdmissionController(0);
+
+        // When
+        int admitted = admissionController.tryAcquire(1000);
+
+        // Then
+        assertThat(admitted, is(1000));
+    }
+
+    @Test
+    public void shouldRejectTransfersAboveLimit() {
+        // Given
+        AdmissionController admissionController = newAdmissionController(1000);
+        int limit = admissionController.getLimit();
+
+        // When
+        int admitted = admissionController.tryAcquire(limit + 5);
+        int admittedAboveLimit = admissionController.tryAcquire(1);
+        admissionController.release(1);
+        int admittedAfterRelease = admissionController.tryAcquire(1);
+
+        // Then
+        assertThat(admitted, is(limit));
+        assertThat(admittedAboveLimit, is(0));
+        assertThat(admittedAfterRelease, is(1));
+    }
+
+    @Test
+    public void shouldGrowLimitWhileLatencyIsWithinTargetAndCutItOtherwise() {
+        // Given
+        AdmissionController admissionController = newAdmissionController(1000);
+        int initialLimit = admissionController.getLimit();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            admissionController.tryAcquire(1);
+            admissionController.onCompleted(event(System.nanoTime()));
+        }
+        int grownLimit = admissionController.getLimit();
+        admissionController.tryAcquire(1);
+        admissionController.onCompleted(event(System.nanoTime() - TimeUnit.SECONDS.toNanos(2)));
+        int cutLimit = admissionController.getLimit();
+
+        // Then
+        assertThat(grownLimit, greaterThan(initialLimit));
+        assertThat(cutLimit, lessThan(grownLimit));
+    }
+
+    private static AdmissionController newAdmissionController(long latencyTargetMs) {
+        BootstrapConfig config = BootstrapConfig.builder()
+                .withBufferSize(100)
+                .withMaxThreads(1)
+                .withAdmissionLatencyTargetMs(latencyTargetMs)
+                .withAdmissionMaxWaitMs(0)
+                .build();
+        return new AdmissionController(config, new MetricsRegistry());
+    }
+
+    private static TransferEvent event(long createdAtNanos) {
+        return TransferEvent.builder()
+                .withTransferId(TransferId.generate())
+                .withSourceId(AccountId.valueOf("1"))
+                .withTargetId(AccountId.valueOf("2"))
+                .withAmount(Money.of(1))
+                .withState(TransferState.TARGET_DEPOSITED)
+                .withDetails("Target account balance updated")
+                .withCreatedAtNanos(createdAtNanos)
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.journal.Journal;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+public class CompletionCommitterTest {
+
+    @Test
+    public void shouldRunCompletionsAfterOneSyncOfTheirGroup() throws InterruptedException {
+        // Given
+        Journal journal = mock(Journal.class);
+        CountDownLatch syncing = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            syncing.countDown();
+            released.await(5, TimeUnit.SECONDS);
+            return null;
+        }).doNothing().when(journal).sync(anyLong());
+        CompletionCommitter committer = new CompletionCommitter(journal);
+        List<Long> completed = new CopyOnWriteArrayList<>();
+        committer.submit(10, () -> completed.add(10L));
+        assertThat(syncing.await(5, TimeUnit.SECONDS), is(true));
+
+        // When
+        committer.submit(30, () -> completed.add(30L));
+        committer.submit(20, () -> completed.add(20L));
+        released.countDown();
+
+        // Then
+        await().until(() -> completed.size() == 3);
+        assertThat(completed, contains(10L, 30L, 20L));
+        verify(journal).sync(10);
+        verify(journal).sync(30);
+        verifyNoMoreInteractions(journal);
+    }
+
+    @Test
+    public void shouldKeepCommittingWhenCompletionFails() {
+        // Given
+        Journal journal = mock(Journal.class);
+        CompletionCommitter committer = new CompletionCommitter(journal);
+        List<Long> completed = new CopyOnWriteArrayList<>();
+
+        // When
+        committer.submit(10, () -> {
+            throw new IllegalStateException("Completion failed");
+        });
+        committer.submit(20, () -> completed.add(20L));
+
+        // Then
+        await().until(() -> completed.size() == 1);
+        assertThat(completed, contains(20L));
+    }
+}
@@ -0,0 +1,63 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.metrics.MetricsRegistry;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.store.BusySpinWaitStrategy;
+import com.demo.api.transfer.store.RingBufferEventStore;
+import com.demo.common.BootstrapConfig;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+
+public class EventStoreMetricsTest {
+
+    @Test
+    public void shouldReportRejectionRateOfLastInterval() {
+        // Given
+        BootstrapConfig config = BootstrapConfig.builder()
+                .withBufferSize(8)
+                .withMaxThreads(1)
+                .build();
+        MetricsRegistry registry = new MetricsRegistry();
+        RingBufferEventStore<TransferEvent> eventStore = new RingBufferEventStore<>(8, new BusySpinWaitStrategy());
+        EventStoreMetrics metrics = new EventStoreMetrics(config, eventStore, registry);
+        metrics.onSubmitted(10, 0);
+        metrics.log();
+
+        // When
+        metrics.onSubmitted(3, 1);
+        String logLine = metrics.log();
+
+        // Then
+        assertThat(logLine, containsString("Event store 0/8, last interval: accepted 3, rejected 1 (25.00%)"));
+        String scrape = registry.scrape();
+        assertThat(scrape, containsString("transfer_submissions_total{result=\"accepted\"} 13\n"));
+        assertThat(scrape, containsString("transfer_submissions_total{result=\"rejected\"} 1\n"));
+        assertThat(scrape, containsString("transfer_event_store_capacity 8\n"));
+    }
+
+    @Test
+    public void shouldReportRejectedRatioOfLastWindowWithoutLogging() {
+        // Given
+        BootstrapConfig config = BootstrapConfig.builder()
+                .withBufferSize(8)
+                .withMaxThreads(1)
+                .withMetricsLogIntervalMs(0)
+                .build();
+        MetricsRegistry registry = new MetricsRegistry();
+        RingBufferEventStore<TransferEvent> eventStore = new RingBufferEventStore<>(8, new BusySpinWaitStrategy());
+        // every scrape closes the window
+        EventStoreMetrics metrics = new EventStoreMetrics(config, eventStore, registry, 0);
+        metrics.onSubmitted(10, 0);
+        registry.scrape();
+
+        // When
+        metrics.onSubmitted(3, 1);
+        String scrape = registry.scrape();
+
+        // Then
+        assertThat(scrape, containsString("transfer_submissions_rejected_ratio 0.25\n"));
+        assertThat(registry.scrape(), containsString("transfer_submissions_rejected_ratio 0\n"));
+    }
+}
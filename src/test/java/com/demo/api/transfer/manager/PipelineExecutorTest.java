@@ -0,0 +1,304 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.api.transfer.store.BusySpinWaitStrategy;
+import com.demo.api.transfer.store.RingBufferEventStore;
+import com.demo.common.BootstrapConfig;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class PipelineExecutorTest {
+
+    @Test
+    public void shouldDepositOnWorkerThreadOfEveryPartition() {
+        // Given
+        BootstrapConfig config = BootstrapConfig.builder()
+                .withBufferSize(1024)
+                .withMaxThreads(2)
+                .withDepositQueueSize(4)
+                .build();
+        RingBufferEventStore<TransferEvent> eventStore = new RingBufferEventStore<>(1024, new BusySpinWaitStrategy());
+        Set<String> depositThreads = ConcurrentHashMap.newKeySet();
+        AtomicInteger completed = new AtomicInteger();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        PipelineExecutor pipeline = PipelineExecutor.builder()
+                .withEventSource(eventStore)
+                .withConfig(config)
+                .withRegisterTransferFn(Function.identity())
+                .withValidateTransferFn(Function.identity())
+                .withIsValidTransferFn(event -> true)
+                .withWithdrawSourceFn(Function.identity())
+                .withDepositTargetFn(event -> {
+                    depositThreads.add(Thread.currentThread().getName());
+                    return event;
+                })
+                .withCompleteTransferFn(event -> completed.incrementAndGet())
+                .withErrorHandler(errors::add)
+                .build();
+        pipeline.start();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            eventStore.put(newEvent());
+        }
+
+        // Then
+        try {
+            await().until(() -> completed.get() == 100);
+            assertThat(depositThreads, containsInAnyOrder("pipeline-deposit-0", "pipeline-deposit-1"));
+            assertThat(errors, empty());
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    public void shouldReleaseEventSourceWhenStopped() throws InterruptedException {
+        // Given
+        BootstrapConfig config = BootstrapConfig.builder()
+                .withBufferSize(16)
+                .withMaxThreads(1)
+                .build();
+        CountDownLatch taking = new CountDownLatch(1);
+        AtomicBoolean inTake = new AtomicBoolean();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        RingBufferEventStore<TransferEvent> eventStore = new RingBufferEventStore<TransferEvent>(16, new BusySpinWaitStrategy()) {
+            @Override
+            public TransferEvent take(BooleanSupplier running) {
+                inTake.set(true);
+                taking.countDown();
+                try {
+                    TransferEvent event = super.take(running);
+                    if (event == null) {
+                        // consumer is slow to notice the stop
+                        Thread.sleep(200);
+                    }
+                    return event;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                } finally {
+                    inTake.set(false);
+                }
+            }
+        };
+        PipelineExecutor pipeline = PipelineExecutor.builder()
+                .withEventSource(eventStore)
+                .withConfig(config)
+                .withRegisterTransferFn(Function.identity())
+                .withValidateTransferFn(Function.identity())
+                .withIsValidTransferFn(event -> true)
+                .withWithdrawSourceFn(Function.identity())
+                .withDepositTargetFn(Function.identity())
+                .withCompleteTransferFn(event -> {
+                })
+                .withErrorHandler(errors::add)
+                .build();
+        pipeline.start();
+        assertThat(taking.await(5, TimeUnit.SECONDS), is(true));
+
+        // When
+        pipeline.stop();
+
+        // Then
+        assertThat(inTake.get(), is(false));
+        assertThat(errors, empty());
+    }
+
+    @Test
+    public void shouldHoldSourceBackWhileDepositWorkerIsBusy() throws InterruptedException {
+        // Given
+        BootstrapConfig config = BootstrapConfig.builder()
+                .withBufferSize(4096)
+                .withMaxThreads(1)
+                .withDepositQueueSize(4)
+                .build();
+        RingBufferEventStore<TransferEvent> eventStore = new RingBufferEventStore<>(4096, new BusySpinWaitStrategy());
+        CountDownLatch released = new CountDownLatch(1);
+        AtomicInteger registered = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        PipelineExecutor pipeline = PipelineExecutor.builder()
+                .withEventSource(eventStore)
+                .withConfig(config)
+                .withRegisterTransferFn(event -> {
+                    registered.incrementAndGet();
+                    return event;
+                })
+                .withValidateTransferFn(Function.identity())
+                .withIsValidTransferFn(event -> true)
+                .withWithdrawSourceFn(Function.identity())
+                .withDepositTargetFn(event -> {
+                    awaitQuietly(released);
+                    return event;
+                })
+                .withCompleteTransferFn(event -> completed.incrementAndGet())
+                .withErrorHandler(errors::add)
+                .build();
+        pipeline.start();
+
+        // When
+        for (int i = 0; i < 4096; i++) {
+            eventStore.put(newEvent());
+        }
+
+        // Then
+        try {
+            await().until(() -> registered.get() > 0);
+            // give the source a chance to run ahead of the blocked worker
+            Thread.sleep(200);
+            // the worker holds one transfer, its queue and the buffers of the flow hold at most a few hundred
+            assertThat(registered.get(), lessThan(1024));
+            assertThat(completed.get(), is(0));
+            released.countDown();
+            await().until(() -> completed.get() == 4096);
+            assertThat(errors, empty());
+        } finally {
+            released.countDown();
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    public void shouldTerminateLaneAndDepositWorkersWhenStopped() throws InterruptedException {
+        // Given
+        BootstrapConfig config = BootstrapConfig.builder()
+                .withBufferSize(16)
+                .withMaxThreads(2)
+                .withLanes(2)
+                .build();
+        RingBufferEventStore<TransferEvent> eventStore = new RingBufferEventStore<>(16, new BusySpinWaitStrategy());
+        Set<Thread> laneThreads = ConcurrentHashMap.newKeySet();
+        Set<Thread> depositThreads = ConcurrentHashMap.newKeySet();
+        AtomicInteger completed = new AtomicInteger();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        PipelineExecutor pipeline = PipelineExecutor.builder()
+                .withEventSource(eventStore)
+                .withConfig(config)
+                .withRegisterTransferFn(event -> {
+                    laneThreads.add(Thread.currentThread());
+                    return event;
+                })
+                .withValidateTransferFn(Function.identity())
+                .withIsValidTransferFn(event -> true)
+                .withWithdrawSourceFn(Function.identity())
+                .withDepositTargetFn(event -> {
+                    depositThreads.add(Thread.currentThread());
+                    return event;
+                })
+                .withCompleteTransferFn(event -> completed.incrementAndGet())
+                .withErrorHandler(errors::add)
+                .build();
+        pipeline.start();
+        for (int i = 0; i < 10; i++) {
+            eventStore.put(newEvent());
+        }
+        await().until(() -> completed.get() == 10);
+
+        // When
+        pipeline.stop();
+
+        // Then
+        // terminated executor may still be leaving its thread, so the threads are joined
+        assertThat(depositThreads.size(), is(2));
+        for (Thread thread : laneThreads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+            assertThat(thread.isAlive(), is(false));
+        }
+        for (Thread thread : depositThreads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+            assertThat(thread.isAlive(), is(false));
+        }
+        assertThat(errors, empty());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void shouldFailOnlyBatchWhichFailedToNetAndKeepProcessing() {
+        // Given
+        BootstrapConfig config = BootstrapConfig.builder()
+                .withBufferSize(16)
+                .withMaxThreads(1)
+                .withNettingBatchSize(4)
+                .build();
+        RingBufferEventStore<TransferEvent> eventStore = new RingBufferEventStore<>(16, new BusySpinWaitStrategy());
+        AtomicInteger nettedBatches = new AtomicInteger();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        Map<TransferId, TransferState> completed = new ConcurrentHashMap<>();
+        PipelineExecutor pipeline = PipelineExecutor.builder()
+                .withEventSource(eventStore)
+                .withConfig(config)
+                .withRegisterTransferFn(Function.identity())
+                .withValidateTransferFn(Function.identity())
+                .withIsValidTransferFn(event -> event.getState() != TransferState.ERROR)
+                .withWithdrawSourceFn(Function.identity())
+                .withDepositTargetFn(Function.identity())
+                .withNetTransfersFn(events -> {
+                    if (nettedBatches.getAndIncrement() == 0) {
+                        throw new IllegalStateException("Netting failed");
+                    }
+                    return events;
+                })
+                .withCompleteTransferFn(event -> completed.put(event.getTransferId(), event.getState()))
+                .withErrorHandler(errors::add)
+                .build();
+        pipeline.start();
+        TransferEvent failedEvent = newEvent();
+        TransferEvent nextEvent = newEvent();
+
+        // When
+        eventStore.put(failedEvent);
+        await().until(() -> completed.containsKey(failedEvent.getTransferId()));
+        eventStore.put(nextEvent);
+
+        // Then
+        try {
+            await().until(() -> completed.containsKey(nextEvent.getTransferId()));
+            assertThat(completed.get(failedEvent.getTransferId()), is(TransferState.ERROR));
+            assertThat(completed.get(nextEvent.getTransferId()), is(TransferState.NEW));
+            assertThat(errors.size(), is(1));
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    private TransferEvent newEvent() {
+        return TransferEvent.builder()
+                .withTransferId(TransferId.generate())
+                .withSourceId(AccountId.valueOf("1"))
+                .withTargetId(AccountId.valueOf("2"))
+                .withAmount(Money.of(1))
+                .withState(TransferState.NEW)
+                .withDetails("Transfer created")
+                .build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.account.AccountModule;
+import com.demo.api.account.model.AccountId;
+import com.demo.api.account.service.AccountService;
+import com.demo.api.transfer.TransferModule;
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.api.transfer.repository.MapTransferRepository;
+import com.demo.api.transfer.repository.TransferRepository;
+import com.demo.api.transfer.service.TransferService;
+import com.demo.common.BootstrapConfig;
+import com.demo.api.model.Money;
+import com.demo.api.journal.JournalModule;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.util.Modules;
+import net.lamberto.junit.GuiceJUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+@RunWith(GuiceJUnitRunner.class)
+@GuiceJUnitRunner.GuiceModules(TransferManagerCheckpointsRealTest.TestModule.class)
+public class TransferManagerCheckpointsRealTest {
+
+    @Inject
+    private TransferManager transferManager;
+
+    @Inject
+    private TransferService transferService;
+
+    @Inject
+    private AccountService accountService;
+
+    @Inject
+    private TransferRepository transferRepository;
+
+    @Inject
+    private InFlightTransfers inFlightTransfers;
+
+    @Before
+    public void init() {
+        transferManager.start();
+    }
+
+    @After
+    public void destroy() {
+        transferManager.stop();
+    }
+
+    @Test
+    public void shouldStoreOnlyFinalStateOfTransfer() {
+        // Given
+        AccountId sourceAccountId = accountService.createNew(Money.of(1));
+        AccountId targetAccountId = accountService.createNew(Money.ZERO);
+
+        // When
+        TransferId transferId = transferService.createNew(sourceAccountId, targetAccountId, Money.of(1));
+
+        // Then
+        await().until(() -> isInState(transferId, TransferState.DONE));
+        verify(transferRepository, times(1)).save(eq(transferId), any(Transfer.class));
+        assertThat(transferRepository.findById(transferId).getState(), equalTo(TransferState.DONE));
+        assertThat(inFlightTransfers.size(), is(0));
+        assertThat(accountService.findById(targetAccountId).getBalance(), equalTo(Money.of(1)));
+    }
+
+    @Test
+    public void shouldStoreFinalStateOfFailedTransfer() {
+        // Given
+        AccountId sourceAccountId = accountService.createNew(Money.of(1));
+        AccountId targetAccountId = accountService.createNew(Money.ZERO);
+        TransferId firstTransferId = transferService.createNew(sourceAccountId, targetAccountId, Money.of(1));
+
+        // When
+        // second transfer passes service validation, but fails in pipeline
+        TransferId secondTransferId = transferService.createNew(sourceAccountId, targetAccountId, Money.of(1));
+
+        // Then
+        await().until(() -> isInState(firstTransferId, TransferState.DONE)
+                && isInState(secondTransferId, TransferState.ERROR));
+        verify(transferRepository, times(1)).save(eq(secondTransferId), any(Transfer.class));
+        assertThat(inFlightTransfers.size(), is(0));
+    }
+
+    private boolean isInState(TransferId transferId, TransferState state) {
+        Transfer transfer = transferService.findById(transferId);
+        return transfer != null && transfer.getState() == state;
+    }
+
+    public static class TestModule extends AbstractModule {
+        protected void configure() {
+            BootstrapConfig config = BootstrapConfig.builder()
+                    .withBufferSize(10)
+                    .withMaxThreads(1)
+                    .withTransferCheckpoints(Collections.emptyList())
+                    .build();
+            bind(BootstrapConfig.class).toInstance(config);
+            install(new JournalModule(config));
+            install(new AccountModule(config));
+            install(Modules.override(new TransferModule(config)).with(new AbstractModule() {
+                @Override
+                protected void configure() {
+                    bind(TransferRepository.class).toInstance(spy(new MapTransferRepository(new ConcurrentHashMap<>())));
+                }
+            }));
+        }
+    }
+}
@@ -10,6 +10,8 @@ import com.demo.api.transfer.model.TransferId;
 import com.demo.api.transfer.model.TransferState;
 import com.demo.api.transfer.service.TransferService;
 import com.demo.common.BootstrapConfig;
+import com.demo.api.model.Money;
+import com.demo.api.journal.JournalModule;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import net.lamberto.junit.GuiceJUnitRunner;
@@ -18,7 +20,6 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
@@ -59,8 +60,8 @@ public class TransferManagerConcurrentRealTest {
     @Test(timeout = ASYNC_WAIT_IN_MS)
     public void shouldCompleteWithInitialBalanceIfHasCompensatedTransfer() throws Exception {
         // Given
-        BigDecimal amount = BigDecimal.ONE;
-        BigDecimal initialBalance = BigDecimal.valueOf(config.getBufferSize());
+        Money amount = Money.of(1);
+        Money initialBalance = Money.of(config.getBufferSize());
         AccountId sourceAccountId = accountService.createNew(initialBalance);
         AccountId targetAccountId = accountService.createNew(initialBalance);
 
@@ -91,9 +92,8 @@ public class TransferManagerConcurrentRealTest {
     }
 
     private void waitForTransferToComplete(TransferId transferId) {
-        Transfer transfer = null;
-        while (transfer == null) {
-            transfer = transferService.findById(transferId);
+        while (true) {
+            Transfer transfer = transferService.findById(transferId);
 
             if (transfer != null) {
                 if (TransferState.ERROR == transfer.getState()) {
@@ -106,7 +106,7 @@ public class TransferManagerConcurrentRealTest {
         }
     }
 
-    private List<Future<TransferId>> generateTransfers(BigDecimal amount,
+    private List<Future<TransferId>> generateTransfers(Money amount,
                                                        AccountId sourceAccountId,
                                                        AccountId targetAccountId) throws Exception {
         ExecutorService executor = Executors.newFixedThreadPool(config.getMaxThreads());
@@ -125,7 +125,7 @@ public class TransferManagerConcurrentRealTest {
         return futures;
     }
 
-    private void validateAccountBalance(AccountId accountId, BigDecimal expectedBalance) {
+    private void validateAccountBalance(AccountId accountId, Money expectedBalance) {
         Account account = accountService.findById(accountId);
         assertThat(account.getBalance(), equalTo(expectedBalance));
     }
@@ -137,7 +137,8 @@ public class TransferManagerConcurrentRealTest {
                     .withMaxThreads(MAX_THREADS)
                     .build();
             bind(BootstrapConfig.class).toInstance(config);
-            install(new AccountModule());
+            install(new JournalModule(config));
+            install(new AccountModule(config));
             install(new TransferModule(config));
         }
     }
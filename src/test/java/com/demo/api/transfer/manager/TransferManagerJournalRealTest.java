@@ -0,0 +1,120 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.account.AccountModule;
+import com.demo.api.account.model.AccountId;
+import com.demo.api.account.service.AccountService;
+import com.demo.api.journal.Journal;
+import com.demo.api.journal.JournalFlushPolicy;
+import com.demo.api.journal.JournalModule;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.TransferModule;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.api.transfer.service.TransferService;
+import com.demo.common.BootstrapConfig;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TransferManagerJournalRealTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldRestoreStateAfterRestart() throws IOException {
+        // Given
+        BootstrapConfig config = config(folder.newFolder().getAbsolutePath());
+        Injector injector = createInjector(config);
+        AccountService accountService = injector.getInstance(AccountService.class);
+        TransferService transferService = injector.getInstance(TransferService.class);
+        TransferManager transferManager = injector.getInstance(TransferManager.class);
+        transferManager.start();
+        AccountId sourceAccountId = accountService.createNew(Money.of(10));
+        AccountId targetAccountId = accountService.createNew(Money.ZERO);
+        TransferId transferId = transferService.createNew(sourceAccountId, targetAccountId, Money.of(4));
+        await().until(() -> transferService.findById(transferId).getState() == TransferState.DONE);
+        transferManager.stop();
+        injector.getInstance(Journal.class).close();
+
+        // When
+        Injector restarted = createInjector(config);
+        restarted.getInstance(TransferManager.class).start();
+
+        // Then
+        AccountService restoredAccountService = restarted.getInstance(AccountService.class);
+        assertThat(restoredAccountService.findById(sourceAccountId).getBalance(), equalTo(Money.of(6)));
+        assertThat(restoredAccountService.findById(targetAccountId).getBalance(), equalTo(Money.of(4)));
+        assertThat(restarted.getInstance(TransferService.class).findById(transferId).getState(),
+                equalTo(TransferState.DONE));
+        restarted.getInstance(TransferManager.class).stop();
+        restarted.getInstance(Journal.class).close();
+    }
+
+    @Test
+    public void shouldCompleteTransferInterruptedAfterWithdrawal() throws IOException {
+        // Given
+        BootstrapConfig config = config(folder.newFolder().getAbsolutePath());
+        Injector injector = createInjector(config);
+        Journal journal = injector.getInstance(Journal.class);
+        AccountId sourceAccountId = AccountId.generate();
+        AccountId targetAccountId = AccountId.generate();
+        TransferId transferId = TransferId.generate();
+        journal.appendAccountOpened(sourceAccountId, Money.of(10));
+        journal.appendAccountOpened(targetAccountId, Money.ZERO);
+        journal.appendTransferStateChanged(TransferEvent.builder()
+                .withTransferId(transferId)
+                .withSourceId(sourceAccountId)
+                .withTargetId(targetAccountId)
+                .withAmount(Money.of(4))
+                .withState(TransferState.SOURCE_WITHDRAWN)
+                .withDetails("Source account withdrawn")
+                .build());
+        journal.close();
+
+        // When
+        Injector restarted = createInjector(config);
+        TransferManager transferManager = restarted.getInstance(TransferManager.class);
+        transferManager.start();
+
+        // Then
+        AccountService accountService = restarted.getInstance(AccountService.class);
+        assertThat(accountService.findById(sourceAccountId).getBalance(), equalTo(Money.of(6)));
+        assertThat(accountService.findById(targetAccountId).getBalance(), equalTo(Money.of(4)));
+        assertThat(restarted.getInstance(TransferService.class).findById(transferId).getState(),
+                equalTo(TransferState.DONE));
+        transferManager.stop();
+        restarted.getInstance(Journal.class).close();
+    }
+
+    private static BootstrapConfig config(String journalDir) {
+        return BootstrapConfig.builder()
+                .withBufferSize(10)
+                .withMaxThreads(1)
+                .withJournalDir(journalDir)
+                .withJournalFlushPolicy(JournalFlushPolicy.GROUP_COMMIT)
+                .build();
+    }
+
+    private static Injector createInjector(BootstrapConfig config) {
+        return Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(BootstrapConfig.class).toInstance(config);
+                install(new JournalModule(config));
+                install(new AccountModule(config));
+                install(new TransferModule(config));
+            }
+        });
+    }
+}
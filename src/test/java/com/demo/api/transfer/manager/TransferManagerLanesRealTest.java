@@ -0,0 +1,111 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.account.AccountModule;
+import com.demo.api.account.model.AccountId;
+import com.demo.api.account.repository.AccountStoreType;
+import com.demo.api.account.service.AccountService;
+import com.demo.api.transfer.TransferModule;
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.api.transfer.service.TransferService;
+import com.demo.common.BootstrapConfig;
+import com.demo.api.model.Money;
+import com.demo.api.journal.JournalModule;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import net.lamberto.junit.GuiceJUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@RunWith(GuiceJUnitRunner.class)
+@GuiceJUnitRunner.GuiceModules(TransferManagerLanesRealTest.TestModule.class)
+public class TransferManagerLanesRealTest {
+    private static final int LANES = 4;
+    private static final int ACCOUNTS = 8;
+    private static final int TRANSFERS_PER_ACCOUNT = 100;
+
+    @Inject
+    private TransferManager transferManager;
+
+    @Inject
+    private AccountService accountService;
+
+    @Inject
+    private TransferService transferService;
+
+    @Before
+    public void init() {
+        transferManager.start();
+    }
+
+    @After
+    public void destroy() {
+        transferManager.stop();
+    }
+
+    @Test
+    public void shouldKeepBalancesConsistentAcrossLanes() {
+        // Given
+        Money initialBalance = Money.of(TRANSFERS_PER_ACCOUNT);
+        List<AccountId> accountIds = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds.add(accountService.createNew(initialBalance));
+        }
+
+        // When
+        // every account sends its whole balance to the next one, one unit at a time
+        List<TransferId> transferIds = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS_PER_ACCOUNT; i++) {
+            for (int j = 0; j < ACCOUNTS; j++) {
+                transferIds.add(transferService.createNew(accountIds.get(j), accountIds.get((j + 1) % ACCOUNTS),
+                        Money.of(1)));
+            }
+        }
+
+        // Then
+        await().atMost(10, TimeUnit.SECONDS).until(() -> transferIds.stream()
+                .map(transferService::findById)
+                .allMatch(transfer -> transfer != null && isCompleted(transfer)));
+        long doneTransfers = transferIds.stream()
+                .map(transferService::findById)
+                .filter(transfer -> transfer.getState() == TransferState.DONE)
+                .count();
+        Money totalBalance = accountIds.stream()
+                .map(accountId -> accountService.findById(accountId).getBalance())
+                .reduce(Money.ZERO, Money::plus);
+        assertThat(doneTransfers, equalTo((long) ACCOUNTS * TRANSFERS_PER_ACCOUNT));
+        assertThat(totalBalance, equalTo(Money.of((long) TRANSFERS_PER_ACCOUNT * ACCOUNTS)));
+        accountIds.forEach(accountId ->
+                assertThat(accountService.findById(accountId).getBalance(), equalTo(initialBalance)));
+    }
+
+    private boolean isCompleted(Transfer transfer) {
+        return transfer.getState() == TransferState.DONE || transfer.getState() == TransferState.ERROR;
+    }
+
+    public static class TestModule extends AbstractModule {
+        protected void configure() {
+            BootstrapConfig config = BootstrapConfig.builder()
+                    .withBufferSize(ACCOUNTS * TRANSFERS_PER_ACCOUNT)
+                    .withMaxThreads(LANES)
+                    .withLanes(LANES)
+                    .withAccountStore(AccountStoreType.SLOT)
+                    .build();
+            bind(BootstrapConfig.class).toInstance(config);
+            install(new JournalModule(config));
+            install(new AccountModule(config));
+            install(new TransferModule(config));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.account.AccountModule;
+import com.demo.api.account.model.AccountId;
+import com.demo.api.account.service.AccountService;
+import com.demo.api.journal.JournalModule;
+import com.demo.api.model.BatchResult;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.TransferModule;
+import com.demo.api.transfer.model.NewTransfer;
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.api.transfer.service.TransferService;
+import com.demo.common.BootstrapConfig;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import net.lamberto.junit.GuiceJUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@RunWith(GuiceJUnitRunner.class)
+@GuiceJUnitRunner.GuiceModules(TransferManagerNettingRealTest.TestModule.class)
+public class TransferManagerNettingRealTest {
+    private static final int TRANSFERS = 1000;
+
+    @Inject
+    private TransferManager transferManager;
+
+    @Inject
+    private AccountService accountService;
+
+    @Inject
+    private TransferService transferService;
+
+    @Before
+    public void init() {
+        transferManager.start();
+    }
+
+    @After
+    public void destroy() {
+        transferManager.stop();
+    }
+
+    @Test
+    public void shouldNetOpposingTransfersAndRejectOverdraft() {
+        // Given
+        AccountId firstAccountId = accountService.createNew(Money.of(1));
+        AccountId secondAccountId = accountService.createNew(Money.of(1));
+        List<NewTransfer> transfers = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            boolean forward = i % 2 == 0;
+            transfers.add(NewTransfer.builder()
+                    .withSourceId(forward ? firstAccountId : secondAccountId)
+                    .withTargetId(forward ? secondAccountId : firstAccountId)
+                    .withAmount(Money.of(1))
+                    .build());
+        }
+        // the first account has nothing left after the first transfer of the batch is applied
+        transfers.add(1, NewTransfer.builder()
+                .withSourceId(firstAccountId)
+                .withTargetId(secondAccountId)
+                .withAmount(Money.of(1))
+                .build());
+
+        // When
+        List<TransferId> transferIds = transferService.createNew(transfers).stream()
+                .map(BatchResult::getValue)
+                .collect(Collectors.toList());
+
+        // Then
+        await().atMost(10, TimeUnit.SECONDS).until(() -> transferIds.stream()
+                .map(transferService::findById)
+                .allMatch(transfer -> transfer != null && isCompleted(transfer)));
+        List<TransferState> states = transferIds.stream()
+                .map(transferId -> transferService.findById(transferId).getState())
+                .collect(Collectors.toList());
+        assertThat(states.get(1), equalTo(TransferState.ERROR));
+        assertThat(states.stream().filter(state -> state == TransferState.DONE).count(), equalTo((long) TRANSFERS));
+        assertThat(accountService.findById(firstAccountId).getBalance(), equalTo(Money.of(1)));
+        assertThat(accountService.findById(secondAccountId).getBalance(), equalTo(Money.of(1)));
+    }
+
+    private boolean isCompleted(Transfer transfer) {
+        return transfer.getState() == TransferState.DONE || transfer.getState() == TransferState.ERROR;
+    }
+
+    public static class TestModule extends AbstractModule {
+        protected void configure() {
+            BootstrapConfig config = BootstrapConfig.builder()
+                    .withBufferSize(2 * TRANSFERS)
+                    .withMaxThreads(2)
+                    .withNettingBatchSize(64)
+                    .build();
+            bind(BootstrapConfig.class).toInstance(config);
+            install(new JournalModule(config));
+            install(new AccountModule(config));
+            install(new TransferModule(config));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.demo.api.transfer.manager;
 
 import com.demo.api.account.AccountModule;
 import com.demo.api.account.model.Account;
+import com.demo.api.account.repository.AccountRepository;
 import com.demo.api.account.service.AccountService;
 import com.demo.api.account.model.AccountId;
 import com.demo.api.transfer.model.TransferId;
@@ -11,6 +12,8 @@ import com.demo.api.transfer.model.TransferEvent;
 import com.demo.api.transfer.model.TransferState;
 import com.demo.api.transfer.service.TransferService;
 import com.demo.common.BootstrapConfig;
+import com.demo.api.model.Money;
+import com.demo.api.journal.JournalModule;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import net.lamberto.junit.GuiceJUnitRunner;
@@ -19,7 +22,6 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
-import java.math.BigDecimal;
 import java.util.function.Predicate;
 
 import static org.awaitility.Awaitility.await;
@@ -40,6 +42,9 @@ public class TransferManagerRealTest {
     @Inject
     private AccountService accountService;
 
+    @Inject
+    private AccountRepository accountRepository;
+
     @Inject
     private BootstrapConfig config;
 
@@ -58,9 +63,9 @@ public class TransferManagerRealTest {
     public void shouldExecuteTransferIfBelowThreshold() {
         // Given
         transferManager.start();
-        BigDecimal amount = BigDecimal.ONE;
-        BigDecimal sourceInitialBalance = BigDecimal.TEN;
-        BigDecimal targetInitialBalance = BigDecimal.ZERO;
+        Money amount = Money.of(1);
+        Money sourceInitialBalance = Money.of(10);
+        Money targetInitialBalance = Money.ZERO;
         AccountId sourceAccountId = accountService.createNew(sourceInitialBalance);
         AccountId targetAccountId = accountService.createNew(targetInitialBalance);
         TransferEvent transferEvent = TransferEvent.builder()
@@ -78,16 +83,16 @@ public class TransferManagerRealTest {
         // Then
         waitForTransferCondition(transferEvent.getTransferId(),
                 transfer -> transfer != null && transfer.getState() == TransferState.DONE);
-        validateAccountBalance(sourceAccountId, sourceInitialBalance.subtract(amount));
-        validateAccountBalance(targetAccountId, targetInitialBalance.add(amount));
+        validateAccountBalance(sourceAccountId, sourceInitialBalance.minus(amount));
+        validateAccountBalance(targetAccountId, targetInitialBalance.plus(amount));
     }
 
     @Test
     public void shouldRejectTransferIfAboveThreshold() {
         // Given
-        AccountId sourceAccountId = accountService.createNew(BigDecimal.TEN);
-        AccountId targetAccountId = accountService.createNew(BigDecimal.ZERO);
-        BigDecimal amount = BigDecimal.ONE;
+        AccountId sourceAccountId = accountService.createNew(Money.of(10));
+        AccountId targetAccountId = accountService.createNew(Money.ZERO);
+        Money amount = Money.of(1);
         TransferEvent transferEvent1 = TransferEvent.builder()
                 .withTransferId(TransferId.valueOf("1"))
                 .withSourceId(sourceAccountId)
@@ -115,7 +120,45 @@ public class TransferManagerRealTest {
         assertThat(submitted2, is(false));
     }
 
-    private void validateAccountBalance(AccountId accountId, BigDecimal expectedBalance) {
+    @Test
+    public void shouldFailTransferWhichOverflowsTargetBalanceAndKeepProcessing() {
+        // Given
+        transferManager.start();
+        AccountId sourceAccountId = accountService.createNew(Money.of(10));
+        AccountId targetAccountId = AccountId.generate();
+        accountRepository.save(targetAccountId, Account.builder()
+                .withId(targetAccountId)
+                .withBalance(Money.ofMinor(Long.MAX_VALUE))
+                .build());
+        AccountId otherAccountId = accountService.createNew(Money.ZERO);
+        TransferEvent overflowEvent = TransferEvent.builder()
+                .withTransferId(TransferId.valueOf("1"))
+                .withSourceId(sourceAccountId)
+                .withTargetId(targetAccountId)
+                .withAmount(Money.of(1))
+                .withState(TransferState.NEW)
+                .withDetails("Transfer created")
+                .build();
+        TransferEvent nextEvent = TransferEvent.builder().from(overflowEvent)
+                .withTransferId(TransferId.valueOf("2"))
+                .withTargetId(otherAccountId)
+                .build();
+
+        // When
+        transferManager.submitEvent(overflowEvent);
+        waitForTransferCondition(overflowEvent.getTransferId(),
+                transfer -> transfer != null && transfer.getState() == TransferState.ERROR);
+        transferManager.submitEvent(nextEvent);
+
+        // Then
+        waitForTransferCondition(nextEvent.getTransferId(),
+                transfer -> transfer != null && transfer.getState() == TransferState.DONE);
+        validateAccountBalance(sourceAccountId, Money.of(9));
+        validateAccountBalance(targetAccountId, Money.ofMinor(Long.MAX_VALUE));
+        validateAccountBalance(otherAccountId, Money.of(1));
+    }
+
+    private void validateAccountBalance(AccountId accountId, Money expectedBalance) {
         Account account = accountService.findById(accountId);
         assertThat(account.getBalance(), equalTo(expectedBalance));
     }
@@ -135,7 +178,8 @@ public class TransferManagerRealTest {
                     .withMaxThreads(1)
                     .build();
             bind(BootstrapConfig.class).toInstance(config);
-            install(new AccountModule());
+            install(new JournalModule(config));
+            install(new AccountModule(config));
             install(new TransferModule(config));
         }
     }
@@ -0,0 +1,151 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.account.AccountModule;
+import com.demo.api.account.model.AccountId;
+import com.demo.api.account.service.AccountService;
+import com.demo.api.journal.Journal;
+import com.demo.api.journal.JournalModule;
+import com.demo.api.model.Money;
+import com.demo.api.snapshot.SnapshotManager;
+import com.demo.api.transfer.TransferModule;
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.api.transfer.service.TransferService;
+import com.demo.common.BootstrapConfig;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TransferManagerSnapshotRealTest {
+    private static final int ACCOUNTS = 10;
+    private static final int TRANSFERS_PER_ACCOUNT = 50;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldRestoreStateFromSnapshot() throws IOException {
+        // Given
+        BootstrapConfig config = config(null, folder.newFolder().getAbsolutePath());
+        Injector injector = createInjector(config);
+        TransferManager transferManager = injector.getInstance(TransferManager.class);
+        AccountService accountService = injector.getInstance(AccountService.class);
+        TransferService transferService = injector.getInstance(TransferService.class);
+        transferManager.start();
+        AccountId sourceAccountId = accountService.createNew(Money.of(10));
+        AccountId targetAccountId = accountService.createNew(Money.ZERO);
+        TransferId transferId = transferService.createNew(sourceAccountId, targetAccountId, Money.of(3));
+        await().until(() -> transferService.findById(transferId).getState() == TransferState.DONE);
+
+        // When
+        injector.getInstance(SnapshotManager.class).takeSnapshot();
+        transferManager.stop();
+        Injector restarted = createInjector(config);
+        restarted.getInstance(TransferManager.class).start();
+
+        // Then
+        AccountService restoredAccountService = restarted.getInstance(AccountService.class);
+        assertThat(restoredAccountService.findById(sourceAccountId).getBalance(), equalTo(Money.of(7)));
+        assertThat(restoredAccountService.findById(targetAccountId).getBalance(), equalTo(Money.of(3)));
+        assertThat(restarted.getInstance(TransferService.class).findById(transferId).getState(),
+                equalTo(TransferState.DONE));
+        restarted.getInstance(TransferManager.class).stop();
+    }
+
+    @Test
+    public void shouldTakeConsistentSnapshotWhileTransfersAreProcessed() throws IOException {
+        // Given
+        String journalDir = folder.newFolder().getAbsolutePath();
+        String snapshotDir = folder.newFolder().getAbsolutePath();
+        Injector injector = createInjector(config(journalDir, snapshotDir));
+        TransferManager transferManager = injector.getInstance(TransferManager.class);
+        AccountService accountService = injector.getInstance(AccountService.class);
+        TransferService transferService = injector.getInstance(TransferService.class);
+        transferManager.start();
+        List<AccountId> accountIds = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds.add(accountService.createNew(Money.of(TRANSFERS_PER_ACCOUNT)));
+        }
+
+        // When
+        List<TransferId> transferIds = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS_PER_ACCOUNT; i++) {
+            for (int j = 0; j < ACCOUNTS; j++) {
+                transferIds.add(transferService.createNew(accountIds.get(j), accountIds.get((j + 1) % ACCOUNTS),
+                        Money.of(1)));
+            }
+            if (i == TRANSFERS_PER_ACCOUNT / 2) {
+                injector.getInstance(SnapshotManager.class).takeSnapshot();
+            }
+        }
+        await().atMost(10, TimeUnit.SECONDS).until(() -> transferIds.stream()
+                .map(transferService::findById)
+                .allMatch(transfer -> transfer != null && isCompleted(transfer)));
+        transferManager.stop();
+        injector.getInstance(Journal.class).close();
+
+        // Then
+        // snapshot alone: transfers caught in the middle are completed on start
+        Injector fromSnapshot = createInjector(config(null, snapshotDir));
+        fromSnapshot.getInstance(TransferManager.class).start();
+        assertThat(totalBalance(fromSnapshot.getInstance(AccountService.class), accountIds),
+                equalTo(Money.of((long) ACCOUNTS * TRANSFERS_PER_ACCOUNT)));
+        fromSnapshot.getInstance(TransferManager.class).stop();
+
+        // snapshot and the rest of journal
+        Injector restarted = createInjector(config(journalDir, snapshotDir));
+        restarted.getInstance(TransferManager.class).start();
+        AccountService restoredAccountService = restarted.getInstance(AccountService.class);
+        accountIds.forEach(accountId -> assertThat(restoredAccountService.findById(accountId).getBalance(),
+                equalTo(accountService.findById(accountId).getBalance())));
+        TransferService restoredTransferService = restarted.getInstance(TransferService.class);
+        transferIds.forEach(transferId -> assertThat(restoredTransferService.findById(transferId).getState(),
+                equalTo(transferService.findById(transferId).getState())));
+        restarted.getInstance(TransferManager.class).stop();
+        restarted.getInstance(Journal.class).close();
+    }
+
+    private static Money totalBalance(AccountService accountService, List<AccountId> accountIds) {
+        return accountIds.stream()
+                .map(accountId -> accountService.findById(accountId).getBalance())
+                .reduce(Money.ZERO, Money::plus);
+    }
+
+    private static boolean isCompleted(Transfer transfer) {
+        return transfer.getState() == TransferState.DONE || transfer.getState() == TransferState.ERROR;
+    }
+
+    private static BootstrapConfig config(String journalDir, String snapshotDir) {
+        return BootstrapConfig.builder()
+                .withBufferSize(ACCOUNTS * TRANSFERS_PER_ACCOUNT)
+                .withMaxThreads(2)
+                .withJournalDir(journalDir)
+                .withSnapshotDir(snapshotDir)
+                .build();
+    }
+
+    private static Injector createInjector(BootstrapConfig config) {
+        return Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(BootstrapConfig.class).toInstance(config);
+                install(new JournalModule(config));
+                install(new AccountModule(config));
+                install(new TransferModule(config));
+            }
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package com.demo.api.transfer.manager;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+public class TransferSubscriptionsTest {
+
+    @Test
+    public void shouldNotifySubscribedListenersInOrderOfStateChanges() throws Exception {
+        // Given
+        TransferSubscriptions subscriptions = new TransferSubscriptions();
+        List<Transfer> received = new CopyOnWriteArrayList<>();
+        Consumer<Transfer> listener = received::add;
+        subscriptions.subscribe(TransferId.valueOf("1"), listener);
+
+        // When
+        subscriptions.publish(newEvent("1", TransferState.PENDING));
+        subscriptions.publish(newEvent("2", TransferState.PENDING));
+        subscriptions.publish(newEvent("1", TransferState.DONE));
+        await().until(() -> received.size() == 2);
+        subscriptions.unsubscribe(TransferId.valueOf("1"), listener);
+        subscriptions.publish(newEvent("1", TransferState.ERROR));
+        CountDownLatch drained = new CountDownLatch(1);
+        subscriptions.schedule(drained::countDown, 0);
+        drained.await(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(received.stream().map(Transfer::getState).collect(Collectors.toList()),
+                contains(TransferState.PENDING, TransferState.DONE));
+    }
+
+    private TransferEvent newEvent(String transferId, TransferState state) {
+        return TransferEvent.builder()
+                .withTransferId(TransferId.valueOf(transferId))
+                .withSourceId(AccountId.valueOf("1"))
+                .withTargetId(AccountId.valueOf("2"))
+                .withAmount(Money.of(1))
+                .withState(state)
+                .withDetails("Transfer processing")
+                .build();
+    }
+}
@@ -0,0 +1,209 @@
+package com.demo.api.transfer.repository;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MapTransferRepositoryTest {
+
+    @Test
+    public void shouldScanTransfersInOrderTheyWereStored() {
+        // Given
+        MapTransferRepository repository = new MapTransferRepository(new ConcurrentHashMap<>());
+        List<TransferId> transferIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            TransferId transferId = TransferId.generate();
+            transferIds.add(transferId);
+            repository.save(transferId, transfer(transferId, TransferState.DONE));
+        }
+        // update of stored transfer keeps its position
+        repository.save(transferIds.get(0), transfer(transferIds.get(0), TransferState.ERROR));
+
+        // When
+        List<Transfer> firstPage = new ArrayList<>();
+        long position = repository.scan(0, 3, firstPage::add);
+        List<Transfer> secondPage = new ArrayList<>();
+        long lastPosition = repository.scan(position, 3, secondPage::add);
+        List<Transfer> thirdPage = new ArrayList<>();
+        long endPosition = repository.scan(lastPosition, 3, thirdPage::add);
+
+        // Then
+        assertThat(ids(firstPage), contains(transferIds.get(0), transferIds.get(1), transferIds.get(2)));
+        assertThat(firstPage.get(0).getState(), is(TransferState.ERROR));
+        assertThat(ids(secondPage), contains(transferIds.get(3), transferIds.get(4)));
+        assertThat(thirdPage, empty());
+        assertThat(endPosition, is(lastPosition));
+    }
+
+    @Test
+    public void shouldScanTransfersOfAccount() {
+        // Given
+        MapTransferRepository repository = new MapTransferRepository(new ConcurrentHashMap<>());
+        AccountId accountId = AccountId.valueOf("1");
+        Transfer outgoing = transfer(TransferId.generate(), accountId, AccountId.valueOf("2"));
+        Transfer unrelated = transfer(TransferId.generate(), AccountId.valueOf("2"), AccountId.valueOf("3"));
+        Transfer incoming = transfer(TransferId.generate(), AccountId.valueOf("3"), accountId);
+        repository.save(outgoing.getId(), outgoing);
+        repository.save(unrelated.getId(), unrelated);
+        repository.executeUpdate(incoming.getId(), (transferId, prevTransfer) -> incoming);
+
+        // When
+        List<Transfer> all = new ArrayList<>();
+        repository.scanByAccount(accountId, 0, 10, transfer -> true, all::add);
+        List<Transfer> received = new ArrayList<>();
+        repository.scanByAccount(accountId, 0, 10,
+                transfer -> transfer.getTargetId().equals(accountId), received::add);
+        List<Transfer> unknown = new ArrayList<>();
+        long position = repository.scanByAccount(AccountId.valueOf("4"), 0, 10, transfer -> true, unknown::add);
+
+        // Then
+        assertThat(ids(all), contains(outgoing.getId(), incoming.getId()));
+        assertThat(ids(received), contains(incoming.getId()));
+        assertThat(unknown, empty());
+        assertThat(position, is(0L));
+    }
+
+    @Test
+    public void shouldFindTransfersMovedToColdStore() {
+        // Given
+        MapTransferRepository repository = new MapTransferRepository(new ConcurrentHashMap<>());
+        List<TransferId> transferIds = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            // both binary and plain ids are packed
+            TransferId transferId = i % 2 == 0 ? TransferId.generate() : TransferId.valueOf("transfer-" + i);
+            transferIds.add(transferId);
+            repository.save(transferId, transfer(transferId, i == 2500 ? TransferState.PENDING : TransferState.DONE));
+        }
+
+        // When
+        List<Long> skipped = new ArrayList<>();
+        long position = repository.archive(0, repository.count(), skipped::add);
+
+        // Then
+        assertThat(position, is(3000L));
+        assertThat(skipped, contains(2500L));
+        assertThat(repository.findById(transferIds.get(0)).getId(), is(transferIds.get(0)));
+        assertThat(repository.findById(transferIds.get(1999)).getState(), is(TransferState.DONE));
+        assertThat(repository.findById(transferIds.get(2500)).getState(), is(TransferState.PENDING));
+        assertThat(repository.findById(TransferId.generate()), nullValue());
+        List<Transfer> page = new ArrayList<>();
+        repository.scan(2499, 2, page::add);
+        assertThat(ids(page), contains(transferIds.get(2499), transferIds.get(2500)));
+        assertThat(repository.findAll().size(), is(3000));
+        assertThat(ids(new ArrayList<>(repository.findAll())), is(transferIds));
+    }
+
+    @Test
+    public void shouldKeepIdsOfSequenceInDifferentChunks() {
+        // Given
+        TransferSequence sequence = new TransferSequence(1, true);
+        List<TransferId> transferIds = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 7; i++) {
+            TransferId transferId = TransferId.generate();
+            transferIds.add(transferId);
+            sequence.append(transferId);
+        }
+
+        // Then
+        assertThat(sequence.size(), is(7L));
+        for (int i = 0; i < transferIds.size(); i++) {
+            assertThat(sequence.getId(i), is(transferIds.get(i)));
+        }
+        assertThat(sequence.getId(7), nullValue());
+        assertThat(sequence.getId(100), nullValue());
+        assertThat(sequence.isWritten(7), is(false));
+    }
+
+    @Test
+    public void shouldKeepOnlyReferenceOfArchivedEntry() {
+        // Given
+        TransferSequence sequence = new TransferSequence(1, true);
+        TransferId transferId = TransferId.generate();
+        sequence.append(TransferId.generate());
+        sequence.append(transferId);
+
+        // When
+        sequence.archive(0, 0);
+
+        // Then
+        assertThat(sequence.getId(0), nullValue());
+        assertThat(sequence.getReference(0), is(0L));
+        assertThat(sequence.isWritten(0), is(true));
+        assertThat(sequence.getId(1), is(transferId));
+        assertThat(sequence.getReference(1), is(TransferSequence.NONE));
+    }
+
+    @Test
+    public void shouldNotHoldIdsOfArchivedTransfers() {
+        // Given
+        MapTransferRepository repository = new MapTransferRepository(new ConcurrentHashMap<>());
+        AccountId sourceId = AccountId.valueOf("1");
+        WeakReference<TransferId> archivedId = saveTransfer(repository, sourceId);
+
+        // When
+        repository.archive(0, repository.count(), position -> {
+        });
+
+        // Then
+        await().atMost(10, TimeUnit.SECONDS).until(() -> {
+            System.gc();
+            return archivedId.get() == null;
+        });
+        List<Transfer> page = new ArrayList<>();
+        repository.scanByAccount(sourceId, 0, 10, transfer -> true, page::add);
+        assertThat(page, hasSize(1));
+        assertThat(page.get(0).getState(), is(TransferState.DONE));
+    }
+
+    private static WeakReference<TransferId> saveTransfer(MapTransferRepository repository, AccountId sourceId) {
+        TransferId transferId = TransferId.generate();
+        repository.save(transferId, transfer(transferId, sourceId, AccountId.valueOf("2")));
+        return new WeakReference<>(transferId);
+    }
+
+    private static List<TransferId> ids(List<Transfer> transfers) {
+        return transfers.stream().map(Transfer::getId).collect(Collectors.toList());
+    }
+
+    private static Transfer transfer(TransferId transferId, AccountId sourceId, AccountId targetId) {
+        return Transfer.builder()
+                .withId(transferId)
+                .withSourceId(sourceId)
+                .withTargetId(targetId)
+                .withAmount(Money.of(1))
+                .withState(TransferState.DONE)
+                .withDetails("Transfer")
+                .build();
+    }
+
+    private static Transfer transfer(TransferId transferId, TransferState state) {
+        return Transfer.builder()
+                .withId(transferId)
+                .withSourceId(AccountId.valueOf("1"))
+                .withTargetId(AccountId.valueOf("2"))
+                .withAmount(Money.of(1))
+                .withState(state)
+                .withDetails("Transfer")
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.demo.api.transfer.repository;
+
+import com.demo.api.account.model.AccountId;
+import com.demo.api.model.Money;
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferState;
+import com.demo.common.BootstrapConfig;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class TransferRetentionTest {
+
+    @Test
+    public void shouldMoveOnlyTransfersOlderThanRetentionAge() {
+        // Given
+        ConcurrentHashMap<TransferId, Transfer> hotStorage = new ConcurrentHashMap<>();
+        MapTransferRepository repository = new MapTransferRepository(hotStorage);
+        BootstrapConfig config = BootstrapConfig.builder()
+                .withBufferSize(1)
+                .withMaxThreads(1)
+                .withTransferRetentionMs(1000)
+                .build();
+        TransferRetention retention = new TransferRetention(config, repository);
+        TransferId oldTransferId = TransferId.generate();
+        TransferId newTransferId = TransferId.generate();
+
+        // When
+        repository.save(oldTransferId, transfer(oldTransferId));
+        retention.archive(0);
+        repository.save(newTransferId, transfer(newTransferId));
+        retention.archive(500);
+        int hotAfterHalfAge = hotStorage.size();
+        retention.archive(1000);
+        int hotAfterAge = hotStorage.size();
+
+        // Then
+        assertThat(hotAfterHalfAge, is(2));
+        assertThat(hotAfterAge, is(1));
+        assertThat(hotStorage.containsKey(newTransferId), is(true));
+        assertThat(repository.findById(oldTransferId).getState(), is(TransferState.DONE));
+    }
+
+    @Test
+    public void shouldMoveTransfersAfterOneWhichIsNotCompletedAndRetryIt() {
+        // Given
+        ConcurrentHashMap<TransferId, Transfer> hotStorage = new ConcurrentHashMap<>();
+        MapTransferRepository repository = new MapTransferRepository(hotStorage);
+        BootstrapConfig config = BootstrapConfig.builder()
+                .withBufferSize(1)
+                .withMaxThreads(1)
+                .withTransferRetentionMs(1000)
+                .build();
+        TransferRetention retention = new TransferRetention(config, repository);
+        TransferId pendingTransferId = TransferId.generate();
+        TransferId doneTransferId = TransferId.generate();
+        repository.save(pendingTransferId, transfer(pendingTransferId, TransferState.PENDING));
+        repository.save(doneTransferId, transfer(doneTransferId, TransferState.DONE));
+
+        // When
+        retention.archive(0);
+        retention.archive(1000);
+        boolean pendingKeptHot = hotStorage.containsKey(pendingTransferId);
+        boolean doneKeptHot = hotStorage.containsKey(doneTransferId);
+        repository.save(pendingTransferId, transfer(pendingTransferId, TransferState.DONE));
+        retention.archive(1500);
+
+        // Then
+        assertThat(pendingKeptHot, is(true));
+        assertThat(doneKeptHot, is(false));
+        assertThat(hotStorage.isEmpty(), is(true));
+        assertThat(repository.findById(pendingTransferId).getState(), is(TransferState.DONE));
+    }
+
+    private static Transfer transfer(TransferId transferId) {
+        return transfer(transferId, TransferState.DONE);
+    }
+
+    private static Transfer transfer(TransferId transferId, TransferState state) {
+        return Transfer.builder()
+                .withId(transferId)
+                .withSourceId(AccountId.valueOf("1"))
+                .withTargetId(AccountId.valueOf("2"))
+                .withAmount(Money.of(1))
+                .withState(state)
+                .withDetails("Transfer completed")
+                .build();
+    }
+}
@@ -0,0 +1,159 @@
+package com.demo.api.transfer.service;
+
+import com.demo.api.exception.InvalidDataException;
+import com.demo.api.exception.TooBusyException;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.common.BootstrapConfig;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class IdempotencyCacheTest {
+
+    @Test
+    public void shouldReturnOriginalTransferIdForSameKeyAndRequest() {
+        // Given
+        IdempotencyCache cache = newCache(10);
+        AtomicInteger created = new AtomicInteger();
+        TransferId transferId = cache.computeIfAbsent("key", "request", () -> {
+            created.incrementAndGet();
+            return TransferId.generate();
+        });
+
+        // When
+        TransferId retriedTransferId = cache.computeIfAbsent("key", "request", () -> {
+            created.incrementAndGet();
+            return TransferId.generate();
+        });
+
+        // Then
+        assertThat(retriedTransferId, is(transferId));
+        assertThat(created.get(), is(1));
+    }
+
+    @Test(expected = InvalidDataException.class)
+    public void shouldRejectKeyReusedForAnotherRequest() {
+        // Given
+        IdempotencyCache cache = newCache(10);
+        cache.computeIfAbsent("key", "request", TransferId::generate);
+
+        // When
+        cache.computeIfAbsent("key", "another request", TransferId::generate);
+
+        // Then
+        // exception
+    }
+
+    @Test
+    public void shouldNotRememberFailedCreation() {
+        // Given
+        IdempotencyCache cache = newCache(10);
+        try {
+            cache.computeIfAbsent("key", "request", () -> {
+                throw new TooBusyException("busy");
+            });
+            fail("Creation must fail");
+        } catch (TooBusyException e) {
+            // expected
+        }
+        TransferId transferId = TransferId.generate();
+
+        // When
+        TransferId retriedTransferId = cache.computeIfAbsent("key", "request", () -> transferId);
+
+        // Then
+        assertThat(retriedTransferId, is(transferId));
+    }
+
+    @Test
+    public void shouldEvictOldestKeysWhenFull() {
+        // Given
+        IdempotencyCache cache = newCache(2);
+        TransferId firstTransferId = cache.computeIfAbsent("first", "request", TransferId::generate);
+        cache.computeIfAbsent("second", "request", TransferId::generate);
+        cache.computeIfAbsent("third", "request", TransferId::generate);
+
+        // When
+        TransferId retriedTransferId = cache.computeIfAbsent("first", "request", TransferId::generate);
+
+        // Then
+        assertThat(retriedTransferId.equals(firstTransferId), is(false));
+        assertThat(cache.size(), is(2));
+    }
+
+    @Test
+    public void shouldNotCountFailedCreation() {
+        // Given
+        IdempotencyCache cache = newCache(10);
+
+        // When
+        try {
+            cache.computeIfAbsent("key", "request", () -> {
+                throw new TooBusyException("busy");
+            });
+            fail("Creation must fail");
+        } catch (TooBusyException e) {
+            // expected
+        }
+
+        // Then
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void shouldNotEvictKeyWhileItsTransferIsBeingCreated() throws InterruptedException {
+        // Given
+        IdempotencyCache cache = newCache(1);
+        TransferId firstTransferId = TransferId.generate();
+        CountDownLatch released = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        Thread creation = new Thread(() -> cache.computeIfAbsent("first", "request", () -> {
+            created.incrementAndGet();
+            awaitQuietly(released);
+            return firstTransferId;
+        }));
+        creation.start();
+        await().until(() -> created.get() == 1);
+
+        // When
+        cache.computeIfAbsent("second", "request", TransferId::generate);
+        AtomicReference<TransferId> retriedTransferId = new AtomicReference<>();
+        Thread retry = new Thread(() -> retriedTransferId.set(cache.computeIfAbsent("first", "request", () -> {
+            created.incrementAndGet();
+            return TransferId.generate();
+        })));
+        retry.start();
+        await().until(() -> retry.getState() == Thread.State.WAITING || !retry.isAlive());
+        released.countDown();
+        creation.join(TimeUnit.SECONDS.toMillis(5));
+        retry.join(TimeUnit.SECONDS.toMillis(5));
+
+        // Then
+        assertThat(retriedTransferId.get(), is(firstTransferId));
+        assertThat(created.get(), is(1));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private IdempotencyCache newCache(int size) {
+        return new IdempotencyCache(BootstrapConfig.builder()
+                .withBufferSize(8)
+                .withMaxThreads(1)
+                .withIdempotencyCacheSize(size)
+                .build());
+    }
+}
@@ -3,21 +3,39 @@ package com.demo.api.transfer.service;
 import com.demo.api.account.model.Account;
 import com.demo.api.account.service.AccountService;
 import com.demo.api.account.model.AccountId;
+import com.demo.api.transfer.manager.InFlightTransfers;
 import com.demo.api.transfer.manager.TransferManager;
+import com.demo.api.transfer.model.NewTransfer;
 import com.demo.api.transfer.model.TransferEvent;
+import com.demo.api.transfer.model.Transfer;
+import com.demo.api.transfer.model.TransferId;
+import com.demo.api.transfer.model.TransferPage;
+import com.demo.api.transfer.model.TransferState;
 import com.demo.api.transfer.repository.TransferRepository;
 import com.demo.api.transfer.validator.DebitTransferValidator;
 import com.demo.api.transfer.validator.TransferValidator;
 import com.demo.api.exception.InvalidDataException;
 import com.demo.api.exception.TooBusyException;
+import com.demo.api.model.BatchResult;
+import com.demo.api.model.Money;
+import com.demo.common.BootstrapConfig;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import net.lamberto.junit.GuiceJUnitRunner;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
@@ -34,17 +52,23 @@ public class TransferServiceTest {
     @Inject
     private TransferService transferService;
 
+    @Inject
+    private TransferRepository transferRepository;
+
+    @Inject
+    private InFlightTransfers inFlightTransfers;
+
     @Test
     public void shouldAcceptAndProcessTransferIfSenderWithSufficientBalance() {
         // Given
-        BigDecimal amount = BigDecimal.ONE;
+        Money amount = Money.of(1);
         Account sourceAccount = Account.builder()
                 .withId(AccountId.valueOf("1"))
-                .withBalance(BigDecimal.ONE)
+                .withBalance(Money.of(1))
                 .build();
         Account targetAccount = Account.builder()
                 .withId(AccountId.valueOf("2"))
-                .withBalance(BigDecimal.ZERO)
+                .withBalance(Money.ZERO)
                 .build();
         when(accountService.findById(sourceAccount.getId())).thenReturn(sourceAccount);
         when(accountService.findById(targetAccount.getId())).thenReturn(targetAccount);
@@ -60,14 +84,14 @@ public class TransferServiceTest {
     @Test
     public void shouldRejectTransferIfSenderTransferMoreThanAvailable() {
         // Given
-        BigDecimal amount = BigDecimal.TEN;
+        Money amount = Money.of(10);
         Account sourceAccount = Account.builder()
                 .withId(AccountId.valueOf("1"))
-                .withBalance(BigDecimal.ONE)
+                .withBalance(Money.of(1))
                 .build();
         Account targetAccount = Account.builder()
                 .withId(AccountId.valueOf("2"))
-                .withBalance(BigDecimal.ZERO)
+                .withBalance(Money.ZERO)
                 .build();
         when(accountService.findById(sourceAccount.getId())).thenReturn(sourceAccount);
         when(accountService.findById(targetAccount.getId())).thenReturn(targetAccount);
@@ -87,14 +111,14 @@ public class TransferServiceTest {
     @Test
     public void shouldRejectTransferIfSenderSendZeroAmount() {
         // Given
-        BigDecimal amount = BigDecimal.ZERO;
+        Money amount = Money.ZERO;
         Account sourceAccount = Account.builder()
                 .withId(AccountId.valueOf("1"))
-                .withBalance(BigDecimal.ONE)
+                .withBalance(Money.of(1))
                 .build();
         Account targetAccount = Account.builder()
                 .withId(AccountId.valueOf("2"))
-                .withBalance(BigDecimal.ZERO)
+                .withBalance(Money.ZERO)
                 .build();
         when(accountService.findById(sourceAccount.getId())).thenReturn(sourceAccount);
         when(accountService.findById(targetAccount.getId())).thenReturn(targetAccount);
@@ -114,14 +138,14 @@ public class TransferServiceTest {
     @Test
     public void shouldRejectTransferIfSenderSendNegativeAmount() {
         // Given
-        BigDecimal amount = BigDecimal.ONE.negate();
+        Money amount = Money.of(-1);
         Account sourceAccount = Account.builder()
                 .withId(AccountId.valueOf("1"))
-                .withBalance(BigDecimal.ONE)
+                .withBalance(Money.of(1))
                 .build();
         Account targetAccount = Account.builder()
                 .withId(AccountId.valueOf("2"))
-                .withBalance(BigDecimal.ZERO)
+                .withBalance(Money.ZERO)
                 .build();
         when(accountService.findById(sourceAccount.getId())).thenReturn(sourceAccount);
         when(accountService.findById(targetAccount.getId())).thenReturn(targetAccount);
@@ -141,10 +165,10 @@ public class TransferServiceTest {
     @Test
     public void shouldRejectTransferIfSenderAndRecipientSameAccounts() {
         // Given
-        BigDecimal amount = BigDecimal.ONE;
+        Money amount = Money.of(1);
         Account sourceAccount = Account.builder()
                 .withId(AccountId.valueOf("1"))
-                .withBalance(BigDecimal.ONE)
+                .withBalance(Money.of(1))
                 .build();
         when(accountService.findById(sourceAccount.getId())).thenReturn(sourceAccount);
         when(transferManager.submitEvent(any(TransferEvent.class))).thenReturn(true);
@@ -163,14 +187,14 @@ public class TransferServiceTest {
     @Test
     public void shouldRejectTransferIfAboveThreshold() {
         // Given
-        BigDecimal amount = BigDecimal.ONE;
+        Money amount = Money.of(1);
         Account sourceAccount = Account.builder()
                 .withId(AccountId.valueOf("1"))
-                .withBalance(BigDecimal.TEN)
+                .withBalance(Money.of(10))
                 .build();
         Account targetAccount = Account.builder()
                 .withId(AccountId.valueOf("2"))
-                .withBalance(BigDecimal.ZERO)
+                .withBalance(Money.ZERO)
                 .build();
         when(accountService.findById(sourceAccount.getId())).thenReturn(sourceAccount);
         when(accountService.findById(targetAccount.getId())).thenReturn(targetAccount);
@@ -187,8 +211,128 @@ public class TransferServiceTest {
         verify(transferManager, times(1)).submitEvent(any(TransferEvent.class));
     }
 
+    @Test
+    public void shouldReportResultOfEveryTransferInBatch() {
+        // Given
+        Account sourceAccount = Account.builder()
+                .withId(AccountId.valueOf("1"))
+                .withBalance(Money.of(10))
+                .build();
+        Account targetAccount = Account.builder()
+                .withId(AccountId.valueOf("2"))
+                .withBalance(Money.ZERO)
+                .build();
+        when(accountService.findById(sourceAccount.getId())).thenReturn(sourceAccount);
+        when(accountService.findById(targetAccount.getId())).thenReturn(targetAccount);
+        when(transferManager.submitEvents(anyListOf(TransferEvent.class))).thenReturn(1); // room for one transfer only
+        NewTransfer validTransfer = NewTransfer.builder()
+                .withSourceId(sourceAccount.getId())
+                .withTargetId(targetAccount.getId())
+                .withAmount(Money.of(1))
+                .build();
+        NewTransfer invalidTransfer = NewTransfer.builder()
+                .withSourceId(sourceAccount.getId())
+                .withTargetId(sourceAccount.getId())
+                .withAmount(Money.of(1))
+                .build();
+
+        // When
+        List<BatchResult<TransferId>> results =
+                transferService.createNew(Arrays.asList(validTransfer, invalidTransfer, validTransfer));
+
+        // Then
+        verify(transferManager, times(1)).submitEvents(anyListOf(TransferEvent.class));
+        verify(transferManager, never()).submitEvent(any(TransferEvent.class));
+        assertThat(results.get(0).isSuccess(), is(true));
+        assertThat(results.get(1).getError(), equalTo("Source and target accounts must not be the same"));
+        assertThat(results.get(2).getError(), equalTo("Server is too busy, please try again later"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldReportMoreTransfersIfPageIsFull() {
+        // Given
+        Transfer transfer = Transfer.builder()
+                .withId(TransferId.generate())
+                .withSourceId(AccountId.valueOf("1"))
+                .withTargetId(AccountId.valueOf("2"))
+                .withAmount(Money.of(1))
+                .withState(TransferState.DONE)
+                .withDetails("Transfer")
+                .build();
+        doAnswer(invocation -> {
+            Consumer<Transfer> consumer = (Consumer<Transfer>) invocation.getArguments()[2];
+            consumer.accept(transfer);
+            return 6L;
+        }).when(transferRepository).scan(eq(5L), anyInt(), any(Consumer.class));
+
+        // When
+        TransferPage fullPage = transferService.findPage(5, 1);
+        TransferPage lastPage = transferService.findPage(5, 2);
+
+        // Then
+        assertThat(fullPage.getTransfers(), contains(transfer));
+        assertThat(fullPage.getNextPosition(), is(6L));
+        assertThat(fullPage.hasMore(), is(true));
+        assertThat(lastPage.hasMore(), is(false));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldListInFlightStateOfTransferStoredAtCheckpoint() {
+        // Given
+        TransferEvent checkpoint = TransferEvent.builder()
+                .withTransferId(TransferId.generate())
+                .withSourceId(AccountId.valueOf("1"))
+                .withTargetId(AccountId.valueOf("2"))
+                .withAmount(Money.of(1))
+                .withState(TransferState.NEW)
+                .withDetails("Transfer created")
+                .build();
+        TransferEvent current = TransferEvent.builder().from(checkpoint)
+                .withState(TransferState.SOURCE_WITHDRAWN)
+                .withDetails("Source withdrawn")
+                .build();
+        inFlightTransfers.register(current);
+        doAnswer(invocation -> {
+            Consumer<Transfer> consumer = (Consumer<Transfer>) invocation.getArguments()[2];
+            consumer.accept(checkpoint.asTransfer());
+            return 1L;
+        }).when(transferRepository).scan(eq(0L), anyInt(), any(Consumer.class));
+        doReturn(1L).when(transferRepository).scan(eq(1L), anyInt(), any(Consumer.class));
+        List<Transfer> iterated = new ArrayList<>();
+
+        // When
+        TransferPage page = transferService.findPage(0, 10);
+        transferService.forEach(iterated::add);
+
+        // Then
+        // transfers are equal by id, so states are compared
+        assertThat(page.getTransfers(), contains(current.asTransfer()));
+        assertThat(page.getTransfers().get(0).getState(), is(TransferState.SOURCE_WITHDRAWN));
+        assertThat(iterated, contains(current.asTransfer()));
+        assertThat(iterated.get(0).getState(), is(TransferState.SOURCE_WITHDRAWN));
+        inFlightTransfers.release(current.getTransferId());
+    }
+
+    @Test
+    public void shouldCompleteWithoutTransferIfNotCompletedInTime() throws Exception {
+        // Given
+        TransferId transferId = TransferId.generate();
+
+        // When
+        Transfer transfer = transferService.awaitCompletion(transferId, 10).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(transfer, is(nullValue()));
+    }
+
     public static class TestModule extends AbstractModule {
         protected void configure() {
+            bind(BootstrapConfig.class).toInstance(BootstrapConfig.builder()
+                    .withBufferSize(8)
+                    .withMaxThreads(1)
+                    .build());
             configureAccountModule();
             configureTransferModule();
         }
@@ -0,0 +1,137 @@
+package com.demo.api.transfer.store;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class RingBufferEventStoreTest {
+
+    @Test
+    public void shouldRejectEventWhenFull() {
+        // Given
+        RingBufferEventStore<Integer> eventStore = new RingBufferEventStore<>(3, new BusySpinWaitStrategy());
+
+        // When
+        boolean first = eventStore.put(1);
+        boolean second = eventStore.put(2);
+        boolean third = eventStore.put(3);
+        boolean fourth = eventStore.put(4);
+
+        // Then
+        assertThat(first && second && third, is(true));
+        assertThat(fourth, is(false));
+    }
+
+    @Test
+    public void shouldStoreBatchWhileThereIsRoom() {
+        // Given
+        RingBufferEventStore<Integer> eventStore = new RingBufferEventStore<>(4, new BusySpinWaitStrategy());
+        eventStore.put(0);
+
+        // When
+        int stored = eventStore.putAll(Arrays.asList(1, 2, 3, 4, 5));
+        int rejected = eventStore.putAll(Arrays.asList(6, 7));
+        Integer first = eventStore.take(() -> true);
+        int storedAfterTake = eventStore.putAll(Arrays.asList(6, 7));
+
+        // Then
+        assertThat(stored, equalTo(3));
+        assertThat(rejected, equalTo(0));
+        assertThat(first, equalTo(0));
+        assertThat(storedAfterTake, equalTo(1));
+        for (int i = 1; i <= 3; i++) {
+            assertThat(eventStore.take(() -> true), equalTo(i));
+        }
+        assertThat(eventStore.take(() -> true), equalTo(6));
+    }
+
+    @Test
+    public void shouldTakeEventsInOrderAndReuseSlots() {
+        // Given
+        RingBufferEventStore<Integer> eventStore = new RingBufferEventStore<>(2, new BusySpinWaitStrategy());
+        List<Integer> events = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertThat(eventStore.put(i), is(true));
+            events.add(eventStore.take(() -> true));
+        }
+
+        // Then
+        for (int i = 0; i < 10; i++) {
+            assertThat(events.get(i), equalTo(i));
+        }
+    }
+
+    @Test
+    public void shouldReturnNullWhenStoppedAndEmpty() {
+        // Given
+        RingBufferEventStore<Integer> eventStore = new RingBufferEventStore<>(4, new BusySpinWaitStrategy());
+        eventStore.put(1);
+        eventStore.clear();
+
+        // When
+        Integer event = eventStore.take(() -> false);
+
+        // Then
+        assertThat(event, nullValue());
+    }
+
+    @Test
+    public void shouldDeliverEveryEventFromConcurrentProducers() throws InterruptedException {
+        // Given
+        int producers = 4;
+        int eventsPerProducer = 10_000;
+        RingBufferEventStore<Integer> eventStore = new RingBufferEventStore<>(16, new YieldingWaitStrategy());
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        for (int producer = 0; producer < producers; producer++) {
+            int offset = producer * eventsPerProducer;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    while (!eventStore.put(offset + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        start.countDown();
+
+        boolean[] received = new boolean[producers * eventsPerProducer];
+        int[] lastSeen = new int[producers];
+        Arrays.fill(lastSeen, -1);
+        for (int i = 0; i < received.length; i++) {
+            int event = eventStore.take(() -> true);
+            int producer = event / eventsPerProducer;
+            // events of the same producer keep their order
+            assertThat(event % eventsPerProducer > lastSeen[producer], is(true));
+            lastSeen[producer] = event % eventsPerProducer;
+            assertThat(received[event], is(false));
+            received[event] = true;
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        assertThat(eventStore.take(() -> false), nullValue());
+    }
+}